@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTextPane;
+
+import io.questdb.desktop.ui.editor.EditorHighlighter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * {@link EditorHighlighter#handleTextChanged()}, which restyles the whole document on
+ * every keystroke, over documents of increasing size. The vocabulary of functions,
+ * keywords and types is loaded before measuring. Runs headless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EditorHighlighterBenchmark {
+    private static final String QUEST = """
+            -- trades per symbol and hour
+            SELECT symbol, timestamp, avg(price) AS avg_price, sum(amount) AS volume, count()
+            FROM 'trades'
+            WHERE timestamp IN '2023-11-01' AND side = 'buy' AND price > 42.5
+            SAMPLE BY 1h FILL(PREV) ALIGN TO CALENDAR;
+            CREATE TABLE IF NOT EXISTS quotes (ts TIMESTAMP, sym SYMBOL, bid DOUBLE, ask DOUBLE) TIMESTAMP(ts) PARTITION BY DAY WAL;
+            """;
+
+    @Param({"10", "100", "1000"})
+    public int quests;
+
+    private EditorHighlighter highlighter;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+        EditorHighlighter.preload().get();
+        JTextPane textPane = new JTextPane();
+        textPane.setText(QUEST.repeat(quests));
+        highlighter = EditorHighlighter.of(textPane);
+    }
+
+    @Benchmark
+    public EditorHighlighter handleTextChanged() {
+        highlighter.handleTextChanged();
+        return highlighter;
+    }
+}
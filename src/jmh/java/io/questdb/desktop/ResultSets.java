@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import io.questdb.desktop.model.Table;
+
+
+/**
+ * Result-sets over in memory rows, for the benchmarks. They are dynamic proxies rather
+ * than mocks, a mock's bookkeeping per call would dominate what is being measured.
+ * Only the methods used by {@link io.questdb.desktop.model.Table} are implemented.
+ */
+final class ResultSets {
+    private static final int[] TYPES = {Types.VARCHAR, Types.BIGINT, Types.DOUBLE, Types.TIMESTAMP, Types.BOOLEAN};
+
+    private ResultSets() {
+        throw new IllegalStateException("not meant to be instantiated");
+    }
+
+    /**
+     * @param rowCount number of rows
+     * @param colCount number of columns, cycling through varchar, bigint, double, timestamp and boolean
+     * @return a result-set positioned before the first row
+     */
+    static ResultSet of(int rowCount, int colCount) {
+        int[] types = new int[colCount];
+        Object[][] rows = new Object[Math.min(rowCount, 1024)][colCount]; // values repeat every 1024 rows
+        for (int c = 0; c < colCount; c++) {
+            types[c] = TYPES[c % TYPES.length];
+            for (int r = 0; r < rows.length; r++) {
+                rows[r][c] = valueOf(types[c], r);
+            }
+        }
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSets.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> colCount;
+                    case "getColumnName", "getColumnLabel" -> "col" + args[0];
+                    case "getColumnType" -> types[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int[] cursor = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSets.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> ++cursor[0] < rowCount;
+                    case "getObject" -> rows[cursor[0] % rows.length][(Integer) args[0] - 1];
+                    case "getMetaData" -> metaData;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * @param rowCount number of rows
+     * @param colCount number of columns, see {@link #of(int, int)}
+     * @return a table with the rows of a result-set
+     * @throws SQLException never, the result-set is in memory
+     */
+    static Table table(int rowCount, int colCount) throws SQLException {
+        ResultSet rs = of(rowCount, colCount);
+        Table table = new Table("bench");
+        table.setColumnMetadata(rs);
+        long rowIdx = 0;
+        while (rs.next()) {
+            table.addRow(rowIdx++, rs);
+        }
+        return table;
+    }
+
+    private static Object valueOf(int type, int r) {
+        return switch (type) {
+            case Types.VARCHAR -> "value-" + r;
+            case Types.BIGINT -> (long) r * 31L;
+            case Types.DOUBLE -> r * 0.5;
+            case Types.TIMESTAMP -> new Timestamp(1_700_000_000_000L + r * 1000L);
+            default -> r % 2 == 0;
+        };
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+
+import io.questdb.desktop.model.SQLPagedTableModel;
+import io.questdb.desktop.model.Table;
+import io.questdb.desktop.ui.results.SQLCellRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * {@link SQLCellRenderer} preparing the cells of a page for painting, through
+ * {@link JTable#prepareRenderer(TableCellRenderer, int, int)} as the results table does,
+ * which formats the values and resolves their colours. Runs headless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SQLCellRendererBenchmark {
+    private static final int ROWS = 1000;
+    private static final int COLUMNS = 8;
+    private static final int CELLS = ROWS * (COLUMNS + 1);
+
+    private Table table;
+    private JTable jTable;
+    private SQLCellRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        table = ResultSets.table(ROWS, COLUMNS);
+        SQLPagedTableModel model = new SQLPagedTableModel(() -> table);
+        model.fireTableDataChanged(true);
+        jTable = new JTable(model);
+        renderer = new SQLCellRenderer(() -> table);
+        jTable.setDefaultRenderer(String.class, renderer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        table.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void prepareRenderer(Blackhole bh) {
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c <= COLUMNS; c++) {
+                bh.consume(jTable.prepareRenderer(renderer, r, c));
+            }
+        }
+    }
+}
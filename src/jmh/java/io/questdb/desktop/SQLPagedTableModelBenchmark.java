@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import io.questdb.desktop.model.SQLPagedTableModel;
+import io.questdb.desktop.model.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * {@link SQLPagedTableModel#getValueAt(int, int)} over a full page, what the results
+ * table asks for when it repaints, on the first and on the last page of the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SQLPagedTableModelBenchmark {
+    private static final int PAGE_ROWS = 1000; // SQLPagedTableModel's page size
+    private static final int COLUMNS = 8;
+    private static final int CELLS = PAGE_ROWS * (COLUMNS + 1);
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean lastPage;
+
+    private Table table;
+    private SQLPagedTableModel model;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        table = ResultSets.table(rows, COLUMNS);
+        model = new SQLPagedTableModel(() -> table);
+        model.fireTableDataChanged(true);
+        while (lastPage && model.canIncPage()) {
+            model.incPage();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        table.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getValueAt(Blackhole bh) {
+        int rowCount = model.getRowCount();
+        int colCount = model.getColumnCount();
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < colCount; c++) {
+                bh.consume(model.getValueAt(r, c));
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import io.questdb.desktop.ui.plotting.SlidingColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * {@link SlidingColumn}'s append followed by the window's min and max, what a streaming
+ * plot costs per point, against scanning the window for them, what it used to cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlidingColumnBenchmark {
+    private static final int VALUES_MASK = (1 << 16) - 1;
+
+    @Param({"1000", "1000000"})
+    public int window;
+
+    private final double[] values = new double[VALUES_MASK + 1];
+    private SlidingColumn column;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42L);
+        double value = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            value += rnd.nextGaussian();
+            values[i] = value;
+        }
+        column = new SlidingColumn("bench", window);
+        for (int i = 0; i < window; i++) {
+            column.append(values[next++ & VALUES_MASK]);
+        }
+    }
+
+    @Benchmark
+    public double appendMinMax() {
+        column.append(values[next++ & VALUES_MASK]);
+        return column.min() + column.max();
+    }
+
+    @Benchmark
+    public double appendScanMinMax() {
+        column.append(values[next++ & VALUES_MASK]);
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = 0, n = column.size(); i < n; i++) {
+            double v = column.get(i);
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        return min + max;
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.questdb.desktop.model.Store;
+import io.questdb.desktop.ui.editor.Content;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * {@link Store} of quests: saving an edit to one of them (journal append and sync, as on
+ * every save of the editor), exporting all of them to a single file, and loading the
+ * store then reading every quest. The store lives in {@link Store#ROOT_PATH}, under
+ * build/tmp/jmh-home, the user.home the jmh task forks with, it is deleted after the trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreBenchmark {
+    private static final String CONTENT = """
+            SELECT symbol, timestamp, avg(price), sum(amount)
+            FROM 'trades'
+            WHERE timestamp IN '2023-11-01'
+            SAMPLE BY 1h FILL(PREV);
+            """.repeat(20);
+
+    @Param({"100", "1000"})
+    public int quests;
+
+    private String fileName;
+    private File exportFile;
+    private Store<Content> store;
+    private List<Content> entries;
+    private int edits;
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IllegalStateException("could not delete " + file);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fileName = "jmh-store-" + quests + ".json";
+        exportFile = new File(Store.ROOT_PATH, "jmh-store-export-" + quests + ".json");
+        delete(new File(Store.ROOT_PATH, fileName + Store.FOLDER_SUFFIX));
+        try (Store<Content> initial = new BenchStore(fileName)) {
+            for (int i = 0; i < quests; i++) {
+                Content content = new Content("quest-" + i);
+                content.setContent(CONTENT);
+                initial.addEntry(content);
+            }
+        }
+        store = new BenchStore(fileName);
+        store.loadFromFile();
+        entries = store.entries();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+        delete(new File(Store.ROOT_PATH, fileName + Store.FOLDER_SUFFIX));
+        delete(exportFile);
+    }
+
+    @Benchmark
+    public Store<Content> saveEdit() {
+        Content content = entries.get(edits++ % entries.size());
+        content.setContent(CONTENT + edits);
+        store.saveToFile();
+        return store;
+    }
+
+    @Benchmark
+    public Store<Content> exportAll() {
+        store.saveToFile(exportFile);
+        return store;
+    }
+
+    @Benchmark
+    public void loadAll(Blackhole bh) {
+        try (Store<Content> loaded = new BenchStore(fileName)) {
+            loaded.loadFromFile();
+            for (Content content : loaded) {
+                bh.consume(content.getContent());
+            }
+        }
+    }
+
+    private static final class BenchStore extends Store<Content> {
+        private BenchStore(String fileName) {
+            super(fileName, Content.class);
+        }
+
+        @Override
+        public Content[] defaultStoreEntries() {
+            return new Content[0];
+        }
+    }
+}
@@ -39,7 +39,9 @@ public final class GTk {
              
             ctrl^.            run QuestDB in the background
             ctrl^m            open metadata files explorer
-            ctrl^j            open plot on results, if two numeric columns
+            ctrl^j            open plot on results: x, then one or more numeric y columns
+            ctrl^k            open query history, latency percentiles per quest and day
+            ctrl^i            open execution metrics, also exposed through JMX
             ctrl^t            open connection assigner/editor
             ctrl^o            open assigned connection
             ctrl^h            open documentation in a browser tab
@@ -53,6 +55,7 @@ public final class GTk {
             ctrl^1            select all
             ctrl^f            find text or regular expression
             ctrl^r            replace text or regular expression
+            ctrl^g            search quests in all notebooks
             ctrl^/            toggle line comment
             ctrl^'            wrap selection in 'selection'
 
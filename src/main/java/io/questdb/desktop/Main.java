@@ -3,25 +3,35 @@ package io.questdb.desktop;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import javax.swing.*;
 
 import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.QueryHistory;
+import io.questdb.desktop.model.ResultCache;
 import io.questdb.desktop.model.SQLExecutor;
 import io.questdb.desktop.model.SQLExecutionRequest;
 import io.questdb.desktop.model.SQLExecutionResponse;
 import io.questdb.desktop.ui.metadata.Metadata;
+import io.questdb.desktop.ui.plotting.LiveQuery;
 import io.questdb.desktop.ui.plotting.Plot;
+import io.questdb.desktop.ui.plotting.SampleByQuery;
 import io.questdb.desktop.ui.plotting.TableColumn;
-import io.questdb.desktop.model.SQLPagedTableModel;
 import io.questdb.desktop.model.SQLType;
 import io.questdb.desktop.model.Store;
+import io.questdb.desktop.model.Table;
 import io.questdb.ServerMain;
 import io.questdb.desktop.ui.connectivity.Conns;
+import io.questdb.desktop.ui.editor.EditorHighlighter;
 import io.questdb.desktop.ui.editor.MainEditor;
 import io.questdb.desktop.ui.EventProducer;
+import io.questdb.desktop.ui.results.ExecutionMetricsView;
+import io.questdb.desktop.ui.results.QueryHistoryView;
 import io.questdb.desktop.ui.results.SQLResultsTable;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -30,28 +40,36 @@ import io.questdb.std.Misc;
 
 public final class Main {
     private static final Log LOG = LogFactory.getLog(Main.class);
+    private static final long START_NANOS = System.nanoTime();
+    private static final String EXIT_ON_FIRST_FRAME_PROPERTY = "questdb.desktop.exitOnFirstFrame";
+    private static final String OPENGL_PROPERTY = "questdb.desktop.opengl";
 
     private final JFrame frame;
     private final MainEditor commands;
     private final Conns conns;
     private final SQLResultsTable results;
     private final SQLExecutor executor;
-    private final Metadata meta;
-    private final Plot plot;
+    private final QueryHistory history;
     private final JMenuItem toggleConns;
     private final JMenuItem togglePlot;
     private final JMenuItem toggleQuestDB;
     private final JMenuItem toggleMeta;
     private final JMenuItem toggleAssignedConn;
+    private Metadata meta; // created on first use
+    private Plot plot; // created on first use
+    private QueryHistoryView historyView; // created on first use
+    private ExecutionMetricsView metricsView; // created on first use
     private ServerMain questDb;
+    private SQLExecutionResponse shownResults; // completed response on display, source of live plots
 
     private Main() {
         frame = GTk.frame(String.format("%s [store: %s]", GTk.APP_NAME, Store.ROOT_PATH));
         frame.setIconImage(GTk.Icon.QUESTDB.icon().getImage());
         int dividerHeight = (int) (frame.getHeight() * 0.6);
         executor = new SQLExecutor();
-        meta = new Metadata(frame, "Metadata Files", this::dispatchEvent);
-        plot = new Plot(frame, "Plot", this::dispatchEvent);
+        history = new QueryHistory();
+        executor.setQueryHistory(history);
+        executor.getMetrics().register();
         conns = new Conns(frame, this::dispatchEvent);
         commands = new MainEditor(this::dispatchEvent);
         commands.setPreferredSize(new Dimension(0, dividerHeight));
@@ -70,10 +88,29 @@ public final class Main {
         LOG.info().$('\n').$(GTk.BANNER).$('\n').$();
         executor.start();
         conns.start();
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                LOG.info().$("First frame [millis=")
+                        .$(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - START_NANOS))
+                        .$(", graphics=").$(frame.getGraphicsConfiguration().getClass().getSimpleName())
+                        .I$();
+                if (Boolean.getBoolean(EXIT_ON_FIRST_FRAME_PROPERTY)) {
+                    frame.dispose(); // startup benchmark run
+                }
+            }
+        });
         frame.setVisible(true);
     }
 
     public static void main(String[] args) {
+        if (Boolean.getBoolean(OPENGL_PROPERTY) && !GraphicsEnvironment.isHeadless()) {
+            // read once, when the graphics environment is created. Java2D falls back
+            // to software rendering where OpenGL is not available
+            System.setProperty("sun.java2d.opengl", "true");
+        }
+        EditorHighlighter.preload();
+        Store.preload(Conns.STORE_FILE_NAME, MainEditor.STORE_FILE_NAME);
         GTk.invokeLater(Main::new);
     }
 
@@ -99,6 +136,8 @@ public final class Main {
         commandsMenu.addSeparator();
         commandsMenu.add(GTk.menuItem(GTk.Icon.COMMAND_FIND, "Find", KeyEvent.VK_F, e -> commands.onFind()));
         commandsMenu.add(GTk.menuItem(GTk.Icon.COMMAND_REPLACE, "Replace", KeyEvent.VK_R, e -> commands.onReplace()));
+        commandsMenu.addSeparator();
+        commandsMenu.add(GTk.menuItem(new JCheckBoxMenuItem(), GTk.Icon.NO_ICON, "Cache results", GTk.Keyboard.NO_KEY_EVENT, this::onToggleResultCache));
 
         JMenu resultsMenu = GTk.menu(GTk.Icon.RESULTS, "Results");
         resultsMenu.add(GTk.menuItem(GTk.Icon.RESULTS_PREV, "PREV", KeyEvent.VK_B, results::onPrevButton));
@@ -112,6 +151,8 @@ public final class Main {
         menu.add(GTk.menuItem(toggleMeta, GTk.Icon.META, "Meta Explorer", KeyEvent.VK_M, this::onToggleMeta));
         menu.addSeparator();
         menu.add(GTk.menuItem(togglePlot, GTk.Icon.PLOT, "Plot", KeyEvent.VK_J, this::onTogglePlot));
+        menu.add(GTk.menuItem(GTk.Icon.NO_ICON, "Query history", KeyEvent.VK_K, this::onQueryHistory));
+        menu.add(GTk.menuItem(GTk.Icon.NO_ICON, "Execution metrics", KeyEvent.VK_I, this::onExecutionMetrics));
         menu.addSeparator();
         menu.add(connsMenu);
         menu.add(commandsMenu);
@@ -125,6 +166,30 @@ public final class Main {
         return menuBar;
     }
 
+    private void onToggleResultCache(ActionEvent event) {
+        boolean isEnabled = ((AbstractButton) event.getSource()).isSelected();
+        executor.setResultCache(isEnabled ? new ResultCache() : null);
+        LOG.info().$("Result cache [enabled=").$(isEnabled).I$();
+    }
+
+    private void onQueryHistory(ActionEvent event) {
+        if (historyView == null) {
+            historyView = new QueryHistoryView(frame, history);
+        }
+        historyView.open();
+    }
+
+    private void onExecutionMetrics(ActionEvent event) {
+        if (metricsView == null) {
+            metricsView = new ExecutionMetricsView(frame, executor.getMetrics());
+        }
+        if (!metricsView.isVisible()) {
+            Dimension location = GTk.frameLocation(metricsView.getSize());
+            metricsView.setLocation(location.width, location.height);
+        }
+        metricsView.setVisible(true);
+    }
+
     private void onToggleAssignedConn(ActionEvent event) {
         DbConn conn = commands.getConnection();
         conns.onConnectEvent(conn);
@@ -139,40 +204,85 @@ public final class Main {
     }
 
     private void onToggleMeta(ActionEvent event) {
+        if (meta == null) {
+            meta = new Metadata(frame, "Metadata Files", this::dispatchEvent);
+        }
         onToggleDialog(meta, wasVisible -> toggleMeta.setText(wasVisible ? "Meta Explorer" : "Close Meta Explorer"));
     }
 
     private void onTogglePlot(ActionEvent event) {
+        if (plot == null) {
+            plot = new Plot(frame, "Plot", this::dispatchEvent);
+        }
         if (plot.isVisible()) {
             plot.setVisible(false);
             togglePlot.setText("Plot");
         } else {
-            SQLPagedTableModel table = results.getTable();
-            if (table == null) {
-                GTk.showErrorDialog(frame, "No results to plot");
+            Table table = results.getResults();
+            String error = checkPlottable(table);
+            if (error != null) {
+                GTk.showErrorDialog(frame, error);
                 return;
             }
-            if (table.getColumnCount() != 3) { // #, x, y
-                GTk.showErrorDialog(frame, "Select only two columns");
-                return;
+            TableColumn[] ys = new TableColumn[table.getColumnCount() - 2];
+            for (int i = 0; i < ys.length; i++) {
+                ys[i] = new TableColumn(table.getColumnName(i + 2), table, i + 2, Plot.seriesColor(i));
             }
-            if (SQLType.isNotNumeric(table.getColumnType(1))) {
-                GTk.showErrorDialog(frame, "Column X is not numeric");
-                return;
-            }
-            if (!SQLType.isNotNumeric(table.getColumnType(2))) {
-                GTk.showErrorDialog(frame, "Column Y is not numeric");
-                return;
-            }
-            plot.setDataSet(
-                    new TableColumn("x", table, 1, Color.WHITE),
-                    new TableColumn("y", table, 2, GTk.Editor.MATCH_FOREGROUND_COLOR)
-            );
+            plot.setDataSet(new TableColumn(table.getColumnName(1), table, 1, Color.WHITE), ys);
+            SQLExecutionResponse res = shownResults;
+            plot.setRefinable(executor, res != null && res.getTable() == table
+                    ? SampleByQuery.of(res.getConnection(), res.getSqlCommand(), table.getColumnName(1), table.getColumnType(1))
+                    : null);
             plot.setVisible(true);
             togglePlot.setText("Close Plot");
         }
     }
 
+    private static String checkPlottable(Table table) {
+        if (table == null || table.getColumnCount() == 0) {
+            return "No results to plot";
+        }
+        if (table.getColumnCount() < 3) { // #, x, y...
+            return "Select an x column and at least one y column";
+        }
+        if (SQLType.isNotNumeric(table.getColumnType(1))) {
+            return "Column X is not numeric";
+        }
+        for (int i = 2, n = table.getColumnCount(); i < n; i++) {
+            if (SQLType.isNotNumeric(table.getColumnType(i))) {
+                return String.format("Column Y [%s] is not numeric", table.getColumnName(i));
+            }
+        }
+        return null;
+    }
+
+    private void onLivePlot() {
+        String error = checkPlottable(results.getResults());
+        SQLExecutionResponse res = shownResults;
+        if (error == null && res == null) {
+            error = "No query to plot live";
+        }
+        if (error == null && (res.getConnection() == null || !res.getConnection().isValid())) {
+            error = "Not connected";
+        }
+        if (error != null) {
+            GTk.showErrorDialog(plot, error);
+            return;
+        }
+        Table table = res.getTable();
+        try {
+            plot.startLive(executor, new LiveQuery(
+                    res.getConnection(),
+                    res.getSqlCommand(),
+                    table.getColumnName(1),
+                    table.getColumnType(1),
+                    plot.getLiveMode()
+            ));
+        } catch (IllegalArgumentException e) {
+            GTk.showErrorDialog(plot, e.getMessage());
+        }
+    }
+
     private void onToggleQuestDB(ActionEvent event) {
         if (questDb == null) {
             try {
@@ -203,7 +313,9 @@ public final class Main {
     }
 
     private void dispatchEvent(EventProducer<?> source, Enum<?> event, Object data) {
+        final long dispatchNanos = System.nanoTime();
         GTk.invokeLater(() -> {
+            executor.getMetrics().onEdtDelay(System.nanoTime() - dispatchNanos);
             if (source instanceof MainEditor) {
                 onCommandEvent(EventProducer.eventType(event), (SQLExecutionRequest) data);
             } else if (source instanceof SQLExecutor) {
@@ -226,6 +338,7 @@ public final class Main {
                     onToggleAssignedConn(null);
                 }
                 results.close();
+                shownResults = null;
                 executor.submit(req, this::dispatchEvent);
             }
             case COMMAND_CANCEL -> {
@@ -242,10 +355,17 @@ public final class Main {
             case STARTED -> results.onResultsStarted();
             case FIRST_ROW_AVAILABLE -> results.onMetadataAvailable(res);
             case ROWS_AVAILABLE -> results.onRowsAvailable(res);
-            case COMPLETED -> results.onRowsCompleted(res);
-            case CANCELLED -> results.close();
+            case COMPLETED -> {
+                results.onRowsCompleted(res);
+                shownResults = res;
+            }
+            case CANCELLED -> {
+                results.close();
+                shownResults = null;
+            }
             case FAILURE -> {
                 results.close();
+                shownResults = null;
                 results.displayError(res.getError());
             }
         }
@@ -258,8 +378,9 @@ public final class Main {
     }
 
     private void onPlotEvent(Plot.EventType event) {
-        if (event == Plot.EventType.HIDE_REQUEST) {
-            onTogglePlot(null);
+        switch (event) {
+            case HIDE_REQUEST -> onTogglePlot(null);
+            case LIVE_REQUEST -> onLivePlot();
         }
     }
 
@@ -296,7 +417,14 @@ public final class Main {
     }
 
     private void close() {
+        if (plot != null) {
+            // stops the live plot and the refinement before the executor they submit to,
+            // off the EDT, thus without hiding the dialog
+            plot.stopRequests();
+        }
+        executor.getMetrics().unregister();
         Misc.free(executor);
+        Misc.free(history);
         Misc.free(conns);
         Misc.free(commands);
         Misc.free(results);
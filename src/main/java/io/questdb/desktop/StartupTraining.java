@@ -0,0 +1,79 @@
+package io.questdb.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.Store;
+import io.questdb.desktop.ui.connectivity.Conns;
+import io.questdb.desktop.ui.editor.Content;
+import io.questdb.desktop.ui.editor.EditorHighlighter;
+import io.questdb.desktop.ui.editor.MainEditor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+
+
+/**
+ * Training run for the class-data-sharing archive produced by the build (task cdsArchive).
+ * <p>
+ * It walks the startup path of {@link Main} without showing any window, so that it can run
+ * headless: it loads the editor's vocabulary, reads/creates the stores, and loads (without
+ * initialising) every class of the client's jar, which in turn loads the Swing classes they
+ * extend. The JVM dumps all the classes loaded during the run into the archive on exit.
+ */
+public final class StartupTraining {
+    private static final Log LOG = LogFactory.getLog(StartupTraining.class);
+
+    private StartupTraining() {
+        throw new IllegalStateException("not meant to be instantiated");
+    }
+
+    public static void main(String[] args) throws Exception {
+        EditorHighlighter.preload().get();
+        Store.preload(Conns.STORE_FILE_NAME, MainEditor.STORE_FILE_NAME);
+        try (Store<DbConn> conns = new Store<>(Conns.STORE_FILE_NAME, DbConn.class) {
+            @Override
+            public DbConn[] defaultStoreEntries() {
+                return new DbConn[]{new DbConn("QuestDB")};
+            }
+        }) {
+            conns.loadFromFile();
+        }
+        try (Store<Content> quests = new Store<>(MainEditor.STORE_FILE_NAME, Content.class) {
+            @Override
+            public Content[] defaultStoreEntries() {
+                return new Content[]{new Content()};
+            }
+        }) {
+            quests.loadFromFile();
+        }
+        LOG.info().$("Training run loaded [classes=").$(loadClasses()).I$();
+    }
+
+    private static int loadClasses() throws IOException {
+        File jar = new File(StartupTraining.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        if (!jar.isFile()) {
+            return 0; // running from a classes folder
+        }
+        ClassLoader loader = StartupTraining.class.getClassLoader();
+        int count = 0;
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class")) {
+                    try {
+                        Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+                        count++;
+                    } catch (Throwable ignore) {
+                        // not needed at startup
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
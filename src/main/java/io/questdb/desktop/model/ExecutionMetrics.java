@@ -0,0 +1,382 @@
+package io.questdb.desktop.model;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+
+
+/**
+ * Counters and latency histograms of the {@link SQLExecutor}'s executions, and of the
+ * delay between events being dispatched and their being run on the EDT.
+ * <p>
+ * The fetch loop is split in stages: waiting on the result-set's next (network and driver
+ * buffering), adding the row to the {@link Table} (getObject and conversion, which includes
+ * the time waiting for the table's lock, also reported on its own), and the GC time
+ * elapsed during the execution. Stages are accumulated per execution by the executor and
+ * recorded once, at completion, see {@link FetchEvent}, so the cost per row is that of
+ * reading the clock. Histograms are lock-free, with eight buckets per power of two of
+ * microseconds, thus percentiles are accurate to within 12.5%.
+ * <p>
+ * The metrics are exposed through JMX as {@value #OBJECT_NAME}, see {@link #register()}.
+ */
+public class ExecutionMetrics implements ExecutionMetricsMXBean {
+    public static final String OBJECT_NAME = "io.questdb.desktop:type=ExecutionMetrics";
+    private static final Log LOG = LogFactory.getLog(ExecutionMetrics.class);
+    private static final List<GarbageCollectorMXBean> GCS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder fetchNanos = new LongAdder();
+    private final LongAdder nextNanos = new LongAdder();
+    private final LongAdder addRowNanos = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LongAdder gcMillis = new LongAdder();
+    private final LongAccumulator maxTableBytes = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator edtDelayMaxNanos = new LongAccumulator(Math::max, 0L);
+    private final Histogram exec = new Histogram();
+    private final Histogram firstRow = new Histogram();
+    private final Histogram fetch = new Histogram();
+    private final Histogram edtDelay = new Histogram();
+    private volatile long lastTableBytes;
+    private volatile double lastRowsPerSec;
+    private volatile double lastBytesPerSec;
+    private ObjectName objectName;
+
+    /**
+     * @return milliseconds spent in garbage collection since the JVM started, by all
+     * the collectors
+     */
+    static long gcMillis() {
+        long millis = 0L;
+        for (int i = 0, n = GCS.size(); i < n; i++) {
+            long time = GCS.get(i).getCollectionTime();
+            if (time > 0L) {
+                millis += time;
+            }
+        }
+        return millis;
+    }
+
+    private static double perSec(long count, long nanos) {
+        return nanos > 0L ? count * 1e9 / nanos : 0.0;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, failures are logged.
+     */
+    public synchronized void register() {
+        if (objectName == null) {
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(this, name);
+                    objectName = name;
+                }
+            } catch (JMException e) {
+                LOG.error().$("Could not register [name=").$(OBJECT_NAME).$(", e=").$(e.getMessage()).I$();
+            }
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                // do nothing
+            } finally {
+                objectName = null;
+            }
+        }
+    }
+
+    /**
+     * @param nanos time between an event being dispatched and its being run on the EDT
+     */
+    public void onEdtDelay(long nanos) {
+        edtDelay.record(micros(nanos));
+        edtDelayMaxNanos.accumulate(nanos);
+    }
+
+    void onCacheHit() {
+        executions.increment();
+        cacheHits.increment();
+    }
+
+    void onFailure() {
+        executions.increment();
+        failures.increment();
+    }
+
+    void onCompleted(FetchEvent event) {
+        executions.increment();
+        rows.add(event.rows);
+        bytes.add(event.bytes);
+        fetchNanos.add(event.fetchNanos);
+        nextNanos.add(event.nextNanos);
+        addRowNanos.add(event.addRowNanos);
+        lockWaitNanos.add(event.lockWaitNanos);
+        gcMillis.add(event.gcMillis);
+        exec.record(micros(event.execNanos));
+        fetch.record(micros(event.fetchNanos));
+        if (event.rows > 0L) {
+            firstRow.record(micros(event.firstRowNanos));
+        }
+        lastTableBytes = event.bytes;
+        maxTableBytes.accumulate(event.bytes);
+        lastRowsPerSec = perSec(event.rows, event.fetchNanos);
+        lastBytesPerSec = perSec(event.bytes, event.fetchNanos);
+    }
+
+    /**
+     * @return name and formatted value of each metric, in display order
+     */
+    public Map<String, String> snapshot() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("executions", String.valueOf(getExecutions()));
+        values.put("failures", String.valueOf(getFailures()));
+        values.put("cache hits", String.valueOf(getCacheHits()));
+        values.put("rows", String.valueOf(getRows()));
+        values.put("bytes", String.valueOf(getBytes()));
+        values.put("rows/sec", String.format("%.1f", getRowsPerSec()));
+        values.put("bytes/sec", String.format("%.1f", getBytesPerSec()));
+        values.put("last rows/sec", String.format("%.1f", getLastRowsPerSec()));
+        values.put("last bytes/sec", String.format("%.1f", getLastBytesPerSec()));
+        values.put("exec p50/p99 (us)", getExecP50Micros() + " / " + getExecP99Micros());
+        values.put("first row p50/p99 (us)", getFirstRowP50Micros() + " / " + getFirstRowP99Micros());
+        values.put("fetch p50/p99 (us)", getFetchP50Micros() + " / " + getFetchP99Micros());
+        values.put("edt delay p50/p99/max (us)", getEdtDelayP50Micros() + " / " + getEdtDelayP99Micros() + " / " + getEdtDelayMaxMicros());
+        values.put("fetch: next (ms)", String.valueOf(getNextMillis()));
+        values.put("fetch: addRow (ms)", String.valueOf(getAddRowMillis()));
+        values.put("fetch: lock wait (ms)", String.valueOf(getLockWaitMillis()));
+        values.put("fetch: gc (ms)", String.valueOf(getGcMillis()));
+        values.put("last table bytes", String.valueOf(getLastTableBytes()));
+        values.put("max table bytes", String.valueOf(getMaxTableBytes()));
+        return values;
+    }
+
+    @Override
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getRowsPerSec() {
+        return perSec(rows.sum(), fetchNanos.sum());
+    }
+
+    @Override
+    public double getBytesPerSec() {
+        return perSec(bytes.sum(), fetchNanos.sum());
+    }
+
+    @Override
+    public double getLastRowsPerSec() {
+        return lastRowsPerSec;
+    }
+
+    @Override
+    public double getLastBytesPerSec() {
+        return lastBytesPerSec;
+    }
+
+    @Override
+    public long getExecP50Micros() {
+        return exec.percentile(0.5);
+    }
+
+    @Override
+    public long getExecP99Micros() {
+        return exec.percentile(0.99);
+    }
+
+    @Override
+    public long getFirstRowP50Micros() {
+        return firstRow.percentile(0.5);
+    }
+
+    @Override
+    public long getFirstRowP99Micros() {
+        return firstRow.percentile(0.99);
+    }
+
+    @Override
+    public long getFetchP50Micros() {
+        return fetch.percentile(0.5);
+    }
+
+    @Override
+    public long getFetchP99Micros() {
+        return fetch.percentile(0.99);
+    }
+
+    @Override
+    public long getEdtDelayP50Micros() {
+        return edtDelay.percentile(0.5);
+    }
+
+    @Override
+    public long getEdtDelayP99Micros() {
+        return edtDelay.percentile(0.99);
+    }
+
+    @Override
+    public long getEdtDelayMaxMicros() {
+        return micros(edtDelayMaxNanos.get());
+    }
+
+    @Override
+    public long getNextMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nextNanos.sum());
+    }
+
+    @Override
+    public long getAddRowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(addRowNanos.sum());
+    }
+
+    @Override
+    public long getLockWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.sum());
+    }
+
+    @Override
+    public long getGcMillis() {
+        return gcMillis.sum();
+    }
+
+    @Override
+    public long getLastTableBytes() {
+        return lastTableBytes;
+    }
+
+    @Override
+    public long getMaxTableBytes() {
+        return maxTableBytes.get();
+    }
+
+    @Override
+    public void reset() {
+        executions.reset();
+        failures.reset();
+        cacheHits.reset();
+        rows.reset();
+        bytes.reset();
+        fetchNanos.reset();
+        nextNanos.reset();
+        addRowNanos.reset();
+        lockWaitNanos.reset();
+        gcMillis.reset();
+        maxTableBytes.reset();
+        edtDelayMaxNanos.reset();
+        exec.reset();
+        firstRow.reset();
+        fetch.reset();
+        edtDelay.reset();
+        lastTableBytes = 0L;
+        lastRowsPerSec = 0.0;
+        lastBytesPerSec = 0.0;
+    }
+
+    /**
+     * Log-linear histogram of non-negative values: values below eight have a bucket each,
+     * above, each power of two is split in eight buckets.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int SUB_BITS = 3;
+        private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BITS) * SUB_BUCKETS);
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(0L, value);
+            }
+            int octave = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int shift = octave - SUB_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1L;
+        }
+
+        void record(long value) {
+            counts.incrementAndGet(bucketOf(value));
+        }
+
+        /**
+         * @param quantile in [0, 1]
+         * @return upper bound of the bucket containing the quantile, 0 when empty
+         */
+        long percentile(double quantile) {
+            int n = counts.length();
+            long total = 0L;
+            for (int i = 0; i < n; i++) {
+                total += counts.get(i);
+            }
+            if (total == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+            long seen = 0L;
+            for (int i = 0; i < n; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+            return upperBoundOf(n - 1);
+        }
+
+        void reset() {
+            for (int i = 0, n = counts.length(); i < n; i++) {
+                counts.set(i, 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.questdb.desktop.model;
+
+/**
+ * Management interface of {@link ExecutionMetrics}, registered with the platform MBean
+ * server under {@value ExecutionMetrics#OBJECT_NAME}.
+ */
+public interface ExecutionMetricsMXBean {
+
+    long getExecutions();
+
+    long getFailures();
+
+    long getCacheHits();
+
+    long getRows();
+
+    long getBytes();
+
+    double getRowsPerSec();
+
+    double getBytesPerSec();
+
+    double getLastRowsPerSec();
+
+    double getLastBytesPerSec();
+
+    long getExecP50Micros();
+
+    long getExecP99Micros();
+
+    long getFirstRowP50Micros();
+
+    long getFirstRowP99Micros();
+
+    long getFetchP50Micros();
+
+    long getFetchP99Micros();
+
+    long getEdtDelayP50Micros();
+
+    long getEdtDelayP99Micros();
+
+    long getEdtDelayMaxMicros();
+
+    long getNextMillis();
+
+    long getAddRowMillis();
+
+    long getLockWaitMillis();
+
+    long getGcMillis();
+
+    long getLastTableBytes();
+
+    long getMaxTableBytes();
+
+    void reset();
+}
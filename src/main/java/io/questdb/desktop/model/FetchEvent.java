@@ -0,0 +1,67 @@
+package io.questdb.desktop.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * JFR event spanning the execution of a query by the {@link SQLExecutor}, with the
+ * time spent in each stage of the fetch loop. The executor fills it in as it goes,
+ * whether JFR is recording or not, and records it in the {@link ExecutionMetrics}.
+ */
+@Name("io.questdb.desktop.Fetch")
+@Label("Query Fetch")
+@Description("Execution of a query and fetch of its results")
+@Category({"QuestDB Desktop", "SQL"})
+@StackTrace(false)
+final class FetchEvent extends Event {
+    @Label("Request Id")
+    String reqId;
+
+    @Label("Source Id")
+    String srcId;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Estimated Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Exec Time")
+    @Timespan
+    long execNanos;
+
+    @Label("Time To First Row")
+    @Timespan
+    long firstRowNanos;
+
+    @Label("Fetch Time")
+    @Timespan
+    long fetchNanos;
+
+    @Label("Next Time")
+    @Description("Waiting on the result-set's next, network and driver")
+    @Timespan
+    long nextNanos;
+
+    @Label("Add Row Time")
+    @Description("Reading the values of the rows and adding them to the table")
+    @Timespan
+    long addRowNanos;
+
+    @Label("Lock Wait Time")
+    @Description("Part of the add row time spent waiting for the table's lock")
+    @Timespan
+    long lockWaitNanos;
+
+    @Label("GC Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long gcMillis;
+}
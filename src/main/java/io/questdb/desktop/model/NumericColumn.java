@@ -0,0 +1,61 @@
+package io.questdb.desktop.model;
+
+/**
+ * Values of a numeric column of a {@link Table} as doubles, see
+ * {@link SQLType#getNumericValue(Object, int)}, in an append only array, with their min
+ * and max. They are maintained as rows are added, thus plots read them without unboxing,
+ * nor scanning, however many rows. Nulls are NaN, and are not considered for min and max,
+ * which are NaN when there are no values.
+ * <p>
+ * Appended by the table while holding its write lock, read without locking: the size is
+ * published after the value, and the array after growing, thus readers that read the size
+ * first see at least as many values. Min and max are published on their own, they may
+ * account for values appended after the size read.
+ */
+public final class NumericColumn {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double[] EMPTY = new double[0];
+
+    private volatile double[] values = EMPTY;
+    private volatile int size;
+    private volatile double min = Double.NaN; // volatile, read during fetches, see JLS 17.7
+    private volatile double max = Double.NaN;
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int i) {
+        return values[i];
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    void append(double value) {
+        int n = size;
+        double[] vals = values;
+        if (n == vals.length) {
+            double[] grown = new double[Math.max(INITIAL_CAPACITY, n * 2)];
+            System.arraycopy(vals, 0, grown, 0, n);
+            values = vals = grown;
+        }
+        vals[n] = value;
+        if (!Double.isNaN(value)) {
+            double lo = min;
+            if (Double.isNaN(lo) || value < lo) {
+                min = value;
+            }
+            double hi = max;
+            if (Double.isNaN(hi) || value > hi) {
+                max = value;
+            }
+        }
+        size = n + 1;
+    }
+}
@@ -0,0 +1,261 @@
+package io.questdb.desktop.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+
+
+/**
+ * Append-only log of the executions of the {@link SQLExecutor}, one binary record each
+ * (length prefixed), in file {@value #FILE_NAME} under {@link Store#ROOT_PATH}.
+ * <p>
+ * Records carry the time, the quest (the request's source), the connection, a hash of
+ * the normalised SQL text, the number of rows and their estimated size, the timings and
+ * the outcome. Reading stops at the first incomplete record, a record torn by a crash is
+ * truncated when the log is opened to append to it. When the log grows beyond a threshold
+ * it is rolled on open, keeping the previous log, which is also read.
+ */
+public class QueryHistory implements Closeable {
+    public static final String FILE_NAME = "query-history.log";
+    private static final Log LOG = LogFactory.getLog(QueryHistory.class);
+    private static final String ROLLED_SUFFIX = ".1";
+    private static final long ROLL_BYTES = 32L * 1024 * 1024;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+    private static final int FIXED_BYTES = 8 * 7 + 1; // longs and outcome
+    private static final int MIN_RECORD_BYTES = FIXED_BYTES + 2 * Short.BYTES; // and two empty strings
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final File file;
+    private FileChannel channel;
+    private boolean isBroken;
+
+    public QueryHistory() {
+        this(new File(Store.ROOT_PATH, FILE_NAME));
+    }
+
+    public QueryHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param sql SQL text
+     * @return 64 bit hash (FNV-1a) of the normalised text, see {@link ResultCache}
+     */
+    public static long sqlHash(String sql) {
+        String normalized = ResultCache.normalize(sql);
+        long hash = FNV_OFFSET;
+        for (int i = 0, n = normalized.length(); i < n; i++) {
+            hash ^= normalized.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // truncated on a character boundary
+    private static byte[] utf8(String str) {
+        byte[] bytes = (str != null ? str : "").getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) {
+            return bytes;
+        }
+        int end = MAX_STRING_BYTES;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) { // continuation byte
+            end--;
+        }
+        return Arrays.copyOf(bytes, end);
+    }
+
+    // null when the string overruns the record
+    private static String readString(ByteBuffer rec) {
+        if (rec.remaining() < Short.BYTES) {
+            return null;
+        }
+        int len = rec.getShort() & 0xFFFF;
+        if (len > rec.remaining()) {
+            return null;
+        }
+        String str = new String(rec.array(), rec.arrayOffset() + rec.position(), len, StandardCharsets.UTF_8);
+        rec.position(rec.position() + len);
+        return str;
+    }
+
+    // the record at the buffer's position, which moves past it, null when it is torn
+    private static Execution readRecord(ByteBuffer buf) {
+        if (buf.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int len = buf.getInt(buf.position());
+        if (len < MIN_RECORD_BYTES || len > buf.remaining() - Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer rec = buf.slice(buf.position() + Integer.BYTES, len);
+        long timestamp = rec.getLong();
+        long sqlHash = rec.getLong();
+        long rows = rec.getLong();
+        long bytes = rec.getLong();
+        long execMillis = rec.getLong();
+        long fetchMillis = rec.getLong();
+        long totalMillis = rec.getLong();
+        Outcome outcome = Outcome.of(rec.get());
+        String quest = readString(rec);
+        String conn = quest != null ? readString(rec) : null;
+        if (conn == null) {
+            return null;
+        }
+        buf.position(buf.position() + Integer.BYTES + len);
+        return new Execution(timestamp, sqlHash, rows, bytes, execMillis, fetchMillis, totalMillis, outcome, quest, conn);
+    }
+
+    // returns the length of the complete records, executions may be null
+    private static long readFile(File file, List<Execution> executions) throws IOException {
+        if (!file.exists()) {
+            return 0L;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        Execution execution;
+        while ((execution = readRecord(buf)) != null) {
+            if (executions != null) {
+                executions.add(execution);
+            }
+        }
+        return buf.position();
+    }
+
+    /**
+     * Appends an execution to the log, failures to write are logged once.
+     *
+     * @param res     response of the last event of the execution
+     * @param outcome how the execution ended
+     */
+    public synchronized void record(SQLExecutionResponse res, Outcome outcome) {
+        if (isBroken) {
+            return;
+        }
+        Table table = res.getTable();
+        DbConn conn = res.getConnection();
+        byte[] quest = utf8(res.getSourceId());
+        byte[] connId = utf8(conn != null ? conn.getUniqueId() : null);
+        int len = FIXED_BYTES + Short.BYTES + quest.length + Short.BYTES + connId.length;
+        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + len);
+        buf.putInt(len)
+                .putLong(System.currentTimeMillis())
+                .putLong(sqlHash(res.getSqlCommand()))
+                .putLong(table != null ? table.size() : 0L)
+                .putLong(table != null ? table.getEstimatedBytes() : 0L)
+                .putLong(res.getExecMillis())
+                .putLong(res.getFetchMillis())
+                .putLong(res.getTotalMillis())
+                .put((byte) outcome.ordinal())
+                .putShort((short) quest.length).put(quest)
+                .putShort((short) connId.length).put(connId)
+                .flip();
+        try {
+            if (channel == null) {
+                open();
+            }
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            isBroken = true;
+            LOG.error().$("Could not record execution [path=").$(file.getAbsolutePath())
+                    .$(", e=").$(e.getMessage())
+                    .I$();
+        }
+    }
+
+    /**
+     * @return all the executions recorded, oldest first
+     * @throws IOException the log could not be read
+     */
+    public List<Execution> read() throws IOException {
+        List<Execution> executions = new ArrayList<>();
+        synchronized (this) {
+            readFile(new File(file.getParentFile(), file.getName() + ROLLED_SUFFIX), executions);
+            readFile(file, executions);
+        }
+        return executions;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+                // do nothing
+            }
+            channel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (file.length() > ROLL_BYTES) {
+            File rolled = new File(file.getParentFile(), file.getName() + ROLLED_SUFFIX);
+            Files.move(file.toPath(), rolled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(
+                file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        long end = readFile(file, null);
+        if (channel.size() > end) {
+            // torn by a crash, records appended after it would not be read
+            LOG.info().$("Truncating torn record [path=").$(file.getAbsolutePath())
+                    .$(", bytes=").$(channel.size() - end)
+                    .I$();
+            channel.truncate(end);
+        }
+    }
+
+    public enum Outcome {
+        OK, FAILED, CACHED;
+
+        private static final Outcome[] VALUES = values();
+
+        static Outcome of(byte ordinal) {
+            return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : FAILED;
+        }
+    }
+
+    /**
+     * An execution, as recorded.
+     *
+     * @param timestamp   epoch millis of the end of the execution
+     * @param sqlHash     see {@link #sqlHash(String)}
+     * @param rows        number of rows
+     * @param bytes       estimated size of the rows
+     * @param execMillis  execution time, -1 on failure
+     * @param fetchMillis fetch time, -1 on failure
+     * @param totalMillis total time
+     * @param outcome     how it ended
+     * @param quest       source of the request, the quest's name
+     * @param conn        connection's unique id
+     */
+    public record Execution(
+            long timestamp,
+            long sqlHash,
+            long rows,
+            long bytes,
+            long execMillis,
+            long fetchMillis,
+            long totalMillis,
+            Outcome outcome,
+            String quest,
+            String conn
+    ) {
+    }
+}
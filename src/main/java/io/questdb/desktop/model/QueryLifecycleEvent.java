@@ -0,0 +1,104 @@
+package io.questdb.desktop.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * JFR events for the transitions of a query through {@link SQLExecutor.EventType}, one
+ * event type each, all sharing the fields of this class. They are instant events, the
+ * durations are those carried by the {@link SQLExecutionResponse}, measured from the
+ * start of the request. Together with {@link FetchEvent}, a recording lines up the
+ * client's view of an execution with GC, socket reads and thread parking.
+ * <p>
+ * Event classes must not have code that instantiates them, JFR fails to instrument them.
+ * They are committed by {@link SQLExecutor}.
+ */
+@Category({"QuestDB Desktop", "SQL", "Lifecycle"})
+@StackTrace(false)
+abstract class QueryLifecycleEvent extends Event {
+    @Label("Request Id")
+    String reqId;
+
+    @Label("Source Id")
+    String srcId;
+
+    @Label("Connection Id")
+    String connId;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Total Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long totalMillis;
+
+    @Label("Exec Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long execMillis;
+
+    @Label("Fetch Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long fetchMillis;
+
+    @Label("Cached")
+    boolean cached;
+
+    void set(SQLExecutionResponse res) {
+        DbConn conn = res.getConnection();
+        Table table = res.getTable();
+        reqId = res.getUniqueId();
+        srcId = res.getSourceId();
+        connId = conn != null ? conn.getUniqueId() : null;
+        rows = table != null ? table.size() : 0L;
+        totalMillis = res.getTotalMillis();
+        execMillis = res.getExecMillis();
+        fetchMillis = res.getFetchMillis();
+        cached = res.isCached();
+    }
+
+    @Name("io.questdb.desktop.QueryStarted")
+    @Label("Query Started")
+    static final class Started extends QueryLifecycleEvent {
+    }
+
+    @Name("io.questdb.desktop.QueryFirstRow")
+    @Label("Query First Row Available")
+    static final class FirstRow extends QueryLifecycleEvent {
+    }
+
+    @Name("io.questdb.desktop.QueryRows")
+    @Label("Query Rows Available")
+    @Description("A batch of rows was fetched, batches double in size up to SQLExecutor.MAX_BATCH_SIZE")
+    static final class Rows extends QueryLifecycleEvent {
+    }
+
+    @Name("io.questdb.desktop.QueryCompleted")
+    @Label("Query Completed")
+    static final class Completed extends QueryLifecycleEvent {
+    }
+
+    @Name("io.questdb.desktop.QueryCancelled")
+    @Label("Query Cancelled")
+    static final class Cancelled extends QueryLifecycleEvent {
+    }
+
+    @Name("io.questdb.desktop.QueryFailed")
+    @Label("Query Failed")
+    static final class Failed extends QueryLifecycleEvent {
+        @Label("Error")
+        String error;
+
+        @Override
+        void set(SQLExecutionResponse res) {
+            super.set(res);
+            Throwable err = res.getError();
+            error = err != null ? err.getMessage() : null;
+        }
+    }
+}
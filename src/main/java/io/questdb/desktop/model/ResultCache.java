@@ -0,0 +1,246 @@
+package io.questdb.desktop.model;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+
+
+/**
+ * Results of queries already executed, keyed by connection and SQL text, the latter
+ * normalised (whitespace outside of quotes collapsed, trailing semicolons removed).
+ * <p>
+ * Cached tables are read-only, and shared by all the requests that hit them. Entries
+ * expire after a time to live, and the least recently used are evicted when the estimated
+ * size of all the tables exceeds a maximum number of bytes. Optionally, an entry is also
+ * invalidated when the transaction number of a table referenced by its query has changed
+ * since it was cached. Transaction numbers are read from QuestDB's wal_tables(), thus
+ * tables that are not WAL enabled, or servers that do not have the function, rely on the
+ * time to live alone.
+ */
+public class ResultCache {
+    public static final String MAX_BYTES_PROPERTY = "questdb.desktop.resultCache.maxBytes";
+    public static final String TTL_SECS_PROPERTY = "questdb.desktop.resultCache.ttlSecs";
+    public static final String CHECK_TXN_PROPERTY = "questdb.desktop.resultCache.checkTxn";
+    private static final Log LOG = LogFactory.getLog(ResultCache.class);
+    private static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+    private static final long DEFAULT_TTL_SECS = 60L;
+    private static final String TXN_QUERY = "SELECT name, writerTxn FROM wal_tables()";
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final boolean checkTxn;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // in access order
+    private final Set<String> connsWithoutTxn = new HashSet<>();
+    private long bytes;
+
+    /**
+     * Sized by system properties {@value #MAX_BYTES_PROPERTY} (default 128 MiB),
+     * {@value #TTL_SECS_PROPERTY} (default 60) and {@value #CHECK_TXN_PROPERTY} (default true).
+     */
+    public ResultCache() {
+        this(
+                Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES),
+                TimeUnit.SECONDS.toMillis(Long.getLong(TTL_SECS_PROPERTY, DEFAULT_TTL_SECS)),
+                Boolean.parseBoolean(System.getProperty(CHECK_TXN_PROPERTY, "true")));
+    }
+
+    public ResultCache(long maxBytes, long ttlMillis, boolean checkTxn) {
+        if (maxBytes <= 0L || ttlMillis <= 0L) {
+            throw new IllegalArgumentException("maxBytes and ttlMillis must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.checkTxn = checkTxn;
+    }
+
+    static String key(DbConn conn, String sql) {
+        return conn.getUniqueId() + '\u0000' + normalize(sql);
+    }
+
+    static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean isSpace = false;
+        for (int i = 0, n = sql.length(); i < n; i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                isSpace = true;
+            } else {
+                if (isSpace && !sb.isEmpty()) {
+                    sb.append(' ');
+                }
+                isSpace = false;
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                }
+                sb.append(c);
+            }
+        }
+        int len = sb.length();
+        while (len > 0 && (sb.charAt(len - 1) == ';' || sb.charAt(len - 1) == ' ')) {
+            len--;
+        }
+        sb.setLength(len);
+        return sb.toString();
+    }
+
+    /**
+     * Reads the transaction numbers of the WAL tables, once per request, to be passed to
+     * {@link #get} and then to {@link #put}.
+     *
+     * @param conn connection the query is about to be executed on
+     * @return transaction numbers by table name, null when they are not checked
+     */
+    synchronized Map<String, Long> readTxns(DbConn conn) {
+        if (!checkTxn || connsWithoutTxn.contains(conn.getUniqueId())) {
+            return null;
+        }
+        Connection connection = conn.getConnection();
+        Map<String, Long> txns = new HashMap<>();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(TXN_QUERY)) {
+            while (rs.next()) {
+                txns.put(rs.getString(1).toLowerCase(), rs.getLong(2));
+            }
+            return txns;
+        } catch (SQLException e) {
+            connsWithoutTxn.add(conn.getUniqueId());
+            LOG.info().$("Result cache relies on ttl alone [conn=").$(conn.getUniqueId())
+                    .$(", e=").$(e.getMessage())
+                    .I$();
+            return null;
+        }
+    }
+
+    /**
+     * @param conn connection
+     * @param sql  query
+     * @param txns transaction numbers read for the request, or null
+     * @return the cached results, or null when there are none, they have expired, or any
+     * of the tables referenced by the query has changed
+     */
+    synchronized Table get(DbConn conn, String sql, Map<String, Long> txns) {
+        String key = key(conn, sql);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdNanos > ttlNanos || hasChanged(entry, txns)) {
+            remove(key);
+            return null;
+        }
+        return entry.table;
+    }
+
+    /**
+     * Caches the results of a query, which become read-only. Results bigger than the
+     * cache are not cached.
+     *
+     * @param conn  connection
+     * @param sql   query
+     * @param table results
+     * @param txns  transaction numbers read before the query was executed, or null
+     * @return true if the results were cached
+     */
+    synchronized boolean put(DbConn conn, String sql, Table table, Map<String, Long> txns) {
+        long tableBytes = table.getEstimatedBytes();
+        if (tableBytes > maxBytes) {
+            return false;
+        }
+        String key = key(conn, sql);
+        remove(key);
+        table.setReadOnly();
+        entries.put(key, new Entry(table, tableBytes, System.nanoTime(), referencedTxns(key, txns)));
+        bytes += tableBytes;
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes;
+            it.remove();
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        connsWithoutTxn.clear();
+        bytes = 0L;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean hasChanged(Entry entry, Map<String, Long> current) {
+        if (entry.txns == null || entry.txns.isEmpty() || current == null) {
+            return false;
+        }
+        for (Map.Entry<String, Long> e : entry.txns.entrySet()) {
+            if (!e.getValue().equals(current.get(e.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.bytes;
+        }
+    }
+
+    // the tables whose name appears in the query
+    static Map<String, Long> referencedTxns(String key, Map<String, Long> txns) {
+        if (txns == null) {
+            return null;
+        }
+        String sql = key.substring(key.indexOf('\u0000') + 1).toLowerCase();
+        Map<String, Long> referenced = new HashMap<>();
+        for (Map.Entry<String, Long> e : txns.entrySet()) {
+            if (containsIdentifier(sql, e.getKey())) {
+                referenced.put(e.getKey(), e.getValue());
+            }
+        }
+        return referenced;
+    }
+
+    // name appears as a whole identifier, not as part of a longer one
+    private static boolean containsIdentifier(String sql, String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = sql.indexOf(name); i != -1; i = sql.indexOf(name, i + 1)) {
+            int end = i + name.length();
+            if ((i == 0 || !isIdentifierChar(sql.charAt(i - 1))) && (end == sql.length() || !isIdentifierChar(sql.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private record Entry(Table table, long bytes, long createdNanos, Map<String, Long> txns) {
+    }
+}
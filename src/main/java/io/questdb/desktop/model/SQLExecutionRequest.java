@@ -16,6 +16,8 @@ public class SQLExecutionRequest implements UniqueId<String> {
     private final String uniqueId;
     private final DbConn conn;
     private final String sqlCommand;
+    private final boolean isCacheable;
+    private final boolean isRecorded;
 
     /**
      * Constructor used by {@link SQLExecutionResponse} to keep the relation between
@@ -27,18 +29,52 @@ public class SQLExecutionRequest implements UniqueId<String> {
      * @param sqlCommand SQL command to execute
      */
     public SQLExecutionRequest(String sourceId, DbConn conn, String sqlCommand) {
-        this(sourceId, UUID.randomUUID().toString(), conn, sqlCommand);
+        this(sourceId, conn, sqlCommand, true);
+    }
+
+    /**
+     * @param sourceId    command source, or requester, id
+     * @param conn        will send the command down this connection
+     * @param sqlCommand  SQL command to execute
+     * @param isCacheable false to bypass the executor's {@link ResultCache}, for requests
+     *                    that must always see the latest data, and whose results are not
+     *                    worth keeping
+     */
+    public SQLExecutionRequest(String sourceId, DbConn conn, String sqlCommand, boolean isCacheable) {
+        this(sourceId, conn, sqlCommand, isCacheable, true);
+    }
+
+    /**
+     * @param sourceId    command source, or requester, id
+     * @param conn        will send the command down this connection
+     * @param sqlCommand  SQL command to execute
+     * @param isCacheable false to bypass the executor's {@link ResultCache}
+     * @param isRecorded  false to keep the execution out of the executor's
+     *                    {@link QueryHistory} and {@link ExecutionMetrics}, for requests
+     *                    not typed by the user, such as the ticks of a live plot
+     */
+    public SQLExecutionRequest(String sourceId, DbConn conn, String sqlCommand, boolean isCacheable, boolean isRecorded) {
+        this(sourceId, UUID.randomUUID().toString(), conn, sqlCommand, isCacheable, isRecorded);
     }
 
     SQLExecutionRequest(SQLExecutionRequest request) {
-        this(request.sourceId, request.uniqueId, request.conn, request.sqlCommand);
+        this(request.sourceId, request.uniqueId, request.conn, request.sqlCommand, request.isCacheable, request.isRecorded);
     }
 
-    private SQLExecutionRequest(String sourceId, String uniqueId, DbConn conn, String sqlCommand) {
+    private SQLExecutionRequest(
+            String sourceId,
+            String uniqueId,
+            DbConn conn,
+            String sqlCommand,
+            boolean isCacheable,
+            boolean isRecorded
+    ) {
         this.sourceId = sourceId;
         this.uniqueId = uniqueId;
         this.conn = conn;
         this.sqlCommand = sqlCommand;
+        this.isCacheable = isCacheable;
+        this.isRecorded = isRecorded;
     }
 
     public String getSourceId() {
@@ -53,6 +89,14 @@ public class SQLExecutionRequest implements UniqueId<String> {
         return conn;
     }
 
+    public boolean isCacheable() {
+        return isCacheable;
+    }
+
+    public boolean isRecorded() {
+        return isRecorded;
+    }
+
     @Override
     public String getUniqueId() {
         return uniqueId;
@@ -14,14 +14,20 @@ public class SQLExecutionResponse extends SQLExecutionRequest {
     private final long execMillis;
     private final long fetchMillis;
     private final Throwable error;
+    private final boolean isCached;
 
     SQLExecutionResponse(SQLExecutionRequest request, Table table, long totalMillis, long execMillis, long fetchMillis) {
+        this(request, table, totalMillis, execMillis, fetchMillis, false);
+    }
+
+    SQLExecutionResponse(SQLExecutionRequest request, Table table, long totalMillis, long execMillis, long fetchMillis, boolean isCached) {
         super(request);
         this.table = table;
         this.totalMillis = totalMillis;
         this.execMillis = execMillis;
         this.fetchMillis = fetchMillis;
         this.error = null;
+        this.isCached = isCached;
     }
 
     SQLExecutionResponse(SQLExecutionRequest request, Table table, long totalMillis, Throwable error) {
@@ -31,6 +37,7 @@ public class SQLExecutionResponse extends SQLExecutionRequest {
         this.table = table;
         this.execMillis = -1L;
         this.fetchMillis = -1L;
+        this.isCached = false;
     }
 
     public Table getTable() {
@@ -52,4 +59,11 @@ public class SQLExecutionResponse extends SQLExecutionRequest {
     public long getFetchMillis() {
         return fetchMillis;
     }
+
+    /**
+     * @return true if the table comes from the {@link ResultCache}, and is thus read-only
+     */
+    public boolean isCached() {
+        return isCached;
+    }
 }
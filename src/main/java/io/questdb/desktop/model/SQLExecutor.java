@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -27,7 +28,10 @@ public class SQLExecutor implements EventProducer<SQLExecutor.EventType>, Closea
     private static final ThreadFactory THREAD_FACTORY = Executors.defaultThreadFactory();
     private static final int NUMBER_OF_THREADS = 1;
     private final ConcurrentMap<String, Future<?>> runningQueries = new ConcurrentHashMap<>();
+    private final ExecutionMetrics metrics = new ExecutionMetrics();
     private ExecutorService executor;
+    private volatile ResultCache resultCache; // opt-in
+    private volatile QueryHistory queryHistory;
 
     private static long elapsedMillis(long start) {
         return millis(System.nanoTime() - start);
@@ -69,6 +73,28 @@ public class SQLExecutor implements EventProducer<SQLExecutor.EventType>, Closea
         }
     }
 
+    public ExecutionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @param resultCache cache for the results of queries, null to disable caching
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * @param queryHistory log of the executions, null to not record them
+     */
+    public void setQueryHistory(QueryHistory queryHistory) {
+        this.queryHistory = queryHistory;
+    }
+
     public synchronized void submit(SQLExecutionRequest req, EventConsumer<SQLExecutor, SQLExecutionResponse> eventConsumer) {
         if (executor == null) {
             throw new IllegalStateException("not started");
@@ -112,61 +138,91 @@ public class SQLExecutor implements EventProducer<SQLExecutor.EventType>, Closea
                     .$(", srcId=").$(sourceId)
                     .$(", conn=").$(conn)
                     .I$();
-            eventListener.onSourceEvent(
-                    SQLExecutor.this,
-                    EventType.FAILURE,
-                    new SQLExecutionResponse(
-                            req,
-                            table,
-                            elapsedMillis(startNanos),
-                            new RuntimeException(String.format("Connection [%s] is not valid", conn))
-                    ));
+            notifyLast(eventListener, EventType.FAILURE, new SQLExecutionResponse(
+                    req,
+                    table,
+                    elapsedMillis(startNanos),
+                    new RuntimeException(String.format("Connection [%s] is not valid", conn))
+            ));
             return;
         }
 
+        final ResultCache cache = req.isCacheable() ? resultCache : null;
+        // read once, before executing, changes made while executing invalidate the results
+        final Map<String, Long> txns = cache != null ? cache.readTxns(conn) : null;
+        if (cache != null) {
+            Table cached = cache.get(conn, query, txns);
+            if (cached != null) {
+                runningQueries.remove(sourceId);
+                LOG.info().$("Cache hit [reqId=").$(req.getUniqueId())
+                        .$(", srcId=").$(sourceId)
+                        .$(", connId=").$(conn.getUniqueId())
+                        .$(", tableSize=").$(cached.size())
+                        .I$();
+                fireEvent(eventListener, EventType.STARTED, new SQLExecutionResponse(req, cached, elapsedMillis(startNanos), 0L, 0L, true));
+                if (cached.size() > 0) {
+                    fireEvent(eventListener, EventType.FIRST_ROW_AVAILABLE, new SQLExecutionResponse(req, cached, elapsedMillis(startNanos), 0L, 0L, true));
+                }
+                notifyLast(
+                        eventListener,
+                        EventType.COMPLETED,
+                        new SQLExecutionResponse(req, cached, elapsedMillis(startNanos), 0L, 0L, true));
+                return;
+            }
+        }
+        final FetchEvent fetch = new FetchEvent();
+        fetch.begin();
+        final long gcStartMillis = ExecutionMetrics.gcMillis();
+
         LOG.info().$("Executing [reqId=").$(req.getUniqueId())
                 .$(", srcId=").$(sourceId)
                 .$(", connId=").$(conn.getUniqueId())
                 .$(", query=").$(query)
                 .I$();
-        eventListener.onSourceEvent(
-                SQLExecutor.this,
-                EventType.STARTED,
-                new SQLExecutionResponse(req, table, elapsedMillis(startNanos), 0L, 0L));
+        fireEvent(eventListener, EventType.STARTED, new SQLExecutionResponse(req, table, elapsedMillis(startNanos), 0L, 0L));
 
         final long fetchStartNanos;
         final long execMillis;
+        final boolean returnsResults;
+        boolean isCancelled = false;
         long rowIdx = 0;
         int batchSize = START_BATCH_SIZE;
         try (Statement stmt = conn.getConnection().createStatement()) {
             stmt.setQueryTimeout(QUERY_EXECUTION_TIMEOUT_SECS);
-            final boolean returnsResults = stmt.execute(query);
+            returnsResults = stmt.execute(query);
             fetchStartNanos = System.nanoTime();
             execMillis = millis(fetchStartNanos - startNanos);
             if (returnsResults) {
                 ResultSet rs = stmt.getResultSet();
+                long nextStartNanos = fetchStartNanos;
                 if (rs.next()) {
                     final long fetchChkNanos = System.nanoTime();
                     final long totalMs = millis(fetchChkNanos - startNanos);
                     final long fetchMs = millis(fetchChkNanos - fetchStartNanos);
+                    fetch.nextNanos += fetchChkNanos - nextStartNanos;
+                    fetch.firstRowNanos = fetchChkNanos - startNanos;
                     table.setColumnMetadata(rs);
                     table.addRow(rowIdx++, rs);
-                    eventListener.onSourceEvent(
-                            SQLExecutor.this,
-                            EventType.FIRST_ROW_AVAILABLE,
-                            new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+                    fetch.addRowNanos += System.nanoTime() - fetchChkNanos;
+                    fireEvent(eventListener, EventType.FIRST_ROW_AVAILABLE, new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+                    nextStartNanos = System.nanoTime();
                 }
                 while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        isCancelled = true; // see cancelExistingRequest
+                        break;
+                    }
                     final long fetchChkNanos = System.nanoTime();
+                    fetch.nextNanos += fetchChkNanos - nextStartNanos;
                     table.addRow(rowIdx++, rs);
+                    nextStartNanos = System.nanoTime();
+                    fetch.addRowNanos += nextStartNanos - fetchChkNanos;
                     if (0 == rowIdx % batchSize) {
                         batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
                         final long totalMs = millis(fetchChkNanos - startNanos);
                         final long fetchMs = millis(fetchChkNanos - fetchStartNanos);
-                        eventListener.onSourceEvent(
-                                SQLExecutor.this,
-                                EventType.ROWS_AVAILABLE,
-                                new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+                        fireEvent(eventListener, EventType.ROWS_AVAILABLE, new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+                        nextStartNanos = System.nanoTime();
                     }
                 }
             }
@@ -176,17 +232,52 @@ public class SQLExecutor implements EventProducer<SQLExecutor.EventType>, Closea
                     .$(", srcId=").$(sourceId)
                     .$(", e=").$(fail.getMessage())
                     .I$();
-            eventListener.onSourceEvent(
-                    SQLExecutor.this,
-                    EventType.FAILURE,
-                    new SQLExecutionResponse(req, table, elapsedMillis(startNanos), fail));
+            notifyLast(eventListener, EventType.FAILURE, new SQLExecutionResponse(req, table, elapsedMillis(startNanos), fail));
+            return;
+        }
+        if (isCancelled) {
+            final long cancelNanos = System.nanoTime();
+            SQLExecutionResponse res = new SQLExecutionResponse(
+                    req,
+                    table,
+                    millis(cancelNanos - startNanos),
+                    execMillis,
+                    millis(cancelNanos - fetchStartNanos));
+            LOG.info().$("Cancelled [reqId=").$(req.getUniqueId())
+                    .$(", srcId=").$(sourceId)
+                    .$(", tableSize=").$(table.size())
+                    .I$();
+            if (runningQueries.containsKey(sourceId)) {
+                // superseded by a newer request from the same source, which owns the results view
+                emitLifecycleEvent(EventType.CANCELLED, res);
+            } else {
+                fireEvent(eventListener, EventType.CANCELLED, res);
+            }
             return;
         }
         runningQueries.remove(sourceId);
+        if (cache != null && returnsResults && cache.put(conn, query, table, txns)) {
+            LOG.info().$("Cached [reqId=").$(req.getUniqueId())
+                    .$(", cacheSize=").$(cache.size())
+                    .$(", cacheBytes=").$(cache.getBytes())
+                    .I$();
+        }
         EventType eventType = EventType.COMPLETED;
         final long endNanos = System.nanoTime();
         final long totalMs = millis(endNanos - startNanos);
         final long fetchMs = millis(endNanos - fetchStartNanos);
+        fetch.reqId = req.getUniqueId();
+        fetch.srcId = sourceId;
+        fetch.rows = table.size();
+        fetch.bytes = table.getEstimatedBytes();
+        fetch.execNanos = fetchStartNanos - startNanos;
+        fetch.fetchNanos = endNanos - fetchStartNanos;
+        fetch.lockWaitNanos = table.getLockWaitNanos();
+        fetch.gcMillis = ExecutionMetrics.gcMillis() - gcStartMillis;
+        fetch.commit();
+        if (req.isRecorded()) {
+            metrics.onCompleted(fetch);
+        }
         LOG.info().$("Event [name=").$(eventType.name())
                 .$(", reqId=").$(req.getUniqueId())
                 .$(", tableSize=").$(table.size())
@@ -194,10 +285,62 @@ public class SQLExecutor implements EventProducer<SQLExecutor.EventType>, Closea
                 .$(", execMs=").$(execMillis)
                 .$(", fetchMs=").$(fetchMs)
                 .I$();
-        eventListener.onSourceEvent(
-                SQLExecutor.this,
-                eventType,
-                new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+        notifyLast(eventListener, eventType, new SQLExecutionResponse(req, table, totalMs, execMillis, fetchMs));
+    }
+
+    // the last event of an execution, also recorded in the metrics and the query history
+    // unless the request opts out, see SQLExecutionRequest#isRecorded
+    private void notifyLast(
+            EventConsumer<SQLExecutor, SQLExecutionResponse> eventListener,
+            EventType eventType,
+            SQLExecutionResponse res
+    ) {
+        if (!res.isRecorded()) {
+            fireEvent(eventListener, eventType, res);
+            return;
+        }
+        if (eventType == EventType.FAILURE) {
+            metrics.onFailure();
+        } else if (res.isCached()) {
+            metrics.onCacheHit();
+        }
+        QueryHistory history = queryHistory;
+        if (history != null) {
+            QueryHistory.Outcome outcome;
+            if (eventType == EventType.FAILURE) {
+                outcome = QueryHistory.Outcome.FAILED;
+            } else if (res.isCached()) {
+                outcome = QueryHistory.Outcome.CACHED;
+            } else {
+                outcome = QueryHistory.Outcome.OK;
+            }
+            history.record(res, outcome);
+        }
+        fireEvent(eventListener, eventType, res);
+    }
+
+    private static void emitLifecycleEvent(EventType eventType, SQLExecutionResponse res) {
+        QueryLifecycleEvent event = switch (eventType) {
+            case STARTED -> new QueryLifecycleEvent.Started();
+            case FIRST_ROW_AVAILABLE -> new QueryLifecycleEvent.FirstRow();
+            case ROWS_AVAILABLE -> new QueryLifecycleEvent.Rows();
+            case COMPLETED -> new QueryLifecycleEvent.Completed();
+            case CANCELLED -> new QueryLifecycleEvent.Cancelled();
+            case FAILURE -> new QueryLifecycleEvent.Failed();
+        };
+        if (event.shouldCommit()) {
+            event.set(res);
+            event.commit();
+        }
+    }
+
+    private void fireEvent(
+            EventConsumer<SQLExecutor, SQLExecutionResponse> eventListener,
+            EventType eventType,
+            SQLExecutionResponse res
+    ) {
+        emitLifecycleEvent(eventType, res);
+        eventListener.onSourceEvent(SQLExecutor.this, eventType, res);
     }
 
     public enum EventType {
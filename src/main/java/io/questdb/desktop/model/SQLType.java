@@ -1,7 +1,7 @@
 package io.questdb.desktop.model;
 
-import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Date;
 
 public final class SQLType {
 
@@ -25,12 +25,19 @@ public final class SQLType {
         };
     }
 
+    /**
+     * @param o       value of a numeric column, see {@link #isNotNumeric(int)}
+     * @param sqlType the column's type
+     * @return the value as a double, dates, times and timestamps as epoch millis, NaN for
+     * nulls and non numeric types
+     */
     public static double getNumericValue(Object o, int sqlType) {
+        if (o == null) {
+            return Double.NaN;
+        }
         return switch (sqlType) {
-            case Types.INTEGER -> (int) o;
-            case Types.BIGINT -> (long) o;
-            case Types.REAL, Types.DOUBLE -> (double) o;
-            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> ((Timestamp) o).getTime();
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.REAL, Types.DOUBLE -> ((Number) o).doubleValue();
+            case Types.DATE, Types.TIME, Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> ((Date) o).getTime();
             default -> Double.NaN;
         };
     }
@@ -1,22 +1,46 @@
 package io.questdb.desktop.model;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
+import java.util.zip.CRC32;
 
 import io.questdb.desktop.GTk;
 import io.questdb.desktop.ui.metadata.Metadata;
@@ -24,6 +48,8 @@ import io.questdb.desktop.ui.metadata.Metadata;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import org.jetbrains.annotations.NotNull;
@@ -31,15 +57,82 @@ import org.jetbrains.annotations.NotNull;
 import javax.swing.*;
 
 
+/**
+ * Persistent list of entries.
+ * <p>
+ * A store named 'fileName' lives in folder 'fileName.d' under {@link #ROOT_PATH}, which
+ * contains an index (entry ids and names, in order) and one file per entry, named after
+ * its id. Entries keep a version that changes with every change, saves only write the
+ * entries whose version differs from the version last saved, and the index when entries
+ * are added, removed or renamed.
+ * <p>
+ * Saves are not written to these files directly, they are appended to a journal in the
+ * same folder as a single line (a checksum followed by the compact JSON of the changes),
+ * and synced to disk. Entries that are in the journal already are journaled as their
+ * edits to the previous version: the attributes that changed, long values as the range
+ * of text replaced, thus saving a small change to a large entry writes a small record.
+ * When the journal grows beyond a threshold, and when the store is closed, a checkpoint
+ * writes the changes accumulated in the journal to the index and the entry files, each
+ * written to a temporary file and renamed atomically to replace the previous version, and
+ * truncates the journal. Loading replays the journal over the files, up to the first
+ * record that fails its checksum (torn by a crash). Edits apply to the entries replayed
+ * before them, never to the files, thus replaying a record twice is harmless, which is
+ * what happens when a crash interrupts a checkpoint.
+ * <p>
+ * Loading reads the index and the journal only, so that the names of the entries are
+ * available straight away, the entries themselves are read from their file the first
+ * time they are accessed. All the files are decoded with a streaming reader, thus reading
+ * an entry takes as much heap as the entry, and the reader's buffer.
+ * <p>
+ * Stores can limit the number of entries kept in memory, see {@link #setResidentLimit(int)}.
+ * The entries accessed least recently are then dropped, once their file is up-to-date, and
+ * read again on their next access. Entries beyond the limit whose file is not up-to-date
+ * have a checkpoint write it, and are dropped once it completes.
+ * <p>
+ * The journal and the files are only written by the store's background thread, saves
+ * called from the event dispatch thread only take a copy of the entries that changed.
+ * <p>
+ * Stores saved with the previous layout, a single JSON file 'fileName' containing all the
+ * entries, are read when the folder does not exist, or when the file was written after it,
+ * and migrated on the first save. This is also the format of {@link #saveToFile(File)},
+ * used for backups, thus a backup written over a store replaces it.
+ */
 public abstract class Store<T extends StoreEntry> implements Closeable, Iterable<T> {
 
     public static final File ROOT_PATH;
+    public static final String FOLDER_SUFFIX = ".d";
+    private static final String INDEX_FILE_NAME = "index.json";
+    private static final String JOURNAL_FILE_NAME = "journal.log";
+    private static final long CHECKPOINT_JOURNAL_BYTES = 8L * 1024 * 1024;
+    private static final String ENTRY_FILE_SUFFIX = ".json";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final long SAVE_DELAY_MILLIS = 500L; // coalesces changes made in quick succession
+    private static final int TEXT_EDIT_MIN_CHARS = 256; // shorter values are journaled whole
     private static final Log LOG = LogFactory.getLog(Store.class);
-    private static final Class<?>[] ITEM_CONSTRUCTOR_SIGNATURE = {StoreEntry.class};
+    // T's decorator constructor to StoreEntry(StoreEntry other), resolved once per class
+    private static final ClassValue<MethodHandle> ENTRY_FACTORIES = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> entryClass) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findConstructor(entryClass, MethodType.methodType(void.class, StoreEntry.class))
+                        .asType(MethodType.methodType(StoreEntry.class, StoreEntry.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("missing public constructor " + entryClass.getName() + "(StoreEntry)", e);
+            }
+        }
+    };
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson JOURNAL_GSON = new Gson(); // one line per record
     private static final Type STORE_TYPE = new TypeToken<ArrayList<StoreEntry>>() {
         /* type */
     }.getType();
+    private static final Type INDEX_TYPE = new TypeToken<ArrayList<IndexEntry>>() {
+        /* type */
+    }.getType();
+    private static final int UNKNOWN_ID = -1;
+    private static final ConcurrentMap<String, CompletableFuture<Loaded>> PRELOADED = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CompletableFuture<Void>> CLOSING = new ConcurrentHashMap<>();
 
     static {
         synchronized (Metadata.class) {
@@ -59,79 +152,424 @@ public abstract class Store<T extends StoreEntry> implements Closeable, Iterable
     }
 
     private final String fileName;
-    private final Class<? extends StoreEntry> entryClass;
-    private final List<T> entries;
-    private final ExecutorService asyncPersist;
+    private final MethodHandle entryFactory;
+    private final List<Slot<T>> slots;
+    private final Map<Integer, Slot<T>> resident; // in access order
+    private final Set<Integer> removedIds;
+    private final ScheduledThreadPoolExecutor asyncPersist;
+    private Changes pendingChanges; // guarded by 'this'
+    private boolean isIndexDirty;
+    private boolean isSaveScheduled;
+    private boolean isCheckpointScheduled;
+    private int nextId;
+    private int residentLimit = Integer.MAX_VALUE;
+    private volatile SaveListener saveListener;
+    // confined to asyncPersist
+    private FileChannel journal;
+    private Changes journaledChanges; // since the last checkpoint
 
     public Store(String fileName, Class<? extends StoreEntry> entryClass) {
         this.fileName = fileName;
-        this.entryClass = entryClass;
-        entries = new ArrayList<>();
-        asyncPersist = Executors.newSingleThreadExecutor(runnable -> {
+        entryFactory = ENTRY_FACTORIES.get(entryClass);
+        slots = new ArrayList<>();
+        resident = new LinkedHashMap<>(16, 0.75f, true);
+        removedIds = new HashSet<>();
+        asyncPersist = new ScheduledThreadPoolExecutor(1, runnable -> {
             Thread thread = new Thread(runnable);
             thread.setDaemon(false);
             thread.setName("Store-" + fileName);
             return thread;
         });
+        asyncPersist.setExecuteExistingDelayedTasksAfterShutdownPolicy(false); // close saves
     }
 
-    private static List<StoreEntry> loadFromFile(File file) {
-        List<StoreEntry> entries = null;
-        try (BufferedReader in = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            entries = GSON.fromJson(in, STORE_TYPE);
-            LOG.info().$("Loaded [path=").$(file.getAbsolutePath()).I$();
-        } catch (Exception e) {
-            LOG.error().$("Could not load store [path=").$(file.getAbsolutePath())
+    private static Loaded load(String fileName) {
+        File folder = new File(ROOT_PATH, fileName + FOLDER_SUFFIX);
+        File indexFile = new File(folder, INDEX_FILE_NAME);
+        File journalFile = new File(folder, JOURNAL_FILE_NAME);
+        File file = new File(ROOT_PATH, fileName);
+        if ((indexFile.exists() || journalFile.exists()) && !isNewer(file, folder, journalFile)) {
+            Loaded loaded = new Loaded(false);
+            List<IndexEntry> index = new ArrayList<>();
+            if (indexFile.exists()) {
+                try (JsonReader in = newJsonReader(indexFile)) {
+                    index = readIndex(in);
+                } catch (Exception e) {
+                    LOG.error().$("Could not load store [path=").$(indexFile.getAbsolutePath())
+                            .$(", e=").$(e.getMessage())
+                            .I$();
+                }
+            }
+            Changes replayed = replayJournal(journalFile);
+            loaded.hasJournal = journalFile.length() > 0L;
+            if (replayed != null) {
+                if (replayed.index != null) {
+                    index = replayed.index;
+                }
+                for (Integer id : replayed.removedIds) {
+                    loaded.reserve(id);
+                }
+                loaded.replayed = replayed;
+            }
+            for (int i = 0, n = index.size(); i < n; i++) {
+                IndexEntry indexEntry = index.get(i);
+                // entries in the journal are loaded, the rest are read on first access
+                StoreEntry entry = replayed != null ? replayed.entries.get(indexEntry.id) : null;
+                loaded.add(indexEntry.id, entry != null ? entry.getName() : indexEntry.name, entry);
+            }
+            LOG.info().$("Loaded [path=").$(folder.getAbsolutePath())
+                    .$(", entries=").$(loaded.ids.size())
+                    .$(", replayed=").$(replayed != null ? replayed.records : 0)
+                    .I$();
+            return loaded;
+        }
+        if (file.exists()) {
+            Loaded loaded = new Loaded(true);
+            try (JsonReader in = newJsonReader(file)) {
+                in.beginArray();
+                for (int id = 0; in.hasNext(); id++) {
+                    StoreEntry entry = readEntry(in);
+                    loaded.add(id, entry.getName(), entry);
+                }
+                in.endArray();
+                LOG.info().$("Loaded [path=").$(file.getAbsolutePath()).I$();
+            } catch (Exception e) {
+                LOG.error().$("Could not load store [path=").$(file.getAbsolutePath())
+                        .$(", e=").$(e.getMessage())
+                        .I$();
+            }
+            return loaded;
+        }
+        return null;
+    }
+
+    // a single file written after the folder, by a backup, supersedes it
+    private static boolean isNewer(File file, File folder, File journalFile) {
+        // entry files and the index are renamed into the folder, the journal is appended to
+        return file.isFile() && file.lastModified() > Math.max(folder.lastModified(), journalFile.lastModified());
+    }
+
+    private static JsonReader newJsonReader(File file) throws IOException {
+        return new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)));
+    }
+
+    private static List<IndexEntry> readIndex(JsonReader in) throws IOException {
+        List<IndexEntry> index = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            int id = UNKNOWN_ID;
+            String name = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> id = in.nextInt();
+                    case "name" -> name = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (id == UNKNOWN_ID || name == null) {
+                throw new IOException("index entry without id/name");
+            }
+            index.add(new IndexEntry(id, name));
+        }
+        in.endArray();
+        return index;
+    }
+
+    // the format produced by GSON for StoreEntry
+    private static StoreEntry readEntry(JsonReader in) throws IOException {
+        String name = null;
+        Map<String, String> attrs = new TreeMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name" -> name = in.nextString();
+                case "attrs" -> {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String attrName = in.nextName();
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            attrs.put(attrName, null);
+                        } else {
+                            attrs.put(attrName, in.nextString());
+                        }
+                    }
+                    in.endObject();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new StoreEntry(name, attrs);
+    }
+
+    private static Changes replayJournal(File journalFile) {
+        if (!journalFile.exists()) {
+            return null;
+        }
+        Changes replayed = null;
+        try (BufferedReader in = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Changes changes = parseJournalRecord(line);
+                if (changes == null || !changes.applyEdits(replayed)) {
+                    LOG.error().$("Journal truncated, torn record [path=").$(journalFile.getAbsolutePath()).I$();
+                    break;
+                }
+                if (replayed == null) {
+                    replayed = changes;
+                } else {
+                    replayed.merge(changes);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error().$("Could not replay journal [path=").$(journalFile.getAbsolutePath())
                     .$(", e=").$(e.getMessage())
                     .I$();
         }
-        return entries;
+        return replayed;
+    }
+
+    private static String toJournalRecord(Changes changes) {
+        String json = JOURNAL_GSON.toJson(changes);
+        CRC32 crc = new CRC32();
+        crc.update(json.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue()) + ' ' + json + '\n';
+    }
+
+    private static Changes parseJournalRecord(String line) {
+        int sep = line.indexOf(' ');
+        if (sep < 1) {
+            return null;
+        }
+        String json = line.substring(sep + 1);
+        CRC32 crc = new CRC32();
+        crc.update(json.getBytes(StandardCharsets.UTF_8));
+        try {
+            if (Long.parseLong(line, 0, sep, 16) != crc.getValue()) {
+                return null;
+            }
+            Changes changes = JOURNAL_GSON.fromJson(json, Changes.class);
+            changes.records = 1;
+            return changes;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeAtomically(File file, Object src, Type srcType) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + TMP_FILE_SUFFIX);
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             Writer out = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+            GSON.toJson(src, srcType, out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Starts reading the stores in the background, in parallel, so that the first call
+     * to {@link #loadFromFile()} of a store reading any of them only needs to wait for
+     * the decoder to finish. Stores that do not exist are ignored.
+     *
+     * @param fileNames names of the stores, relative to {@link #ROOT_PATH}
+     */
+    public static void preload(String... fileNames) {
+        for (String fileName : fileNames) {
+            if (new File(ROOT_PATH, fileName + FOLDER_SUFFIX).exists() || new File(ROOT_PATH, fileName).exists()) {
+                PRELOADED.computeIfAbsent(fileName, name -> CompletableFuture.supplyAsync(() -> load(name)));
+            }
+        }
+    }
+
+    /**
+     * Reads all the entries of a store, as last saved, without opening it.
+     *
+     * @param fileName name of the store, relative to {@link #ROOT_PATH}
+     * @param consumer receives the id and the entry, in order
+     */
+    public static void readEntries(String fileName, BiConsumer<Integer, StoreEntry> consumer) {
+        Loaded loaded = load(fileName);
+        if (loaded != null) {
+            File folder = new File(ROOT_PATH, fileName + FOLDER_SUFFIX);
+            for (int i = 0, n = loaded.ids.size(); i < n; i++) {
+                int id = loaded.ids.get(i);
+                StoreEntry entry = loaded.entries.get(i);
+                consumer.accept(id, entry != null ? entry : readEntryFile(folder, id, loaded.names.get(i)));
+            }
+        }
     }
 
+    /**
+     * @return names of the stores under {@link #ROOT_PATH}, in either layout
+     */
+    public static List<String> storeNames() {
+        List<String> names = new ArrayList<>();
+        File[] files = ROOT_PATH.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory() && name.endsWith(FOLDER_SUFFIX)) {
+                    names.add(name.substring(0, name.length() - FOLDER_SUFFIX.length()));
+                } else if (file.isFile() && name.endsWith(ENTRY_FILE_SUFFIX) && !new File(ROOT_PATH, name + FOLDER_SUFFIX).exists()) {
+                    names.add(name); // previous layout
+                }
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Saves pending changes, checkpoints the journal, and releases the background writer.
+     * It waits for the writer to finish, unless it is called from the event dispatch
+     * thread, in which case the writer finishes in the background, and the next store
+     * opened on the same file waits for it in {@link #loadFromFile()}.
+     */
     @Override
     public void close() {
-        GTk.shutdownExecutor(asyncPersist);
+        synchronized (this) {
+            collectChanges();
+        }
+        Runnable lastSave = () -> {
+            persist(true);
+            closeJournal();
+        };
+        if (!SwingUtilities.isEventDispatchThread()) {
+            persistAndWait(lastSave);
+            GTk.shutdownExecutor(asyncPersist);
+            return;
+        }
+        try {
+            CompletableFuture<Void> closing = CompletableFuture.runAsync(lastSave, asyncPersist);
+            CLOSING.put(fileName, closing);
+            closing.whenComplete((ignore, e) -> CLOSING.remove(fileName, closing));
+        } catch (RejectedExecutionException closed) {
+            persistClosed();
+        }
+        asyncPersist.shutdown();
     }
 
     public abstract T[] defaultStoreEntries();
 
 
-    public synchronized void addEntry(T entry) {
+    public void addEntry(T entry) {
         if (entry != null) {
-            entries.add(entry);
+            synchronized (this) {
+                slots.add(makeResident(new Slot<>(nextId++, entry.getName(), entry)));
+                isIndexDirty = true;
+            }
         }
         asyncSaveToFile();
     }
 
     public synchronized T getEntry(int idx, Supplier<T> constructor) {
-        if (constructor != null && entries.size() == idx) {
-            entries.add(idx, constructor.get());
+        if (constructor != null && slots.size() == idx) {
+            T entry = constructor.get();
+            slots.add(idx, makeResident(new Slot<>(nextId++, entry.getName(), entry)));
+            isIndexDirty = true;
         }
-        return entries.get(idx);
+        return entryOf(slots.get(idx));
     }
 
-    public synchronized void removeEntry(T entry) {
+    public void removeEntry(T entry) {
         if (entry != null) {
-            entries.remove(entry);
+            synchronized (this) {
+                int idx = -1;
+                for (int i = 0, n = slots.size(); i < n && idx == -1; i++) {
+                    if (slots.get(i).entry == entry) {
+                        idx = i;
+                    }
+                }
+                for (int i = 0, n = slots.size(); i < n && idx == -1; i++) {
+                    if (entry.equals(peekEntry(slots.get(i)))) {
+                        idx = i;
+                    }
+                }
+                if (idx != -1) {
+                    removeSlot(idx);
+                }
+            }
             asyncSaveToFile();
         }
     }
 
-    public synchronized void removeEntry(int idx) {
-        entries.remove(idx);
+    public void removeEntry(int idx) {
+        synchronized (this) {
+            removeSlot(idx);
+        }
         asyncSaveToFile();
     }
 
     public synchronized List<T> entries() {
+        List<T> entries = new ArrayList<>(slots.size());
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            entries.add(entryOf(slots.get(i)));
+        }
         return Collections.unmodifiableList(entries);
     }
 
+    /**
+     * Does not read the entries that have not been accessed yet.
+     *
+     * @return the names of the entries, in order
+     */
     public synchronized String[] entryNames() {
-        return entries.stream().map(StoreEntry::getName).toArray(String[]::new);
+        String[] names = new String[slots.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = slots.get(i).name();
+        }
+        return names;
+    }
+
+    /**
+     * Limits the number of entries kept in memory, by default all of them are. Entries
+     * beyond the limit are dropped, least recently accessed first, once their file is
+     * up-to-date, callers must not keep references to them.
+     *
+     * @param residentLimit number of entries kept in memory, at least 1
+     */
+    public synchronized void setResidentLimit(int residentLimit) {
+        if (residentLimit < 1) {
+            throw new IllegalArgumentException("residentLimit must be at least 1");
+        }
+        this.residentLimit = residentLimit;
+        evict();
+    }
+
+    /**
+     * Entries have an id, unique within the store and stable across sessions, which
+     * is passed to the {@link SaveListener}.
+     *
+     * @param id id of the entry
+     * @return index of the entry, or -1 when there is no entry with that id
+     */
+    public synchronized int indexOfId(int id) {
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            if (slots.get(i).id == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setSaveListener(SaveListener saveListener) {
+        this.saveListener = saveListener;
     }
 
     public synchronized int size() {
-        return entries.size();
+        return slots.size();
     }
 
     @Override
@@ -155,13 +593,43 @@ public abstract class Store<T extends StoreEntry> implements Closeable, Iterable
         };
     }
 
+    /**
+     * Takes a copy of the entries that changed since the last save, to be appended to the
+     * journal in the background shortly after. Calls made before the copy is written add
+     * to it.
+     */
     public void asyncSaveToFile() {
-        asyncPersist.submit(() -> saveToFile());
+        synchronized (this) {
+            collectChanges();
+            if (isSaveScheduled || pendingChanges == null) {
+                return;
+            }
+            try {
+                asyncPersist.schedule(() -> persist(false), SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                isSaveScheduled = true;
+                return;
+            } catch (RejectedExecutionException closed) {
+                // persist in the calling thread
+            }
+        }
+        persistClosed();
     }
 
+    /**
+     * Writes all the entries to a single file, in the format of the stores' previous layout.
+     *
+     * @param file target file
+     */
     public void saveToFile(File file) {
-        try (FileWriter out = new FileWriter(file, StandardCharsets.UTF_8, false)) {
-            GSON.toJson(entries, STORE_TYPE, out);
+        List<StoreEntry> copies;
+        synchronized (this) {
+            copies = new ArrayList<>(slots.size());
+            for (int i = 0, n = slots.size(); i < n; i++) {
+                copies.add(peekEntry(slots.get(i)).copy());
+            }
+        }
+        try {
+            writeAtomically(file, copies, STORE_TYPE);
             LOG.info().$("Saved [path=").$(file.getAbsolutePath()).I$();
         } catch (IOException e) {
             LOG.error().$("Could not store into file [path=").$(file.getAbsolutePath())
@@ -171,50 +639,621 @@ public abstract class Store<T extends StoreEntry> implements Closeable, Iterable
     }
 
     public void loadFromFile() {
-        File file = getFile();
-        if (!file.exists()) {
-            for (T entry : defaultStoreEntries()) {
+        CompletableFuture<Void> closing = CLOSING.get(fileName);
+        if (closing != null) {
+            closing.exceptionally(e -> null).join(); // the files are being completed by a closed store
+        }
+        CompletableFuture<Loaded> preloaded = PRELOADED.remove(fileName);
+        Loaded loaded = preloaded != null ? preloaded.join() : load(fileName);
+        if (loaded == null) {
+            synchronized (this) {
+                for (T entry : defaultStoreEntries()) {
+                    if (entry != null) {
+                        slots.add(makeResident(new Slot<>(nextId++, entry.getName(), entry)));
+                    }
+                }
+                isIndexDirty = true;
+            }
+            asyncSaveToFile();
+            LOG.info().$("Created default store [path=").$(getFolder().getAbsolutePath()).I$();
+            return;
+        }
+
+        synchronized (this) {
+            slots.clear();
+            resident.clear();
+            for (int i = 0, n = loaded.ids.size(); i < n; i++) {
+                StoreEntry entry = loaded.entries.get(i);
+                if (entry != null && !loaded.isLegacy) {
+                    // replayed from the journal, which the checkpoint below writes in the background
+                    entry = entry.copy();
+                }
+                Slot<T> slot = new Slot<>(loaded.ids.get(i), loaded.names.get(i), entry != null ? newEntry(entry) : null);
                 if (entry != null) {
-                    entries.add(entry);
+                    if (!loaded.isLegacy) {
+                        slot.markSaved();
+                    }
+                    makeResident(slot);
                 }
+                slots.add(slot);
             }
-            saveToFile(() -> LOG.info().$("Created default store [path=").$(file.getAbsolutePath()).I$());
+            nextId = Math.max(nextId, loaded.nextId);
+            isIndexDirty = loaded.isLegacy;
+            evict();
+        }
+        if (loaded.isLegacy && getFolder().exists()) {
+            asyncPersist.execute(this::clearFolder); // superseded, before the migration
+        }
+        if (loaded.hasJournal) {
+            // bring the files up to date and start with an empty journal, dropping torn records
+            Changes replayed = loaded.replayed;
+            asyncPersist.execute(() -> {
+                journaledChanges = replayed != null ? replayed : new Changes();
+                checkpoint();
+            });
+        }
+    }
+
+    /**
+     * Appends the entries that changed since the last save to the journal, waiting
+     * for the background writer to have synced them to disk. Not to be called from the
+     * event dispatch thread, which saves with {@link #asyncSaveToFile()}.
+     */
+    public void saveToFile() {
+        synchronized (this) {
+            collectChanges();
+        }
+        persistAndWait(() -> persist(false));
+    }
+
+    private T newEntry(StoreEntry decoded) {
+        try {
+            @SuppressWarnings("unchecked")
+            T entry = (T) (StoreEntry) entryFactory.invokeExact(decoded);
+            return entry;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // guarded by 'this', reads the entry from its file on first access
+    private T entryOf(Slot<T> slot) {
+        if (slot.entry != null) {
+            resident.get(slot.id); // most recently used
+            return slot.entry;
+        }
+        slot.entry = newEntry(readEntryFile(slot));
+        slot.markSaved();
+        slot.fileVersion = slot.savedVersion;
+        makeResident(slot);
+        evict();
+        return slot.entry;
+    }
+
+    // guarded by 'this', reads the entry without keeping it, for bulk reads
+    private StoreEntry peekEntry(Slot<T> slot) {
+        return slot.entry != null ? slot.entry : readEntryFile(slot);
+    }
+
+    private StoreEntry readEntryFile(Slot<T> slot) {
+        return readEntryFile(getFolder(), slot.id, slot.name);
+    }
+
+    private static StoreEntry readEntryFile(File folder, int id, String name) {
+        File file = new File(folder, id + ENTRY_FILE_SUFFIX);
+        StoreEntry decoded;
+        try (JsonReader in = newJsonReader(file)) {
+            decoded = readEntry(in);
+        } catch (Exception e) {
+            // the file is left as it is, unless the entry is changed
+            LOG.error().$("Could not load entry [path=").$(file.getAbsolutePath())
+                    .$(", e=").$(e.getMessage())
+                    .I$();
+            decoded = new StoreEntry(name);
+        }
+        if (decoded.getName() == null) {
+            decoded.setName(name);
+        }
+        return decoded;
+    }
+
+    private Slot<T> makeResident(Slot<T> slot) {
+        resident.put(slot.id, slot);
+        return slot;
+    }
+
+    // guarded by 'this', drops the least recently used entries whose file is up-to-date,
+    // and checkpoints those that are not, to drop them once their file is written
+    private void evict() {
+        evict(true);
+    }
+
+    private void evict(boolean isCheckpointNeeded) {
+        int excess = resident.size() - residentLimit;
+        if (excess > 0) {
+            boolean hasUnwritten = false;
+            Iterator<Slot<T>> it = resident.values().iterator();
+            for (int i = resident.size(); i > 1 && excess > 0; i--) { // keeps the most recent
+                Slot<T> slot = it.next();
+                if (slot.isOnFile()) {
+                    slot.entry = null;
+                    it.remove();
+                    excess--;
+                } else {
+                    hasUnwritten = true;
+                }
+            }
+            if (hasUnwritten && isCheckpointNeeded) {
+                scheduleCheckpoint();
+            }
+        }
+    }
+
+    // guarded by 'this', the checkpoint evicts once it has written the files, see onCheckpoint
+    private void scheduleCheckpoint() {
+        if (isCheckpointScheduled) {
             return;
         }
+        collectChanges();
+        try {
+            asyncPersist.execute(() -> {
+                synchronized (this) {
+                    isCheckpointScheduled = false;
+                }
+                persist(true);
+            });
+            isCheckpointScheduled = true;
+        } catch (RejectedExecutionException closed) {
+            // closing checkpoints
+        }
+    }
+
+    // guarded by 'this', the entries written by a checkpoint can be evicted, those changed
+    // since are left to the next one, rather than checkpointing again straight away
+    private void onCheckpoint(Map<Integer, StoreEntry> written) {
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            Slot<T> slot = slots.get(i);
+            StoreEntry copy = written.get(slot.id);
+            if (copy != null) {
+                slot.fileVersion = copy.getVersion();
+            }
+        }
+        evict(false);
+    }
+
+    private File getFolder() {
+        return new File(ROOT_PATH, fileName + FOLDER_SUFFIX);
+    }
+
+    private void removeSlot(int idx) {
+        Slot<T> slot = slots.remove(idx);
+        resident.remove(slot.id);
+        removedIds.add(slot.id);
+        isIndexDirty = true;
+    }
+
+    // guarded by 'this'
+    private void collectChanges() {
+        Changes changes = pendingChanges != null ? pendingChanges : new Changes();
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            Slot<T> slot = slots.get(i);
+            if (slot.isDirty()) {
+                if (!slot.entry.getName().equals(slot.name)) {
+                    isIndexDirty = true;
+                }
+                changes.entries.put(slot.id, slot.entry.copy());
+                slot.markSaved();
+            }
+        }
+        if (isIndexDirty) {
+            List<IndexEntry> index = new ArrayList<>(slots.size());
+            for (int i = 0, n = slots.size(); i < n; i++) {
+                Slot<T> slot = slots.get(i);
+                index.add(new IndexEntry(slot.id, slot.name()));
+            }
+            changes.index = index;
+            isIndexDirty = false;
+        }
+        if (!removedIds.isEmpty()) {
+            changes.removedIds.addAll(removedIds);
+            for (Integer id : removedIds) {
+                changes.entries.remove(id);
+            }
+            removedIds.clear();
+        }
+        if (!changes.isEmpty()) {
+            pendingChanges = changes;
+        }
+    }
 
-        List<StoreEntry> content = loadFromFile(file);
-        if (content != null) {
+    private void persistAndWait(Runnable task) {
+        try {
+            asyncPersist.submit(task).get();
+        } catch (RejectedExecutionException closed) {
+            persistClosed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error().$("Could not persist [path=").$(getFolder().getAbsolutePath())
+                    .$(", e=").$(e.getCause().getMessage())
+                    .I$();
+        }
+    }
+
+    // saves made after close go straight to the files
+    private synchronized void persistClosed() {
+        persist(true);
+        closeJournal();
+    }
+
+    // runs in asyncPersist, or in the caller's thread once closed
+    private void persist(boolean isCheckpoint) {
+        Changes changes;
+        synchronized (this) {
+            changes = pendingChanges;
+            pendingChanges = null;
+            isSaveScheduled = false;
+        }
+        if (changes != null) {
+            if (journaledChanges == null) {
+                journaledChanges = new Changes();
+            }
+            SaveListener listener = saveListener;
+            if (listener != null) {
+                listener.onSave(fileName, Collections.unmodifiableMap(changes.entries), Collections.unmodifiableSet(changes.removedIds));
+            }
             try {
-                // This constructor is T's decorator constructor to StoreEntry(StoreEntry other).
-                // We do not need to instantiate yet another attribute's map when we can recycle
-                // the instance provided by GSON.
-                @SuppressWarnings("unchecked")
-                Constructor<T> entryFactory = (Constructor<T>) entryClass.getConstructor(ITEM_CONSTRUCTOR_SIGNATURE);
-                entries.clear();
-                for (StoreEntry i : content) {
-                    entries.add(entryFactory.newInstance(i));
+                appendToJournal(journalRecordOf(changes));
+                journaledChanges.merge(changes);
+            } catch (IOException e) {
+                LOG.error().$("Could not append to journal [path=").$(getFolder().getAbsolutePath())
+                        .$(", e=").$(e.getMessage())
+                        .I$();
+                journaledChanges.merge(changes);
+                isCheckpoint = true; // write the files directly
+            }
+        }
+        if (journaledChanges != null && (isCheckpoint || journalSize() >= CHECKPOINT_JOURNAL_BYTES)) {
+            checkpoint();
+        }
+    }
+
+    // entries in the journal since the last checkpoint are journaled as their edits
+    private Changes journalRecordOf(Changes changes) {
+        Changes record = new Changes();
+        record.index = changes.index;
+        record.removedIds.addAll(changes.removedIds);
+        for (Map.Entry<Integer, StoreEntry> e : changes.entries.entrySet()) {
+            StoreEntry previous = journaledChanges.entries.get(e.getKey());
+            EntryEdit edit = previous != null ? EntryEdit.of(previous, e.getValue()) : null;
+            if (edit != null) {
+                if (record.edits == null) {
+                    record.edits = new LinkedHashMap<>();
                 }
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
+                record.edits.put(e.getKey(), edit);
+            } else {
+                record.entries.put(e.getKey(), e.getValue());
             }
         }
+        return record;
     }
 
-    public void saveToFile() {
-        saveToFile(getFile());
+    private void appendToJournal(Changes changes) throws IOException {
+        if (journal == null) {
+            File folder = getFolder();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("could not create folder");
+            }
+            journal = FileChannel.open(
+                    new File(folder, JOURNAL_FILE_NAME).toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer record = ByteBuffer.wrap(toJournalRecord(changes).getBytes(StandardCharsets.UTF_8));
+        while (record.hasRemaining()) {
+            journal.write(record);
+        }
+        journal.force(false);
     }
 
-    private void saveToFile(Runnable whenDoneTask) {
+    private long journalSize() {
         try {
-            saveToFile(getFile());
-        } finally {
-            if (whenDoneTask != null) {
-                whenDoneTask.run();
+            return journal != null ? journal.size() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ignore) {
+                // do nothing
+            }
+            journal = null;
+        }
+    }
+
+    private void clearFolder() {
+        File folder = getFolder();
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    LOG.error().$("Could not delete [path=").$(file.getAbsolutePath())
+                            .$(", e=").$(e.getMessage())
+                            .I$();
+                }
+            }
+        }
+        LOG.info().$("Cleared superseded store [path=").$(folder.getAbsolutePath()).I$();
+    }
+
+    private void checkpoint() {
+        Changes changes = journaledChanges;
+        File folder = getFolder();
+        try {
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("could not create folder");
+            }
+            for (Map.Entry<Integer, StoreEntry> e : changes.entries.entrySet()) {
+                writeAtomically(new File(folder, e.getKey() + ENTRY_FILE_SUFFIX), e.getValue(), StoreEntry.class);
+            }
+            if (changes.index != null) {
+                writeAtomically(new File(folder, INDEX_FILE_NAME), changes.index, INDEX_TYPE);
+            }
+            for (Integer id : changes.removedIds) {
+                Files.deleteIfExists(new File(folder, id + ENTRY_FILE_SUFFIX).toPath());
             }
+            if (journal != null) {
+                journal.truncate(0L);
+                journal.force(true);
+            } else {
+                Files.deleteIfExists(new File(folder, JOURNAL_FILE_NAME).toPath());
+            }
+            journaledChanges = null;
+            synchronized (this) {
+                onCheckpoint(changes.entries);
+            }
+            LOG.info().$("Checkpoint [path=").$(folder.getAbsolutePath())
+                    .$(", records=").$(changes.records)
+                    .$(", entries=").$(changes.entries.size())
+                    .$(", index=").$(changes.index != null)
+                    .I$();
+        } catch (IOException e) {
+            // the journal is kept, the checkpoint is tried again later
+            LOG.error().$("Could not checkpoint [path=").$(folder.getAbsolutePath())
+                    .$(", e=").$(e.getMessage())
+                    .I$();
+        }
+    }
+
+    /**
+     * Receives the changes of every save, in the store's background thread.
+     */
+    @FunctionalInterface
+    public interface SaveListener {
+        /**
+         * @param fileName   name of the store
+         * @param saved      copies of the entries that changed, by id, not to be modified
+         * @param removedIds ids of the entries removed
+         */
+        void onSave(String fileName, Map<Integer, StoreEntry> saved, Set<Integer> removedIds);
+    }
+
+    private static final class Slot<T extends StoreEntry> {
+        private final int id;
+        private T entry; // null until accessed
+        private String name; // as last saved
+        private int savedVersion;
+        private int fileVersion = -1; // version of the entry's file, -1 when it is unknown
+        private boolean isSaved;
+
+        private Slot(int id, String name, T entry) {
+            this.id = id;
+            this.name = name;
+            this.entry = entry;
+        }
+
+        private String name() {
+            return entry != null ? entry.getName() : name;
+        }
+
+        private boolean isDirty() {
+            return entry != null && (!isSaved || entry.getVersion() != savedVersion);
+        }
+
+        private boolean isOnFile() {
+            return entry != null && !isDirty() && fileVersion == savedVersion;
+        }
+
+        private void markSaved() {
+            savedVersion = entry.getVersion();
+            name = entry.getName();
+            isSaved = true;
         }
     }
 
-    private File getFile() {
-        return new File(ROOT_PATH, fileName);
+    private static final class IndexEntry {
+        private final int id;
+        private final String name; // informative
+
+        private IndexEntry(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final class Changes {
+        private final Map<Integer, StoreEntry> entries = new LinkedHashMap<>();
+        private final Set<Integer> removedIds = new HashSet<>();
+        private List<IndexEntry> index;
+        private Map<Integer, EntryEdit> edits; // journal records only, null when there are none
+        private transient int records;
+
+        private boolean isEmpty() {
+            return entries.isEmpty() && removedIds.isEmpty() && index == null;
+        }
+
+        // applies newer changes on top of these
+        private void merge(Changes newer) {
+            for (Map.Entry<Integer, StoreEntry> e : newer.entries.entrySet()) {
+                entries.put(e.getKey(), e.getValue());
+                removedIds.remove(e.getKey());
+            }
+            for (Integer id : newer.removedIds) {
+                entries.remove(id);
+                removedIds.add(id);
+            }
+            if (newer.index != null) {
+                index = newer.index;
+            }
+            records += Math.max(1, newer.records);
+        }
+
+        // replaces the edits of a journal record by the entries they produce, false when
+        // the previous version of an edited entry is not in the previous records
+        private boolean applyEdits(Changes previous) {
+            if (edits != null) {
+                for (Map.Entry<Integer, EntryEdit> e : edits.entrySet()) {
+                    StoreEntry entry = previous != null ? previous.entries.get(e.getKey()) : null;
+                    if (entry == null || (entry = e.getValue().applyTo(entry)) == null) {
+                        return false;
+                    }
+                    entries.put(e.getKey(), entry);
+                }
+                edits = null;
+            }
+            return true;
+        }
+    }
+
+    // changes of an entry to its previous version, attributes are only ever added or set
+    private static final class EntryEdit {
+        private String name; // null when unchanged
+        private Map<String, String> attrs; // set to these values
+        private Map<String, TextEdit> texts; // set by replacing a range of their value
+
+        private static EntryEdit of(StoreEntry previous, StoreEntry entry) {
+            Map<String, String> previousAttrs = previous.attrs();
+            Map<String, String> entryAttrs = entry.attrs();
+            if (!entryAttrs.keySet().containsAll(previousAttrs.keySet())) {
+                return null;
+            }
+            EntryEdit edit = new EntryEdit();
+            if (!entry.getName().equals(previous.getName())) {
+                edit.name = entry.getName();
+            }
+            for (Map.Entry<String, String> attr : entryAttrs.entrySet()) {
+                String value = attr.getValue();
+                String previousValue = previousAttrs.get(attr.getKey());
+                if (value == null || previousValue == null) {
+                    if (value != previousValue) {
+                        return null; // nulls are not written
+                    }
+                } else if (!value.equals(previousValue)) {
+                    if (value.length() >= TEXT_EDIT_MIN_CHARS && previousValue.length() >= TEXT_EDIT_MIN_CHARS) {
+                        if (edit.texts == null) {
+                            edit.texts = new TreeMap<>();
+                        }
+                        edit.texts.put(attr.getKey(), TextEdit.of(previousValue, value));
+                    } else {
+                        if (edit.attrs == null) {
+                            edit.attrs = new TreeMap<>();
+                        }
+                        edit.attrs.put(attr.getKey(), value);
+                    }
+                }
+            }
+            return edit;
+        }
+
+        // null when the edit does not apply, the previous version is not modified
+        private StoreEntry applyTo(StoreEntry previous) {
+            StoreEntry entry = previous.copy();
+            if (name != null) {
+                entry.setName(name);
+            }
+            if (attrs != null) {
+                entry.attrs().putAll(attrs);
+            }
+            if (texts != null) {
+                for (Map.Entry<String, TextEdit> text : texts.entrySet()) {
+                    String value = text.getValue().applyTo(entry.getAttr(text.getKey()));
+                    if (value == null) {
+                        return null;
+                    }
+                    entry.attrs().put(text.getKey(), value);
+                }
+            }
+            return entry;
+        }
+    }
+
+    // chars [start, end) of the previous value replaced by text
+    private static final class TextEdit {
+        private int start;
+        private int end;
+        private String text;
+
+        private static TextEdit of(String previous, String value) {
+            int prefix = 0;
+            int max = Math.min(previous.length(), value.length());
+            while (prefix < max && previous.charAt(prefix) == value.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            max -= prefix;
+            while (suffix < max && previous.charAt(previous.length() - 1 - suffix) == value.charAt(value.length() - 1 - suffix)) {
+                suffix++;
+            }
+            TextEdit edit = new TextEdit();
+            edit.start = prefix;
+            edit.end = previous.length() - suffix;
+            edit.text = value.substring(prefix, value.length() - suffix);
+            return edit;
+        }
+
+        private String applyTo(String previous) {
+            if (previous == null || text == null || start < 0 || start > end || end > previous.length()) {
+                return null;
+            }
+            return new StringBuilder(previous.length() - (end - start) + text.length())
+                    .append(previous, 0, start)
+                    .append(text)
+                    .append(previous, end, previous.length())
+                    .toString();
+        }
+    }
+
+    private static final class Loaded {
+        private final boolean isLegacy;
+        private Changes replayed;
+        private boolean hasJournal;
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<StoreEntry> entries = new ArrayList<>(); // null when not read yet
+        private int nextId;
+
+        private Loaded(boolean isLegacy) {
+            this.isLegacy = isLegacy;
+        }
+
+        private void add(int id, String name, StoreEntry entry) {
+            ids.add(id);
+            names.add(name);
+            entries.add(entry);
+            reserve(id);
+        }
+
+        private void reserve(int id) {
+            nextId = Math.max(nextId, id + 1);
+        }
     }
 }
@@ -25,6 +25,7 @@ public class StoreEntry implements UniqueId<String>, Comparable<StoreEntry> {
 
     private final Map<String, String> attrs;
     private volatile String name;
+    private transient volatile int version; // not persisted
 
     public StoreEntry(String name) {
         if (name == null || name.isEmpty()) {
@@ -34,6 +35,12 @@ public class StoreEntry implements UniqueId<String>, Comparable<StoreEntry> {
         attrs = new TreeMap<>();
     }
 
+    // used by the Store's decoder, the entry takes ownership of the attributes
+    StoreEntry(String name, Map<String, String> attrs) {
+        this.name = name;
+        this.attrs = attrs;
+    }
+
     /**
      * Shallow copy constructor, attributes are a reference to the attributes of 'other'.
      * <p>
@@ -47,6 +54,30 @@ public class StoreEntry implements UniqueId<String>, Comparable<StoreEntry> {
     public StoreEntry(StoreEntry other) {
         name = other.name;
         attrs = other.attrs;
+        version = other.version;
+    }
+
+    /**
+     * The version changes with every change to the name or the attributes, the
+     * {@link Store} compares it with the version last saved to decide what to save.
+     *
+     * @return version of the entry, not persisted
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    // deep copy, version included, taken by the store to be written in the background
+    StoreEntry copy() {
+        StoreEntry copy = new StoreEntry(name);
+        copy.attrs.putAll(attrs);
+        copy.version = version;
+        return copy;
+    }
+
+    // read only by the store, which journals the attributes that changed
+    Map<String, String> attrs() {
+        return attrs;
     }
 
     public String getName() {
@@ -55,6 +86,7 @@ public class StoreEntry implements UniqueId<String>, Comparable<StoreEntry> {
 
     public void setName(String name) {
         this.name = name;
+        version++;
     }
 
     /**
@@ -91,14 +123,17 @@ public class StoreEntry implements UniqueId<String>, Comparable<StoreEntry> {
 
     public void setAttr(UniqueId<String> attr, String value, String defaultValue) {
         attrs.put(attr.getUniqueId(), null == value || value.isEmpty() ? defaultValue : value);
+        version++;
     }
 
     public void setAttr(String attrName, String value, String defaultValue) {
         attrs.put(attrName, value == null || value.isEmpty() ? defaultValue : value);
+        version++;
     }
 
     public void setAttr(String attrName, String value) {
         attrs.put(attrName, value);
+        version++;
     }
 
     @Override
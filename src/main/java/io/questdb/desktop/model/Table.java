@@ -17,6 +17,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 
 public class Table implements UniqueId<String>, Closeable {
     public static final String ROWID_COL_NAME = "#";
+    private static final long ROW_OVERHEAD_BYTES = 48L; // Row, its values array and toString reference
+    private static final long REF_BYTES = 8L;
+    private static final long NUMERIC_VALUE_BYTES = 8L; // copy as a double, see NumericColumn
 
     protected final String uniqueId;
     protected final ConcurrentMap<String, Integer> colNameToIdx;
@@ -25,6 +28,10 @@ public class Table implements UniqueId<String>, Closeable {
     protected final List<Row> model;
     protected volatile String[] colNames;
     protected volatile int[] colTypes;
+    protected volatile NumericColumn[] numericCols; // by column index, null for non numeric columns
+    private volatile boolean isReadOnly;
+    private long estimatedBytes; // guarded by the write lock
+    private long lockWaitNanos; // guarded by the write lock
 
     public Table(String uniqueId) {
         this.uniqueId = uniqueId;
@@ -40,6 +47,45 @@ public class Table implements UniqueId<String>, Closeable {
         return uniqueId;
     }
 
+    /**
+     * Read-only tables are shared, see {@link ResultCache}, their content cannot be
+     * changed, and closing them has no effect.
+     *
+     * @return true if the table is read-only
+     */
+    public boolean isReadOnly() {
+        return isReadOnly;
+    }
+
+    /**
+     * @return rough estimate of the heap used by the rows, accumulated as they are added
+     */
+    public long getEstimatedBytes() {
+        readLock.lock();
+        try {
+            return estimatedBytes;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return time spent by {@link #addRow(long, ResultSet)} waiting for readers to
+     * release the table, since the column metadata were set
+     */
+    public long getLockWaitNanos() {
+        readLock.lock();
+        try {
+            return lockWaitNanos;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    void setReadOnly() {
+        isReadOnly = true;
+    }
+
     public int getColumnCount() {
         int[] types = colTypes;
         return types != null ? types.length : 0;
@@ -63,6 +109,18 @@ public class Table implements UniqueId<String>, Closeable {
         return colTypes; // java.sql.Types
     }
 
+    /**
+     * @param i column index
+     * @return the values of the column as doubles, maintained as rows are added, null
+     * when the column is not numeric, see {@link SQLType#isNotNumeric(int)}. Closing the
+     * table, or setting its column metadata, detaches the columns, their values are kept
+     * for as long as they are referenced
+     */
+    public NumericColumn getNumericColumn(int i) {
+        NumericColumn[] cols = numericCols;
+        return cols != null && i >= 0 && i < cols.length ? cols[i] : null;
+    }
+
     /**
      * Sets the column metadata (names and types) as defined by the result-set's
      * metadata, and clears the table's model. It does not change the table's key.
@@ -74,6 +132,7 @@ public class Table implements UniqueId<String>, Closeable {
      * @throws SQLException could not access the result-set's metadata
      */
     public void setColumnMetadata(ResultSet rs) throws SQLException {
+        checkWritable();
         ResultSetMetaData metaData = rs.getMetaData();
         int colCount = metaData.getColumnCount();
         if (colCount <= 0) {
@@ -81,6 +140,7 @@ public class Table implements UniqueId<String>, Closeable {
         }
         String[] names = new String[colCount + 1];
         int[] types = new int[colCount + 1];
+        NumericColumn[] numerics = new NumericColumn[colCount + 1];
         Map<String, Integer> nameToIdx = new HashMap<>();
         names[0] = ROWID_COL_NAME;
         types[0] = Types.ROWID;
@@ -89,14 +149,20 @@ public class Table implements UniqueId<String>, Closeable {
             names[i] = metaData.getColumnName(i);
             types[i] = metaData.getColumnType(i);
             nameToIdx.put(names[i], i);
+            if (!SQLType.isNotNumeric(types[i])) {
+                numerics[i] = new NumericColumn();
+            }
         }
         writeLock.lock();
         try {
             colNames = names;
             colTypes = types;
+            numericCols = numerics;
             colNameToIdx.clear();
             colNameToIdx.putAll(nameToIdx);
             model.clear();
+            estimatedBytes = 0L;
+            lockWaitNanos = 0L;
         } finally {
             writeLock.unlock();
         }
@@ -114,19 +180,37 @@ public class Table implements UniqueId<String>, Closeable {
      *                      metadata
      */
     public void addRow(long rowIdx, ResultSet rs) throws SQLException {
+        checkWritable();
         int[] types = colTypes;
         if (types == null) {
             throw new IllegalArgumentException("column metadata (names, types) not defined");
         }
+        NumericColumn[] numerics = numericCols;
         Object[] values = new Object[types.length];
         values[0] = rowIdx;
+        long rowBytes = ROW_OVERHEAD_BYTES + REF_BYTES * types.length + estimateBytes(values[0]);
         for (int i = 1; i < types.length; i++) {
             values[i] = rs.getObject(i);
+            rowBytes += estimateBytes(values[i]);
+            if (numerics[i] != null) {
+                rowBytes += NUMERIC_VALUE_BYTES;
+            }
         }
         Row row = new Row(rowIdx, values);
-        writeLock.lock();
+        if (!writeLock.tryLock()) {
+            // contended, the fast path is not timed
+            long waitStart = System.nanoTime();
+            writeLock.lock();
+            lockWaitNanos += System.nanoTime() - waitStart;
+        }
         try {
             model.add(row);
+            for (int i = 1; i < types.length; i++) {
+                if (numerics[i] != null) {
+                    numerics[i].append(SQLType.getNumericValue(values[i], types[i]));
+                }
+            }
+            estimatedBytes += rowBytes;
         } finally {
             writeLock.unlock();
         }
@@ -161,15 +245,43 @@ public class Table implements UniqueId<String>, Closeable {
 
     @Override
     public void close() {
+        if (isReadOnly) {
+            return; // shared
+        }
         writeLock.lock();
         try {
             colNames = null;
             colTypes = null;
+            numericCols = null; // not cleared, plots may still read them, see TableColumn
             colNameToIdx.clear();
             model.forEach(Row::clear);
             model.clear();
+            estimatedBytes = 0L;
+            lockWaitNanos = 0L;
         } finally {
             writeLock.unlock();
         }
     }
+
+    private static long estimateBytes(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof CharSequence str) {
+            return 40L + 2L * str.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16L + bytes.length;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 24L;
+        }
+        return 32L; // dates, timestamps, uuids
+    }
+
+    private void checkWritable() {
+        if (isReadOnly) {
+            throw new IllegalStateException("table is read-only");
+        }
+    }
 }
@@ -5,11 +5,15 @@ import io.questdb.desktop.GTk;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.regex.PatternSyntaxException;
 import javax.swing.*;
+import javax.swing.event.UndoableEditListener;
 import javax.swing.text.*;
+import javax.swing.undo.CompoundEdit;
 import javax.swing.undo.UndoManager;
 
 import static io.questdb.desktop.GTk.Keyboard.addCmdKeyAction;
@@ -19,10 +23,20 @@ import static io.questdb.desktop.GTk.Keyboard.addAltShiftKeyAction;
 
 public class Editor extends JPanel {
     private static final String MARGIN_TOKEN = ":99999:";
+    private static final int MAX_HIGHLIGHTED_MATCHES = 10_000;
+    private static final Highlighter.HighlightPainter FIND_MATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(
+            new Color(
+                    GTk.Editor.MATCH_FOREGROUND_COLOR.getRed(),
+                    GTk.Editor.MATCH_FOREGROUND_COLOR.getGreen(),
+                    GTk.Editor.MATCH_FOREGROUND_COLOR.getBlue(),
+                    80));
     protected final JTextPane textPane;
     private final EditorHighlighter highlighter;
     private final AtomicReference<UndoManager> undoManager;
     private final StringBuilder sb;
+    private final boolean hasLineNumbers;
+    private final List<Object> findMatches; // highlight tags
+    private TextFinder finder;
 
     public Editor() {
         this(true, true, EditorHighlighter::of);
@@ -34,51 +48,29 @@ public class Editor extends JPanel {
 
     public Editor(boolean isEditable, boolean hasLineNumbers, Function<JTextPane, EditorHighlighter> highlighterFactory) {
         sb = new StringBuilder();
+        findMatches = new ArrayList<>();
         undoManager = new AtomicReference<>();
         textPane = new JTextPane() {
             public boolean getScrollableTracksViewportWidth() {
                 return getUI().getPreferredSize(this).width <= getParent().getSize().width;
             }
         };
+        this.hasLineNumbers = hasLineNumbers;
         textPane.setFont(GTk.Editor.DEFAULT_FONT);
         textPane.setMargin(createInsets(GTk.Editor.DEFAULT_FONT));
         textPane.setBackground(GTk.APP_BACKGROUND_COLOR);
         textPane.setCaretColor(GTk.Editor.MATCH_FOREGROUND_COLOR);
         textPane.setCaretPosition(0);
-        if (hasLineNumbers) {
-            textPane.setEditorKit(new StyledEditorKit() {
-                @Override
-                public ViewFactory getViewFactory() {
-                    final ViewFactory defaultViewFactory = super.getViewFactory();
-                    return elem -> {
-                        if (elem.getName().equals(AbstractDocument.ParagraphElementName)) {
-                            return new ParagraphView(elem) {
-                                @Override
-                                public void paintChild(Graphics g, Rectangle alloc, int index) {
-                                    super.paintChild(g, alloc, index);
-                                    Font font = textPane.getFont();
-                                    g.setFont(font);
-                                    g.setColor(GTk.Editor.LINENO_COLOR);
-                                    int n = getLineNumber(getDocument().getDefaultRootElement(), getElement());
-                                    String lineNo = String.valueOf(n);
-                                    FontMetrics fm = g.getFontMetrics(font);
-                                    int x = fm.stringWidth(MARGIN_TOKEN) - fm.stringWidth(lineNo) - 10;
-                                    int y = fm.getHeight() / 3 + n * fm.getHeight();
-                                    g.drawString(lineNo, x, y);
-                                }
-                            };
-                        }
-                        return defaultViewFactory.create(elem);
-                    };
-                }
-            });
-        }
         textPane.setEditable(isEditable);
         Keyboard keyboard = new Keyboard();
         keyboard.setupKeyboardActions(isEditable);
         highlighter = highlighterFactory.apply(textPane); // produces "style change" events
         JScrollPane scrollPane = new JScrollPane(textPane);
         scrollPane.getViewport().setBackground(GTk.APP_BACKGROUND_COLOR);
+        if (hasLineNumbers) {
+            scrollPane.setRowHeaderView(new LineNumberGutter(textPane));
+            scrollPane.getRowHeader().setBackground(GTk.APP_BACKGROUND_COLOR);
+        }
         scrollPane.getVerticalScrollBar().setUnitIncrement(5);
         scrollPane.getVerticalScrollBar().setBlockIncrement(15);
         scrollPane.getHorizontalScrollBar().setUnitIncrement(5);
@@ -87,15 +79,6 @@ public class Editor extends JPanel {
         add(scrollPane, BorderLayout.CENTER);
     }
 
-    private static int getLineNumber(Element root, Element target) {
-        for (int i = 0, n = root.getElementCount(); i < n; i++) {
-            if (root.getElement(i) == target) {
-                return i + 1;
-            }
-        }
-        return 1;
-    }
-
     public void setFontSize(int size) {
         Font font = GTk.Editor.newFont(size);
         textPane.setFont(font);
@@ -149,23 +132,144 @@ public class Editor extends JPanel {
         return "";
     }
 
-    protected int highlightContent(String findRegex) {
-        return findRegex != null ? highlighter.handleTextChanged(findRegex, null) : 0; // number of matches
+    /**
+     * Highlights all the matches (up to MAX_HIGHLIGHTED_MATCHES), and selects the first
+     * one after the caret, wrapping around to the top. Matches are painted over the text,
+     * which is not re-highlighted, and repeated calls move through them.
+     *
+     * @param find    text to find
+     * @param isRegex whether the text is a regular expression
+     * @return number of matches
+     */
+    protected int highlightContent(String find, boolean isRegex) {
+        clearFindMatches();
+        TextFinder finder = getFinder(find, isRegex);
+        if (finder == null) {
+            return 0;
+        }
+        Document doc = textPane.getDocument();
+        Segment txt = new Segment();
+        try {
+            doc.getText(0, doc.getLength(), txt);
+        } catch (BadLocationException impossible) {
+            return 0;
+        }
+        Highlighter painter = textPane.getHighlighter();
+        int caretPos = textPane.getSelectionEnd();
+        int firstStart = -1, firstEnd = -1;
+        int nextStart = -1, nextEnd = -1;
+        int matchCount = 0;
+        int from = 0;
+        while (finder.find(txt, from)) {
+            int start = finder.start();
+            int end = finder.end();
+            if (matchCount == 0) {
+                firstStart = start;
+                firstEnd = end;
+            }
+            if (nextStart == -1 && start >= caretPos) {
+                nextStart = start;
+                nextEnd = end;
+            }
+            if (matchCount < MAX_HIGHLIGHTED_MATCHES) {
+                try {
+                    findMatches.add(painter.addHighlight(start, end, FIND_MATCH_PAINTER));
+                } catch (BadLocationException ignore) {
+                    // do nothing
+                }
+            }
+            matchCount++;
+            from = end > start ? end : end + 1;
+        }
+        if (firstStart != -1) {
+            if (nextStart == -1) {
+                nextStart = firstStart;
+                nextEnd = firstEnd;
+            }
+            textPane.getCaret().setSelectionVisible(true);
+            textPane.select(nextStart, nextEnd);
+        }
+        return matchCount;
     }
 
-    protected int replaceContent(String findRegex, String replaceWith) {
-        if (findRegex != null) {
+    /**
+     * Replaces all the matches as a single undoable edit.
+     *
+     * @param find        text to find
+     * @param isRegex     whether the text is a regular expression
+     * @param replaceWith replacement
+     * @return number of replacements
+     */
+    protected int replaceContent(String find, boolean isRegex, String replaceWith) {
+        clearFindMatches();
+        TextFinder finder = getFinder(find, isRegex);
+        if (finder == null || replaceWith == null) {
+            return 0;
+        }
+        AbstractDocument doc = (AbstractDocument) textPane.getDocument();
+        UndoManager um = undoManager.get();
+        CompoundEdit compoundEdit = new CompoundEdit();
+        UndoableEditListener collector = e -> compoundEdit.addEdit(e.getEdit());
+        if (um != null) {
+            doc.removeUndoableEditListener(um);
+        }
+        doc.addUndoableEditListener(collector);
+        highlighter.setSuspended(true);
+        int replaceCount = 0;
+        try {
+            // matches are replaced front to back, each one shifted by the length difference
+            // accumulated by the previous replacements, as measured on the document, which
+            // expands tabs in the text inserted
+            int[] shift = {0};
+            replaceCount = finder.replaceAll(getText(), replaceWith, (start, end, replacement) -> {
+                int length = doc.getLength();
+                doc.replace(start + shift[0], end - start, replacement, null);
+                shift[0] += doc.getLength() - length;
+            });
+        } catch (BadLocationException | IllegalArgumentException | IndexOutOfBoundsException | IllegalStateException err) {
+            // also invalid group references in the replacement, see TextFinder#replaceAll
+            JOptionPane.showMessageDialog(this, String.format("Could not replace: %s", err.getMessage()));
+        } finally {
+            highlighter.setSuspended(false);
+            doc.removeUndoableEditListener(collector);
+            compoundEdit.end();
+            if (um != null) {
+                if (compoundEdit.canUndo()) {
+                    um.addEdit(compoundEdit);
+                }
+                doc.addUndoableEditListener(um);
+            }
+        }
+        if (replaceCount > 0) {
+            highlighter.handleTextChanged();
+        }
+        return replaceCount;
+    }
+
+    protected void clearFindMatches() {
+        Highlighter painter = textPane.getHighlighter();
+        for (int i = 0, n = findMatches.size(); i < n; i++) {
+            painter.removeHighlight(findMatches.get(i));
+        }
+        findMatches.clear();
+    }
+
+    private TextFinder getFinder(String find, boolean isRegex) {
+        if (find == null || find.isEmpty()) {
+            return null;
+        }
+        if (finder == null || !finder.isFor(find, isRegex)) {
             try {
-                textPane.setText(getText().replaceAll(findRegex, replaceWith));
-                return highlighter.handleTextChanged();
+                finder = TextFinder.of(find, isRegex);
             } catch (PatternSyntaxException err) {
                 JOptionPane.showMessageDialog(
                         this,
-                        String.format("Not a valid filter: %s", err.getMessage())
+                        String.format("Not a valid regex: %s", err.getMessage())
                 );
+                return null;
             }
         }
-        return 0;
+        return finder;
     }
 
     protected void setUndoManager(UndoManager newUndoManager) {
@@ -182,7 +286,8 @@ public class Editor extends JPanel {
     private Insets createInsets(Font font) {
         FontMetrics fm = textPane.getFontMetrics(font);
         int h = fm.getHeight() / 2;
-        return new Insets(h, fm.stringWidth(MARGIN_TOKEN), h, fm.stringWidth(":"));
+        // with line numbers, the gutter provides the left margin
+        return new Insets(h, fm.stringWidth(hasLineNumbers ? ":" : MARGIN_TOKEN), h, fm.stringWidth(":"));
     }
 
     private class Keyboard {
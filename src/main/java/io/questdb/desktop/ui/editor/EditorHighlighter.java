@@ -4,6 +4,8 @@ import io.questdb.cairo.ColumnType;
 import io.questdb.desktop.GTk;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.engine.functions.catalogue.Constants;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
 
 import javax.swing.*;
 import javax.swing.text.*;
@@ -13,9 +15,11 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 public class EditorHighlighter extends DocumentFilter {
 
@@ -45,10 +49,6 @@ public class EditorHighlighter extends DocumentFilter {
         GTk.Editor.NORMAL_FOREGROUND_COLOR.getRed(),
         GTk.Editor.NORMAL_FOREGROUND_COLOR.getGreen(),
         GTk.Editor.NORMAL_FOREGROUND_COLOR.getBlue());
-    private static final AttributeSet HIGHLIGHT_FIND_MATCH = styleForegroundColor(
-        GTk.Editor.MATCH_FOREGROUND_COLOR.getRed(),
-        GTk.Editor.MATCH_FOREGROUND_COLOR.getGreen(),
-        GTk.Editor.MATCH_FOREGROUND_COLOR.getBlue());
     private static final AttributeSet HIGHLIGHT_ERROR = styleForegroundColor(
         GTk.Editor.ERROR_FOREGROUND_COLOR.getRed(),
         GTk.Editor.ERROR_FOREGROUND_COLOR.getGreen(),
@@ -58,90 +58,45 @@ public class EditorHighlighter extends DocumentFilter {
             "\\+|\\-|\\*|/|%|:|;|&|\\||~|!|\\^|=|>|<|\\.|,|\\\\|\\(|\\)|\\[|\\]|\\{|\\}|'|\"",
             PATTERN_FLAGS
     );
-    private static final Pattern KEYWORDS_PATTERN;
-    private static final Pattern TYPES_PATTERN;
-    private static final Pattern FUNCTION_NAMES_PATTERN;
     private static final String ERROR_HEADER = "==========  ERROR  ==========\n";
     private static final Pattern ERROR_HEADER_PATTERN = Pattern.compile(ERROR_HEADER);
+    private static final Log LOG = LogFactory.getLog(EditorHighlighter.class);
 
-    static {
-        // static
-        final Set<String> staticSet = Set.of(
-            "&", "|", "^", "~", "[]",
-            "!=", "!~", "%", "*", "+",
-            "-", ".", "/", "<", "<=",
-            "<>", "<>all", "=", ">", ">=");
-
-        // function names
-        final Set<String> names = new TreeSet<>();
-        for (FunctionFactory factory : ServiceLoader.load(FunctionFactory.class, FunctionFactory.class.getClassLoader())) {
-            if (factory.getClass().getName().contains("test")) {
-                continue;
-            }
-            String signature = factory.getSignature();
-            String name = signature.substring(0, signature.indexOf('('));
-            if (staticSet.contains(name)) {
-                continue;
-            }
-            names.add(name);
-            // add != counterparts to equality function factories
-            if (factory.isBoolean()) {
-                switch (name) {
-                    case "=" -> {
-                        names.add("!=");
-                        names.add("<>");
-                    }
-                    case "<" -> {
-                        names.add("<=");
-                        names.add(">=");
-                        names.add(">");
-                    }
-                }
-            }
-        }
-        FUNCTION_NAMES_PATTERN = Pattern.compile(preCompileKeywords(names, true), PATTERN_FLAGS);
-
-        // keywords
-        names.clear();
-        try {
-            Field field = Constants.class.getDeclaredField("KEYWORDS");
-            field.setAccessible(true);
-            for (CharSequence keyword : (CharSequence[]) field.get(null)) {
-                names.add((String) keyword);
-            }
-            names.add("size");
-            names.add("txn");
-            names.add("cv");
-            KEYWORDS_PATTERN = Pattern.compile(preCompileKeywords(names, false), PATTERN_FLAGS);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-
-        // types
-        names.clear();
-        final Set<String> skipSet = Set.of(
-                "unknown", "regclass", "regprocedure", "VARARG", "text[]", "CURSOR", "RECORD", "PARAMETER"
-        );
-        for (int type = 1; type < ColumnType.MAX; type++) {
-            String name = ColumnType.nameOf(type);
-            if (!skipSet.contains(name)) {
-                names.add(name.toLowerCase());
-            }
-        }
-        TYPES_PATTERN = Pattern.compile(preCompileKeywords(names, false), PATTERN_FLAGS);
-    }
+    // function names, keywords and types are discovered from the QuestDB jar, which means
+    // class loading every FunctionFactory. This is costly and it penalises startup time, thus
+    // it happens in the background and highlighting is limited to static symbols and comments
+    // until the vocabulary is available.
+    private static final CompletableFuture<Vocabulary> VOCABULARY = CompletableFuture
+            .supplyAsync(Vocabulary::load)
+            .exceptionally(err -> {
+                LOG.error().$("Could not load vocabulary [e=").$(err.getMessage()).I$();
+                return null;
+            });
 
     protected final StyledDocument styledDocument;
     private final StringBuilder errorBuilder;
     private final int errorHeaderLen;
-    private final WeakHashMap<String, Pattern> findPatternCache;
+    private boolean isSuspended;
 
     protected EditorHighlighter(StyledDocument styledDocument) {
         this.styledDocument = Objects.requireNonNull(styledDocument);
-        findPatternCache = new WeakHashMap<>(5, 0.2f); // one at the time
         errorBuilder = new StringBuilder();
         errorBuilder.append("\n").append(ERROR_HEADER).append("\n");
         errorHeaderLen = errorBuilder.length();
+        if (!VOCABULARY.isDone()) {
+            VOCABULARY.thenRun(() -> GTk.invokeLater(this::handleTextChanged));
+        }
+    }
+
+    /**
+     * Starts loading the vocabulary (function names, keywords, types) in the background,
+     * if it is not already loading. Calling it early allows the load to overlap with the
+     * construction of the UI.
+     *
+     * @return a future that completes when the vocabulary is available
+     */
+    public static Future<?> preload() {
+        return VOCABULARY; // the class initialiser has submitted the load
     }
 
     public static EditorHighlighter of(JTextPane textPane) {
@@ -232,35 +187,44 @@ public class EditorHighlighter extends DocumentFilter {
         return errorBuilder.toString();
     }
 
-    public int handleTextChanged() {
-        return handleTextChanged(null, null);
+    /**
+     * Suspends/resumes highlighting. Bulk edits, such as replacing all matches, suspend it
+     * and highlight the text once when they are done, instead of once per edit.
+     *
+     * @param isSuspended whether text changes should be ignored
+     */
+    void setSuspended(boolean isSuspended) {
+        this.isSuspended = isSuspended;
     }
 
-    public int handleTextChanged(String findRegex, String replaceWith) {
+    public void handleTextChanged() {
         int len = styledDocument.getLength();
-        if (len > 0) {
+        if (len > 0 && !isSuspended) {
             String txt;
             try {
                 txt = styledDocument.getText(0, len);
             } catch (BadLocationException impossible) {
-                return 0;
+                return;
             }
             if (ERROR_HEADER_PATTERN.matcher(txt).find()) {
                 styledDocument.setCharacterAttributes(0, len, HIGHLIGHT_ERROR, true);
             } else {
                 styledDocument.setCharacterAttributes(0, len, HIGHLIGHT_NORMAL, true);
                 handleTextChanged(txt);
-                return applyFindReplace(findRegex, replaceWith, txt);
             }
         }
-        return 0;
     }
 
     protected void handleTextChanged(String txt) {
-        applyStyle(FUNCTION_NAMES_PATTERN.matcher(txt), HIGHLIGHT_FUNCTION);
+        Vocabulary vocabulary = VOCABULARY.getNow(null);
+        if (vocabulary != null) {
+            applyStyle(vocabulary.functionNames.matcher(txt), HIGHLIGHT_FUNCTION);
+        }
         applyStyleReplacing(STATIC_PATTERN.matcher(txt), HIGHLIGHT_STATIC);
-        applyStyleReplacing(KEYWORDS_PATTERN.matcher(txt), HIGHLIGHT_KEYWORD);
-        applyStyleReplacing(TYPES_PATTERN.matcher(txt), HIGHLIGHT_TYPE);
+        if (vocabulary != null) {
+            applyStyleReplacing(vocabulary.keywords.matcher(txt), HIGHLIGHT_KEYWORD);
+            applyStyleReplacing(vocabulary.types.matcher(txt), HIGHLIGHT_TYPE);
+        }
         applyStyleReplacing(COMMENT_PATTERN.matcher(txt), HIGHLIGHT_COMMENT);
     }
 
@@ -285,36 +249,88 @@ public class EditorHighlighter extends DocumentFilter {
         return matchCount;
     }
 
-    private int applyFindReplace(String findRegex, String replaceWith, String txt) {
-        if (findRegex != null && !findRegex.isBlank()) {
-            Pattern find = findPatternCache.get(findRegex);
-            if (find == null) {
-                try {
-                    find = Pattern.compile(findRegex, PATTERN_FLAGS);
-                    findPatternCache.put(findRegex, find);
-                } catch (PatternSyntaxException err) {
-                    JOptionPane.showMessageDialog(
-                        null,
-                        String.format("Not a valid regex: %s", findRegex)
-                    );
-                    return 0;
+    private static final class Vocabulary {
+        private final Pattern functionNames;
+        private final Pattern keywords;
+        private final Pattern types;
+
+        private Vocabulary(Pattern functionNames, Pattern keywords, Pattern types) {
+            this.functionNames = functionNames;
+            this.keywords = keywords;
+            this.types = types;
+        }
+
+        private static Vocabulary load() {
+            final long start = System.nanoTime();
+
+            // static
+            final Set<String> staticSet = Set.of(
+                "&", "|", "^", "~", "[]",
+                "!=", "!~", "%", "*", "+",
+                "-", ".", "/", "<", "<=",
+                "<>", "<>all", "=", ">", ">=");
+
+            // function names
+            final Set<String> names = new TreeSet<>();
+            for (FunctionFactory factory : ServiceLoader.load(FunctionFactory.class, FunctionFactory.class.getClassLoader())) {
+                if (factory.getClass().getName().contains("test")) {
+                    continue;
+                }
+                String signature = factory.getSignature();
+                String name = signature.substring(0, signature.indexOf('('));
+                if (staticSet.contains(name)) {
+                    continue;
+                }
+                names.add(name);
+                // add != counterparts to equality function factories
+                if (factory.isBoolean()) {
+                    switch (name) {
+                        case "=" -> {
+                            names.add("!=");
+                            names.add("<>");
+                        }
+                        case "<" -> {
+                            names.add("<=");
+                            names.add(">=");
+                            names.add(">");
+                        }
+                    }
                 }
             }
-            return replaceWith == null ?
-                applyStyleReplacing(find.matcher(txt), HIGHLIGHT_FIND_MATCH)
-                :
-                replaceAllWith(find.matcher(txt), replaceWith);
-        }
-        return 0;
-    }
+            Pattern functionNames = Pattern.compile(preCompileKeywords(names, true), PATTERN_FLAGS);
 
-    private int replaceAllWith(Matcher matcher, String replaceWith) {
-        int matchCount = 0;
-        while (matcher.find()) {
-            matchCount++;
+            // keywords
+            names.clear();
+            try {
+                Field field = Constants.class.getDeclaredField("KEYWORDS");
+                field.setAccessible(true);
+                for (CharSequence keyword : (CharSequence[]) field.get(null)) {
+                    names.add((String) keyword);
+                }
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            names.add("size");
+            names.add("txn");
+            names.add("cv");
+            Pattern keywords = Pattern.compile(preCompileKeywords(names, false), PATTERN_FLAGS);
+
+            // types
+            names.clear();
+            final Set<String> skipSet = Set.of(
+                    "unknown", "regclass", "regprocedure", "VARARG", "text[]", "CURSOR", "RECORD", "PARAMETER"
+            );
+            for (int type = 1; type < ColumnType.MAX; type++) {
+                String name = ColumnType.nameOf(type);
+                if (!skipSet.contains(name)) {
+                    names.add(name.toLowerCase());
+                }
+            }
+            Pattern types = Pattern.compile(preCompileKeywords(names, false), PATTERN_FLAGS);
+            LOG.info().$("Vocabulary loaded [millis=")
+                    .$(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .I$();
+            return new Vocabulary(functionNames, keywords, types);
         }
-        matcher.reset();
-        String ignore = matcher.replaceAll(replaceWith);
-        return matchCount;
     }
 }
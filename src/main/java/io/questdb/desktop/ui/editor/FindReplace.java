@@ -22,16 +22,7 @@ public class FindReplace extends JPanel implements EventProducer<FindReplace.Eve
 
     public FindReplace(EventConsumer<FindReplace, Object> eventConsumer) {
         this.eventConsumer = eventConsumer;
-        findText = new JTextField(20) {
-            @Override
-            public String getText() {
-                String txt = super.getText();
-                if (txt != null && !findTextIsRegex.isSelected()) {
-                    txt = SPECIAL_REGEX_CHARS.matcher(txt).replaceAll("\\\\$0");
-                }
-                return txt;
-            }
-        };
+        findText = new JTextField(20);
         setupSearchTextField(findText, this::fireFindEvent);
         findTextIsRegex = new JCheckBox("regex?", false);
         findTextIsRegex.setBackground(GTk.APP_BACKGROUND_COLOR);
@@ -60,6 +51,15 @@ public class FindReplace extends JPanel implements EventProducer<FindReplace.Eve
         setVisible(false);
     }
 
+    /**
+     * @param txt text to find
+     * @return true if the text contains characters with a special meaning in a regular
+     * expression, otherwise the text can be searched for literally
+     */
+    static boolean hasSpecialRegexChars(String txt) {
+        return SPECIAL_REGEX_CHARS.matcher(txt).find();
+    }
+
     public void updateMatches(int matches) {
         findMatchesLabel.setText(String.format(
                 "%4d %s",
@@ -76,6 +76,10 @@ public class FindReplace extends JPanel implements EventProducer<FindReplace.Eve
         return findText.getText();
     }
 
+    public boolean isRegex() {
+        return findTextIsRegex.isSelected();
+    }
+
     public String getReplace() {
         return replaceWithText.getText();
     }
@@ -90,6 +94,7 @@ public class FindReplace extends JPanel implements EventProducer<FindReplace.Eve
 
     private void onCloseFindReplaceView(ActionEvent event) {
         setVisible(false);
+        eventConsumer.onSourceEvent(this, EventType.CLOSE, null);
     }
 
     private void setupSearchTextField(JTextField field, ActionListener listener) {
@@ -151,6 +156,6 @@ public class FindReplace extends JPanel implements EventProducer<FindReplace.Eve
     }
 
     public enum EventType {
-        FIND, REPLACE
+        FIND, REPLACE, CLOSE
     }
 }
@@ -0,0 +1,212 @@
+package io.questdb.desktop.ui.editor;
+
+import io.questdb.desktop.GTk;
+
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Line numbers for a text component, meant to be the row header of the scroll pane
+ * that contains it. Only the lines within the clip are painted, the first one is found
+ * with a binary search over the document's root element. Edits that change the number
+ * of lines, or the height of the edited line (soft wrap), repaint the gutter from the
+ * first affected line down, other edits do not cause a repaint.
+ */
+class LineNumberGutter extends JComponent implements DocumentListener {
+    private static final int MIN_DIGITS = 5;
+    private static final int RIGHT_GAP = 10;
+
+    private final JTextComponent textPane;
+    private final char[] lineNo = new char[10];
+    private Document document;
+    private int digits;
+    private int width;
+
+    LineNumberGutter(JTextComponent textPane) {
+        this.textPane = textPane;
+        setOpaque(true);
+        setBackground(GTk.APP_BACKGROUND_COLOR);
+        setForeground(GTk.Editor.LINENO_COLOR);
+        setDocument(textPane.getDocument());
+        textPane.addPropertyChangeListener("document", this::onPropertyChange);
+        textPane.addPropertyChangeListener("font", this::onPropertyChange);
+        textPane.addPropertyChangeListener("margin", this::onPropertyChange);
+        textPane.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                revalidate();
+                repaint(); // lines may wrap differently
+            }
+        });
+        updateWidth();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(width, textPane.getHeight());
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        onLinesChanged(e);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        onLinesChanged(e);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // style changes do not move lines
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        Font font = textPane.getFont();
+        FontMetrics fm = g.getFontMetrics(font);
+        g.setFont(font);
+        g.setColor(getForeground());
+        Element root = document.getDefaultRootElement();
+        int clipEnd = clip.y + clip.height;
+        try {
+            for (int line = lineAt(root, clip.y), n = root.getElementCount(); line < n; line++) {
+                Rectangle2D bounds = textPane.modelToView2D(root.getElement(line).getStartOffset());
+                if (bounds == null || bounds.getY() > clipEnd) {
+                    break;
+                }
+                int len = formatLineNo(line + 1);
+                int x = width - fm.charsWidth(lineNo, lineNo.length - len, len) - RIGHT_GAP;
+                int y = (int) bounds.getY() + fm.getAscent();
+                g.drawChars(lineNo, lineNo.length - len, len, x, y);
+            }
+        } catch (BadLocationException ignore) {
+            // do nothing
+        }
+    }
+
+    // the text view resolves a point to an offset by scanning its children, whereas an offset
+    // to a point is resolved through the element index, thus the binary search by offset
+    private int lineAt(Element root, int y) throws BadLocationException {
+        int lo = 0;
+        int hi = root.getElementCount() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            Rectangle2D bounds = textPane.modelToView2D(root.getElement(mid).getStartOffset());
+            if (bounds == null) {
+                return 0;
+            }
+            if (bounds.getY() <= y) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private int formatLineNo(int n) {
+        int pos = lineNo.length;
+        do {
+            lineNo[--pos] = (char) ('0' + n % 10);
+            n /= 10;
+        } while (n > 0);
+        return lineNo.length - pos;
+    }
+
+    private void onPropertyChange(PropertyChangeEvent event) {
+        if ("document".equals(event.getPropertyName())) {
+            setDocument(textPane.getDocument());
+        }
+        updateWidth();
+        // once the text view has laid the lines out again
+        SwingUtilities.invokeLater(this::repaint);
+    }
+
+    private void setDocument(Document newDocument) {
+        if (document != null) {
+            document.removeDocumentListener(this);
+        }
+        document = newDocument;
+        document.addDocumentListener(this);
+    }
+
+    private void onLinesChanged(DocumentEvent e) {
+        Element root = document.getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int firstLine;
+        double nextLineY;
+        if (change != null) {
+            firstLine = change.getIndex();
+            nextLineY = Double.NaN;
+        } else {
+            // same number of lines, the lines below move if the edited line's height changes.
+            // The text view has not seen the event yet (listeners are notified last added
+            // first), thus this is the position of the next line before the edit
+            firstLine = root.getElementIndex(e.getOffset());
+            nextLineY = lineY(root, firstLine + 1);
+            if (Double.isNaN(nextLineY)) {
+                return; // the last line
+            }
+        }
+        // the text view updates its layout with the same event, the
+        // position of the line is only known after it has done so
+        SwingUtilities.invokeLater(() -> {
+            if (!Double.isNaN(nextLineY) && lineY(document.getDefaultRootElement(), firstLine + 1) == nextLineY) {
+                return;
+            }
+            updateWidth();
+            Element lines = document.getDefaultRootElement();
+            int y = 0;
+            if (firstLine < lines.getElementCount()) {
+                try {
+                    Rectangle2D bounds = textPane.modelToView2D(lines.getElement(firstLine).getStartOffset());
+                    if (bounds != null) {
+                        y = (int) bounds.getY();
+                    }
+                } catch (BadLocationException ignore) {
+                    // repaint it all
+                }
+            }
+            repaint(0, y, width, Math.max(0, getHeight() - y));
+        });
+    }
+
+    // NaN when there is no such line
+    private double lineY(Element root, int line) {
+        if (line >= root.getElementCount()) {
+            return Double.NaN;
+        }
+        try {
+            Rectangle2D bounds = textPane.modelToView2D(root.getElement(line).getStartOffset());
+            return bounds != null ? bounds.getY() : Double.NaN;
+        } catch (BadLocationException e) {
+            return Double.NaN;
+        }
+    }
+
+    private void updateWidth() {
+        int lineCount = document.getDefaultRootElement().getElementCount();
+        int newDigits = Math.max(MIN_DIGITS, String.valueOf(lineCount).length());
+        FontMetrics fm = textPane.getFontMetrics(textPane.getFont());
+        int newWidth = fm.charWidth('9') * newDigits + fm.charWidth(':') * 2 + RIGHT_GAP;
+        if (newDigits != digits || newWidth != width) {
+            digits = newDigits;
+            width = newWidth;
+            revalidate();
+        }
+    }
+}
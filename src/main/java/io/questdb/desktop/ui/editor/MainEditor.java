@@ -4,11 +4,11 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.Closeable;
 import java.io.File;
-import java.util.List;
-import java.util.ArrayList;
 import java.util.function.Supplier;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.undo.UndoManager;
@@ -30,26 +30,39 @@ import static io.questdb.desktop.GTk.label;
 
 public class MainEditor extends Editor implements EventProducer<MainEditor.EventType>, Closeable {
 
+    public static final String STORE_FILE_NAME = "default-notebook.json";
     private static final int COMPONENT_HEIGHT = 33;
-    private static final String STORE_FILE_NAME = "default-notebook.json";
+    private static final int AUTOSAVE_DELAY_MILLIS = 2000; // since the last keystroke
+    private static final int RESIDENT_QUESTS = 16; // the rest are read from file when selected
     private final EventConsumer<MainEditor, SQLExecutionRequest> eventConsumer;
     private final JComboBox<String> questEntryNames;
-    private final List<UndoManager> undoManagers;
+    private final UndoManager undoManager; // edits are discarded when the quest changes
     private final JLabel questLabel;
     private final JLabel connLabel;
     private final JLabel fontSizeLabel;
     private final JSlider fontSizeSlider;
     private final FindReplace findPanel;
     private final JMenu questsMenu;
+    private final Timer autosave;
+    private final QuestIndex questIndex;
+    private QuestSearch questSearch; // created when first used
     private Store<Content> store;
     private DbConn conn; // uses it when set
     private SQLExecutionRequest lastRequest;
     private Content content;
+    private boolean isQuestDirty; // the text has been edited since it was last set/saved
 
     public MainEditor(EventConsumer<MainEditor, SQLExecutionRequest> eventConsumer) {
         super();
         this.eventConsumer = eventConsumer;
-        undoManagers = new ArrayList<>(5);
+        undoManager = new UndoManager() {
+            @Override
+            public void undoableEditHappened(UndoableEditEvent e) {
+                if (!EditorHighlighter.EVENT_TYPE.equals(e.getEdit().getPresentationName())) {
+                    super.undoableEditHappened(e);
+                }
+            }
+        };
         questEntryNames = new JComboBox<>();
         questEntryNames.setFont(GTk.TABLE_CELL_FONT);
         questEntryNames.setBackground(GTk.APP_BACKGROUND_COLOR);
@@ -102,6 +115,7 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
             switch ((FindReplace.EventType) EventProducer.eventType(event)) {
                 case FIND -> onFind();
                 case REPLACE -> onReplace();
+                case CLOSE -> clearFindMatches();
             }
         });
         setFontSize(GTk.Editor.DEFAULT_FONT_SIZE);
@@ -111,6 +125,25 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
         topPanel.add(questsPanel, BorderLayout.WEST);
         topPanel.add(findPanel, BorderLayout.SOUTH);
         add(topPanel, BorderLayout.NORTH);
+        autosave = new Timer(AUTOSAVE_DELAY_MILLIS, this::onSaveQuest);
+        autosave.setRepeats(false);
+        questIndex = new QuestIndex();
+        textPane.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                onQuestEdited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                onQuestEdited();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // style changes
+            }
+        });
         loadStoreEntries(STORE_FILE_NAME);
         refreshConnLabel();
     }
@@ -166,11 +199,11 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
     }
 
     public void onFind() {
-        onFindReplace(() -> highlightContent(findPanel.getFind()));
+        onFindReplace(() -> highlightContent(findPanel.getFind(), findPanel.isRegex()));
     }
 
     public void onReplace() {
-        onFindReplace(() -> replaceContent(findPanel.getFind(), findPanel.getReplace()));
+        onFindReplace(() -> replaceContent(findPanel.getFind(), findPanel.isRegex(), findPanel.getReplace()));
     }
 
     @Override
@@ -180,10 +213,11 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
 
     @Override
     public void close() {
-        undoManagers.clear();
+        autosave.stop();
+        undoManager.discardAllEdits();
         refreshQuest();
-        store.saveToFile();
-        store.close();
+        store.close(); // saves
+        questIndex.close();
     }
 
     private String getCommand() {
@@ -192,6 +226,11 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
     }
 
     private void loadStoreEntries(String fileName) {
+        if (store != null) {
+            refreshQuest();
+            store.close(); // saves
+            content = null;
+        }
         store = new Store<>(fileName, Content.class) {
             @Override
             public Content[] defaultStoreEntries() {
@@ -200,19 +239,10 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
                 return new Content[]{new Content(), keyboardShortcuts,};
             }
         };
+        store.setResidentLimit(RESIDENT_QUESTS);
+        store.setSaveListener(questIndex);
         store.loadFromFile();
         questLabel.setToolTipText(String.format("notebook: %s", fileName));
-        undoManagers.clear();
-        for (int idx = 0; idx < store.size(); idx++) {
-            undoManagers.add(new UndoManager() {
-                @Override
-                public void undoableEditHappened(UndoableEditEvent e) {
-                    if (!EditorHighlighter.EVENT_TYPE.equals(e.getEdit().getPresentationName())) {
-                        super.undoableEditHappened(e);
-                    }
-                }
-            });
-        }
         refreshQuestEntryNames(0);
     }
 
@@ -232,8 +262,9 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
                 store.asyncSaveToFile();
             }
             content = store.getEntry(idx, Content::new);
-            textPane.setText(content.getContent());
-            setUndoManager(undoManagers.get(idx));
+            clearFindMatches();
+            setQuestText(content.getContent());
+            setUndoManager(undoManager);
         }
     }
 
@@ -248,14 +279,6 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
         }
         store.addEntry(new Content(entryName));
         questEntryNames.addItem(entryName);
-        undoManagers.add(new UndoManager() {
-            @Override
-            public void undoableEditHappened(UndoableEditEvent e) {
-                if (!EditorHighlighter.EVENT_TYPE.equals(e.getEdit().getPresentationName())) {
-                    super.undoableEditHappened(e);
-                }
-            }
-        });
         questEntryNames.setSelectedItem(entryName);
     }
 
@@ -271,7 +294,6 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
                 store.removeEntry(idx);
                 content = null;
                 questEntryNames.removeItemAt(idx);
-                undoManagers.remove(idx);
                 questEntryNames.setSelectedIndex(idx - 1);
             }
         }
@@ -288,6 +310,7 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
                     JOptionPane.QUESTION_MESSAGE);
             if (newName != null && !newName.isBlank() && !newName.equals(currentName)) {
                 store.getEntry(idx, null).setName(newName);
+                store.asyncSaveToFile();
                 refreshQuestEntryNames(idx);
             }
         }
@@ -310,6 +333,9 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
                         store.saveToFile(selectedFile);
                     }
                 }
+                if (Store.ROOT_PATH.equals(selectedFile.getParentFile())) {
+                    questIndex.addNotebook(selectedFile.getName());
+                }
             } catch (Throwable t) {
                 JOptionPane.showMessageDialog(
                         this,
@@ -353,12 +379,30 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
         }
     }
 
+    private void onSearchQuests(ActionEvent event) {
+        if (questSearch == null) {
+            questSearch = new QuestSearch(SwingUtilities.getWindowAncestor(this), questIndex, this::onSearchHit);
+        }
+        questSearch.open();
+    }
+
+    private void onSearchHit(QuestIndex.Hit hit) {
+        if (!hit.notebook().equals(store.getFileName())) {
+            loadStoreEntries(hit.notebook());
+        }
+        int idx = store.indexOfId(hit.id());
+        if (idx >= 0) {
+            questEntryNames.setSelectedIndex(idx);
+        }
+        textPane.requestFocusInWindow();
+    }
+
     private void onClearQuest(ActionEvent event) {
         textPane.setText("");
     }
 
     private void onReloadQuest(ActionEvent event) {
-        textPane.setText(content.getContent());
+        setQuestText(content.getContent());
     }
 
     private void onSaveQuest(ActionEvent event) {
@@ -367,10 +411,24 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
         }
     }
 
+    private void onQuestEdited() {
+        isQuestDirty = true;
+        autosave.restart();
+    }
+
+    private void setQuestText(String text) {
+        textPane.setText(text);
+        isQuestDirty = false;
+        autosave.stop();
+    }
+
     private boolean refreshQuest() {
+        if (!isQuestDirty || content == null) {
+            return false;
+        }
+        isQuestDirty = false;
         String text = getText();
-        String currentContent = content != null ? content.getContent() : null;
-        if (currentContent != null && !currentContent.equals(text)) {
+        if (!text.equals(content.getContent())) {
             content.setContent(text);
             return true;
         }
@@ -428,6 +486,7 @@ public class MainEditor extends Editor implements EventProducer<MainEditor.Event
         questsMenu.addSeparator();
         questsMenu.add(menuItem(Icon.COMMAND_STORE_LOAD, "Read from notebook", this::onLoadQuestsFromBackup));
         questsMenu.add(menuItem(Icon.COMMAND_STORE_BACKUP, "Write to new notebook", this::onBackupQuests));
+        questsMenu.add(menuItem(Icon.COMMAND_FIND, "Search all notebooks", KeyEvent.VK_G, this::onSearchQuests));
         questsMenu.addSeparator();
         questsMenu.add(fontSizeLabel);
         questsMenu.add(fontSizeSlider);
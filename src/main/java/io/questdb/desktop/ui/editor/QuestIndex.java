@@ -0,0 +1,361 @@
+package io.questdb.desktop.ui.editor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.questdb.desktop.GTk;
+import io.questdb.desktop.model.Store;
+import io.questdb.desktop.model.StoreEntry;
+import io.questdb.desktop.ui.connectivity.Conns;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+
+
+/**
+ * Inverted index over the quests (name and content) of all the notebooks in {@link Store#ROOT_PATH}.
+ * <p>
+ * Tokens are runs of letters, digits and underscores, lower-cased, kept in a sorted map
+ * to the ids of the quests that contain them, which resolves a token, or a prefix, with a
+ * single lookup. Queries union the ids of the tokens matching each prefix, and intersect
+ * the results, in bit sets. Each notebook has its own map, a shard. The index is built by
+ * reading all the notebooks in the background the first time it is needed, then kept
+ * up-to-date by listening to the saves of the open notebook. Shards of the notebooks read
+ * are built outside the index's lock, then swapped in, thus searches, on the EDT, do not
+ * wait for them. Saves take precedence over the notebooks read, which may be older.
+ */
+final class QuestIndex implements Store.SaveListener, Closeable {
+    private static final Log LOG = LogFactory.getLog(QuestIndex.class);
+    private static final String CONTENT_ATTR = "content";
+    private static final int MAX_TOKEN_LEN = 64; // longer runs are not searched for
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparing(Hit::notebook).thenComparing(Hit::name);
+
+    private final Map<String, Shard> shards = new HashMap<>(); // by notebook, guarded by 'this'
+    private final Set<Quest> removed = new HashSet<>(); // by a save, the notebooks read may still have them
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.setName("QuestIndex");
+        return thread;
+    });
+    private CompletableFuture<Void> build; // guarded by 'this'
+
+    /**
+     * Starts reading all the notebooks in the background, only the first time it is called.
+     *
+     * @return completes when all the notebooks have been read
+     */
+    synchronized CompletableFuture<Void> build() {
+        if (build == null) {
+            build = CompletableFuture.runAsync(this::readNotebooks, indexer);
+        }
+        return build;
+    }
+
+    /**
+     * Indexes a notebook that was written outside the open notebook's saves.
+     *
+     * @param notebook name of the notebook, relative to {@link Store#ROOT_PATH}
+     */
+    void addNotebook(String notebook) {
+        indexer.execute(() -> readNotebook(notebook, true));
+    }
+
+    @Override
+    public void onSave(String fileName, Map<Integer, StoreEntry> saved, Set<Integer> removedIds) {
+        // tokenized outside the lock
+        List<Doc> docs = new ArrayList<>(saved.size());
+        for (Map.Entry<Integer, StoreEntry> e : saved.entrySet()) {
+            docs.add(Doc.of(e.getKey(), e.getValue()));
+        }
+        synchronized (this) {
+            Shard shard = shards.computeIfAbsent(fileName, Shard::new);
+            for (int i = 0, n = docs.size(); i < n; i++) {
+                Doc doc = docs.get(i);
+                removed.remove(new Quest(fileName, doc.id));
+                shard.put(doc);
+            }
+            for (Integer id : removedIds) {
+                removed.add(new Quest(fileName, id));
+                shard.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Quests containing all the tokens of the query, each token matching as a prefix.
+     *
+     * @param query text to find
+     * @param limit maximum number of hits
+     * @return the first hits, ordered by notebook and name
+     */
+    List<Hit> search(String query, int limit) {
+        Set<String> tokens = tokenize(query, null);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // the first hits in order, the last of them on top
+        PriorityQueue<Hit> first = new PriorityQueue<>(HIT_ORDER.reversed());
+        synchronized (this) {
+            for (Shard shard : shards.values()) {
+                shard.search(tokens, limit, first);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(first);
+        hits.sort(HIT_ORDER);
+        return hits;
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Shard shard : shards.values()) {
+            size += shard.docIds.size();
+        }
+        return size;
+    }
+
+    private synchronized int tokenCount() {
+        int count = 0;
+        for (Shard shard : shards.values()) {
+            count += shard.postings.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        GTk.shutdownExecutor(indexer);
+    }
+
+    private void readNotebooks() {
+        long start = System.nanoTime();
+        int count = 0;
+        for (String notebook : Store.storeNames()) {
+            if (!notebook.equals(Conns.STORE_FILE_NAME)) {
+                readNotebook(notebook, false);
+                count++;
+            }
+        }
+        LOG.info().$("Quests indexed [notebooks=").$(count)
+                .$(", quests=").$(size())
+                .$(", tokens=").$(tokenCount())
+                .$(", millis=").$((System.nanoTime() - start) / 1_000_000L)
+                .I$();
+    }
+
+    private void readNotebook(String notebook, boolean isRewritten) {
+        Shard read = new Shard(notebook);
+        try {
+            Store.readEntries(notebook, (id, entry) -> read.put(Doc.of(id, entry)));
+        } catch (RuntimeException e) {
+            LOG.error().$("Could not index [notebook=").$(notebook).$(", e=").$(e.getMessage()).I$();
+            return;
+        }
+        synchronized (this) {
+            if (isRewritten) {
+                // what was indexed for it is stale
+                removed.removeIf(quest -> quest.notebook.equals(notebook));
+            } else {
+                // saved while it was read, or before
+                Shard current = shards.get(notebook);
+                if (current != null) {
+                    for (int i = 0, n = current.docs.size(); i < n; i++) {
+                        Doc doc = current.docs.get(i);
+                        if (doc != null) {
+                            read.put(doc);
+                        }
+                    }
+                }
+                for (Quest quest : removed) {
+                    if (quest.notebook.equals(notebook)) {
+                        read.remove(quest.id);
+                    }
+                }
+            }
+            shards.put(notebook, read);
+        }
+    }
+
+    private static Set<String> tokenize(String text, Set<String> tokens) {
+        if (tokens == null) {
+            tokens = new HashSet<>();
+        }
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder sink = new StringBuilder(MAX_TOKEN_LEN);
+        boolean isTooLong = false;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                if (sink.length() < MAX_TOKEN_LEN) {
+                    sink.append(Character.toLowerCase(c));
+                } else {
+                    isTooLong = true;
+                }
+            } else if (!sink.isEmpty()) {
+                if (!isTooLong) {
+                    tokens.add(sink.toString());
+                }
+                sink.setLength(0);
+                isTooLong = false;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A quest containing the text searched for.
+     *
+     * @param notebook name of the notebook, relative to {@link Store#ROOT_PATH}
+     * @param id       id of the quest within the notebook, see {@link Store#indexOfId(int)}
+     * @param name     name of the quest
+     */
+    record Hit(String notebook, int id, String name) {
+        @Override
+        public String toString() {
+            return name + "  [" + notebook + "]";
+        }
+    }
+
+    private record Quest(String notebook, int id) {
+    }
+
+    // a quest and its tokens, tokens is null when the entry is not a quest
+    private record Doc(int id, String name, String[] tokens) {
+        private static Doc of(int id, StoreEntry entry) {
+            String content = entry.getAttr(CONTENT_ATTR);
+            if (content == null) {
+                return new Doc(id, entry.getName(), null);
+            }
+            Set<String> tokens = tokenize(content, tokenize(entry.getName(), null));
+            return new Doc(id, entry.getName(), tokens.toArray(new String[0]));
+        }
+    }
+
+    // the quests of a notebook, guarded by the index's lock once swapped in
+    private static final class Shard {
+        private final String notebook;
+        private final TreeMap<String, Posting> postings = new TreeMap<>();
+        private final Map<Integer, Integer> docIds = new HashMap<>(); // by quest id
+        private final List<Doc> docs = new ArrayList<>(); // by doc id, null when free
+        private final BitSet freeDocIds = new BitSet();
+
+        private Shard(String notebook) {
+            this.notebook = notebook;
+        }
+
+        private void put(Doc doc) {
+            remove(doc.id);
+            if (doc.tokens == null) {
+                return; // not a quest
+            }
+            int docId = freeDocIds.nextSetBit(0);
+            if (docId >= 0) {
+                freeDocIds.clear(docId);
+            } else {
+                docId = docs.size();
+                docs.add(null);
+            }
+            String[] tokens = doc.tokens;
+            for (int i = 0; i < tokens.length; i++) {
+                String token = tokens[i];
+                Map.Entry<String, Posting> posting = postings.ceilingEntry(token);
+                if (posting == null || !posting.getKey().equals(token)) {
+                    postings.put(token, new Posting());
+                    posting = postings.ceilingEntry(token);
+                }
+                posting.getValue().add(docId);
+                tokens[i] = posting.getKey(); // shares the key's instance
+            }
+            docs.set(docId, doc);
+            docIds.put(doc.id, docId);
+        }
+
+        private void remove(int id) {
+            Integer docId = docIds.remove(id);
+            if (docId != null) {
+                for (String token : docs.get(docId).tokens) {
+                    Posting posting = postings.get(token);
+                    if (posting != null && posting.remove(docId) && posting.size == 0) {
+                        postings.remove(token);
+                    }
+                }
+                docs.set(docId, null);
+                freeDocIds.set(docId);
+            }
+        }
+
+        // adds the hits to first, keeping the first limit of them
+        private void search(Set<String> tokens, int limit, PriorityQueue<Hit> first) {
+            BitSet matches = null;
+            for (String token : tokens) {
+                BitSet tokenMatches = prefixMatches(token);
+                if (matches == null) {
+                    matches = tokenMatches;
+                } else {
+                    matches.and(tokenMatches);
+                }
+                if (matches.isEmpty()) {
+                    return;
+                }
+            }
+            for (int docId = matches.nextSetBit(0); docId >= 0; docId = matches.nextSetBit(docId + 1)) {
+                Doc doc = docs.get(docId);
+                Hit hit = new Hit(notebook, doc.id, doc.name);
+                if (first.size() < limit) {
+                    first.add(hit);
+                } else if (HIT_ORDER.compare(hit, first.peek()) < 0) {
+                    first.poll();
+                    first.add(hit);
+                }
+            }
+        }
+
+        private BitSet prefixMatches(String prefix) {
+            BitSet matches = new BitSet(docs.size());
+            for (Posting posting : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                for (int i = 0; i < posting.size; i++) {
+                    matches.set(posting.docIds[i]);
+                }
+            }
+            return matches;
+        }
+    }
+
+    // ids of the quests containing a token, unordered
+    private static final class Posting {
+        private int[] docIds = new int[2];
+        private int size;
+
+        private void add(int docId) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+            }
+            docIds[size++] = docId;
+        }
+
+        private boolean remove(int docId) {
+            for (int i = 0; i < size; i++) {
+                if (docIds[i] == docId) {
+                    docIds[i] = docIds[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.questdb.desktop.ui.editor;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import io.questdb.desktop.GTk;
+
+
+/**
+ * Searches the quests of all the notebooks, see {@link QuestIndex}. Hits are listed as
+ * the query is typed, selecting one (enter, double click) jumps to it.
+ */
+class QuestSearch extends JDialog {
+    private static final int MAX_HITS = 500;
+    private static final Color SEARCH_FONT_COLOR = new Color(58, 138, 138);
+
+    private final QuestIndex index;
+    private final Consumer<QuestIndex.Hit> onSelect;
+    private final JTextField queryText;
+    private final DefaultListModel<QuestIndex.Hit> hits;
+    private final JList<QuestIndex.Hit> hitList;
+    private final JLabel statusLabel;
+
+    QuestSearch(Window owner, QuestIndex index, Consumer<QuestIndex.Hit> onSelect) {
+        super(owner, "Search quests in all notebooks");
+        this.index = index;
+        this.onSelect = onSelect;
+        GTk.configureDialog(this, 0.4F, 0.5F, () -> setVisible(false));
+        queryText = new JTextField(40);
+        queryText.setFont(GTk.TABLE_HEADER_FONT);
+        queryText.setBackground(GTk.APP_BACKGROUND_COLOR);
+        queryText.setForeground(SEARCH_FONT_COLOR);
+        queryText.setCaretColor(Color.CYAN);
+        queryText.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // style changes
+            }
+        });
+        queryText.addActionListener(this::onQueryEnter);
+        queryText.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_DOWN && !hits.isEmpty()) {
+                    hitList.setSelectedIndex(0);
+                    hitList.requestFocusInWindow();
+                }
+            }
+        });
+        hits = new DefaultListModel<>();
+        hitList = new JList<>(hits);
+        hitList.setFont(GTk.TABLE_CELL_FONT);
+        hitList.setBackground(GTk.APP_BACKGROUND_COLOR);
+        hitList.setForeground(GTk.Editor.MENU_FOREGROUND_COLOR);
+        hitList.setSelectionBackground(GTk.Editor.MATCH_FOREGROUND_COLOR);
+        hitList.setSelectionForeground(GTk.APP_BACKGROUND_COLOR);
+        hitList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        hitList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    selectHit(hitList.locationToIndex(e.getPoint()));
+                }
+            }
+        });
+        hitList.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    selectHit(hitList.getSelectedIndex());
+                }
+            }
+        });
+        statusLabel = GTk.label("", SEARCH_FONT_COLOR);
+        getRootPane().registerKeyboardAction(
+                e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+        JScrollPane scrollPane = new JScrollPane(hitList);
+        scrollPane.getViewport().setBackground(GTk.APP_BACKGROUND_COLOR);
+        JPanel contentPane = new JPanel(new BorderLayout(0, 4));
+        contentPane.setBackground(GTk.APP_BACKGROUND_COLOR);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        contentPane.add(queryText, BorderLayout.NORTH);
+        contentPane.add(scrollPane, BorderLayout.CENTER);
+        contentPane.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(contentPane);
+    }
+
+    /**
+     * Shows the dialog, the first time it also starts building the index.
+     */
+    void open() {
+        if (!isVisible()) {
+            Dimension location = GTk.frameLocation(getSize());
+            setLocation(location.width, location.height);
+        }
+        statusLabel.setText("indexing notebooks...");
+        index.build().whenComplete((ignore, err) -> GTk.invokeLater(this::search));
+        setVisible(true);
+        queryText.selectAll();
+        queryText.requestFocusInWindow();
+    }
+
+    private void search() {
+        long start = System.nanoTime();
+        List<QuestIndex.Hit> found = index.search(queryText.getText(), MAX_HITS);
+        long micros = (System.nanoTime() - start) / 1_000L;
+        hits.clear();
+        hits.addAll(found);
+        statusLabel.setText(String.format(
+                "%d %s [%d quests indexed, %.3f ms]",
+                found.size(),
+                found.size() == 1 ? "hit" : "hits",
+                index.size(),
+                micros / 1000.0));
+    }
+
+    private void onQueryEnter(ActionEvent event) {
+        int idx = hitList.getSelectedIndex();
+        selectHit(idx >= 0 ? idx : 0);
+    }
+
+    private void selectHit(int idx) {
+        if (idx >= 0 && idx < hits.size()) {
+            setVisible(false);
+            onSelect.accept(hits.get(idx));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.questdb.desktop.ui.editor;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.text.BadLocationException;
+
+/**
+ * Case-insensitive search engine used by find/replace.
+ * <p>
+ * When the text to find is not a regular expression, or it is one without special
+ * characters, the search is literal (Boyer-Moore-Horspool over case-folded chars),
+ * otherwise it is delegated to a {@link Pattern} compiled once per finder. Regular
+ * expressions support group references in the replacement, as in
+ * {@link Matcher#appendReplacement(StringBuilder, String)}, also when searched for
+ * literally, while the replacement of text that is not a regular expression is literal.
+ */
+final class TextFinder {
+    private final String find;
+    private final boolean isRegex;
+    private final Pattern pattern; // null when the search is literal
+    private final char[] needle;
+    private final int[] shifts;
+    private Matcher matcher;
+    private int start = -1;
+    private int end = -1;
+
+    private TextFinder(String find, boolean isRegex, Pattern pattern) {
+        this.find = find;
+        this.isRegex = isRegex;
+        this.pattern = pattern;
+        if (pattern == null) {
+            int len = find.length();
+            needle = new char[len];
+            shifts = new int[256];
+            for (int i = 0; i < len; i++) {
+                needle[i] = fold(find.charAt(i));
+            }
+            Arrays.fill(shifts, len);
+            for (int i = 0; i < len - 1; i++) {
+                // chars colliding in the table keep the smallest shift
+                shifts[needle[i] & 0xFF] = len - 1 - i;
+            }
+        } else {
+            needle = null;
+            shifts = null;
+        }
+    }
+
+    /**
+     * @param find    text to find, not empty
+     * @param isRegex whether the text is a regular expression
+     * @return a finder
+     * @throws java.util.regex.PatternSyntaxException when the regular expression is not valid
+     */
+    static TextFinder of(String find, boolean isRegex) {
+        if (find == null || find.isEmpty()) {
+            throw new IllegalArgumentException("find cannot be null or empty");
+        }
+        boolean isLiteral = !isRegex || !FindReplace.hasSpecialRegexChars(find);
+        return new TextFinder(find, isRegex, isLiteral ? null : Pattern.compile(find, EditorHighlighter.PATTERN_FLAGS));
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    boolean isFor(String find, boolean isRegex) {
+        return this.isRegex == isRegex && this.find.equals(find);
+    }
+
+    /**
+     * Finds the next match at, or after, the given offset.
+     *
+     * @param text text to search
+     * @param from offset where the search starts
+     * @return true if there is a match, its bounds are then available through start() and end()
+     */
+    boolean find(CharSequence text, int from) {
+        if (pattern != null) {
+            if (matcher == null) {
+                matcher = pattern.matcher(text);
+            } else {
+                matcher.reset(text);
+            }
+            if (from <= text.length() && matcher.find(from)) {
+                start = matcher.start();
+                end = matcher.end();
+                return true;
+            }
+        } else {
+            int idx = indexOf(text, from);
+            if (idx != -1) {
+                start = idx;
+                end = idx + needle.length;
+                return true;
+            }
+        }
+        start = end = -1;
+        return false;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    /**
+     * Replaces all the matches in the text, front to back. Offsets passed to the replacer
+     * refer to the original text, callers applying the replacements to a mutable copy of
+     * the text are responsible for shifting them by the accumulated length difference.
+     *
+     * @param text        text to search
+     * @param replaceWith replacement
+     * @param replacer    receives each match and its replacement
+     * @return number of replacements
+     * @throws BadLocationException      when the replacer does
+     * @throws IllegalArgumentException  when the replacement of a regular expression is not
+     *                                   valid, as in {@link Matcher#appendReplacement}
+     * @throws IndexOutOfBoundsException when it refers to a group that does not exist
+     */
+    int replaceAll(CharSequence text, String replaceWith, Replacer replacer) throws BadLocationException {
+        int count = 0;
+        if (pattern != null) {
+            Matcher m = pattern.matcher(text);
+            StringBuilder sb = new StringBuilder();
+            int lastEnd = 0;
+            while (m.find()) {
+                // appendReplacement appends the text in between matches, then the replacement
+                int prefixLen = sb.length() + m.start() - lastEnd;
+                m.appendReplacement(sb, replaceWith);
+                replacer.replace(m.start(), m.end(), sb.substring(prefixLen));
+                lastEnd = m.end();
+                sb.setLength(0);
+                count++;
+            }
+        } else {
+            // a regular expression without special characters has group 0 alone
+            Matcher expander = isRegex && (replaceWith.indexOf('$') >= 0 || replaceWith.indexOf('\\') >= 0)
+                    ? Pattern.compile(Pattern.quote(find), EditorHighlighter.PATTERN_FLAGS).matcher("")
+                    : null;
+            StringBuilder sb = expander != null ? new StringBuilder() : null;
+            int from = 0;
+            int idx;
+            while ((idx = indexOf(text, from)) != -1) {
+                int end = idx + needle.length;
+                String replacement = replaceWith;
+                if (expander != null) {
+                    expander.reset(text.subSequence(idx, end));
+                    if (!expander.matches()) {
+                        throw new IllegalStateException("literal match: " + text.subSequence(idx, end));
+                    }
+                    sb.setLength(0);
+                    expander.appendReplacement(sb, replaceWith);
+                    replacement = sb.toString();
+                }
+                replacer.replace(idx, end, replacement);
+                from = end;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int indexOf(CharSequence text, int from) {
+        int m = needle.length;
+        int last = m - 1;
+        int limit = text.length() - m;
+        int i = Math.max(from, 0);
+        while (i <= limit) {
+            int j = last;
+            while (fold(text.charAt(i + j)) == needle[j]) {
+                if (j == 0) {
+                    return i;
+                }
+                j--;
+            }
+            i += shifts[fold(text.charAt(i + last)) & 0xFF];
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    interface Replacer {
+        void replace(int start, int end, String replacement) throws BadLocationException;
+    }
+}
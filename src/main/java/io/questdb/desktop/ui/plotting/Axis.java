@@ -22,106 +22,267 @@
  *
  ******************************************************************************/
 
+
 package io.questdb.desktop.ui.plotting;
 
 
 import java.awt.*;
-import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.TimeZone;
 
+/**
+ * Ticks of an axis and their labels. The layout is cached, and laid out again only when
+ * the range, the scale, the font, or whether values are timestamps, change. Labels are
+ * formatted into a reused {@link LabelBuffer}, and drawn from it, thus axes allocate
+ * neither on repaints, nor on layouts with the same font.
+ * <p>
+ * Numeric axes tick at multiples of a tenth, or a fifteenth, of the range. Time axes, of
+ * epoch millis, tick at the first of a set of round steps, from a millisecond to two
+ * weeks, then months to a century, giving at most {@link #X_RANGE_NUMBER_OF_TIME_TICKS}
+ * ticks, each aligned to the step in local time, through daylight saving time changes,
+ * months on their first day, and are labelled with the fields the step calls for.
+ */
 public class Axis {
     public static final int TICK_LENGTH = 10;
     private static final int X_RANGE_NUMBER_OF_TICKS = 15;
+    private static final int X_RANGE_NUMBER_OF_TIME_TICKS = 8;
     private static final int Y_RANGE_NUMBER_OF_TICKS = 10;
     private static final int X_AXIS_SIGNIFICANT_FIGURES = 3;
     private static final int Y_AXIS_SIGNIFICANT_FIGURES = 3;
-    private static final String X_TPT = String.format("%%.%df", X_AXIS_SIGNIFICANT_FIGURES);
-    private static final String Y_TPT = String.format("%%.%df", Y_AXIS_SIGNIFICANT_FIGURES);
+    private static final String ZERO_LABEL = "0.000";
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60L * SECOND;
+    private static final long HOUR = 60L * MINUTE;
+    private static final long DAY = 24L * HOUR;
+    private static final long[] TIME_STEPS = {
+            1L, 2L, 5L, 10L, 20L, 50L, 100L, 200L, 500L,
+            SECOND, 2L * SECOND, 5L * SECOND, 10L * SECOND, 15L * SECOND, 30L * SECOND,
+            MINUTE, 2L * MINUTE, 5L * MINUTE, 10L * MINUTE, 15L * MINUTE, 30L * MINUTE,
+            HOUR, 2L * HOUR, 3L * HOUR, 6L * HOUR, 12L * HOUR,
+            DAY, 2L * DAY, 7L * DAY, 14L * DAY
+    };
+    private static final long AVG_MONTH = 2_629_746_000L; // of the gregorian calendar
+    private static final int[] MONTH_STEPS = {1, 2, 3, 6, 12, 24, 60, 120, 240, 600, 1200};
 
-    private final String labelZero;
-    private final String[] labels;
-    private final int[] labelWidths;
-    private final int[] labelHeights;
-    private final int[] labelPositions;
+    private final boolean invert;
+    private final int numTicks;
+    private final int decimals;
+    private final TimeZone timeZone;
+    private final LabelBuffer labels = new LabelBuffer();
+    private int[] labelEnds = new int[16]; // labels[i] spans [labelEnds[i - 1], labelEnds[i])
+    private int[] labelWidths = new int[16];
+    private int[] labelPositions = new int[16];
+    private int labelHeight;
+    private int size;
+    private int zeroIdx;
+    // layout key
+    private double min = Double.NaN;
+    private double range;
+    private double scale;
+    private boolean isTime;
+    private Font font;
 
+    private Axis(boolean invert, int numTicks, int decimals, TimeZone timeZone) {
+        this.invert = invert;
+        this.numTicks = numTicks;
+        this.decimals = decimals;
+        this.timeZone = timeZone;
+    }
 
-    private Axis(String[] labels, int[] labelWidths, int[] labelHeights, int[] labelPositions, String labelZero) {
-        this.labels = labels;
-        this.labelWidths = labelWidths;
-        this.labelHeights = labelHeights;
-        this.labelPositions = labelPositions;
-        this.labelZero = labelZero;
+    public static Axis forX() {
+        return forX(TimeZone.getDefault());
     }
 
-    public static Axis forX(Graphics2D g2, double min, double range, double scale) {
-        return getInstance(g2, min, range, scale, false, X_RANGE_NUMBER_OF_TICKS, X_TPT);
+    static Axis forX(TimeZone timeZone) {
+        return new Axis(false, X_RANGE_NUMBER_OF_TICKS, X_AXIS_SIGNIFICANT_FIGURES, timeZone);
     }
 
-    public static Axis forY(Graphics2D g2, double min, double range, double scale) {
-        return getInstance(g2, min, range, scale, true, Y_RANGE_NUMBER_OF_TICKS, Y_TPT);
+    public static Axis forY() {
+        return new Axis(true, Y_RANGE_NUMBER_OF_TICKS, Y_AXIS_SIGNIFICANT_FIGURES, TimeZone.getDefault());
     }
 
-    private static Axis getInstance(
-            Graphics2D g2,
-            double min,
-            double range,
-            double scale,
-            boolean invert,
-            int numTicks,
-            String tpt
-    ) {
+    /**
+     * Lays the ticks out, unless they are laid out for the same arguments already.
+     *
+     * @param g2     graphics the labels are drawn with, its font is measured
+     * @param min    value at the origin
+     * @param range  range of values
+     * @param scale  pixels per value unit
+     * @param isTime whether values are epoch millis
+     * @return false when there are no ticks
+     */
+    public boolean layout(Graphics2D g2, double min, double range, double scale, boolean isTime) {
+        Font font = g2.getFont();
+        if (min == this.min && range == this.range && scale == this.scale && isTime == this.isTime && font.equals(this.font)) {
+            return size > 0;
+        }
+        FontMetrics fm = g2.getFontMetrics();
+        if (!font.equals(this.font)) {
+            labelHeight = (int) fm.getStringBounds(ZERO_LABEL, g2).getHeight();
+            this.font = font;
+        }
+        this.min = min;
+        this.range = range;
+        this.scale = scale;
+        this.isTime = isTime;
+        labels.clear();
+        size = 0;
+        zeroIdx = -1;
+        if (isTime) {
+            layoutTime(fm);
+        } else {
+            layoutNumeric(fm);
+        }
+        return size > 0;
+    }
+
+    private void layoutNumeric(FontMetrics fm) {
         double interval = range / numTicks;
         double start = Math.ceil(min / interval) * interval - min;
         int tickNo = (int) (Math.abs(range - start) / interval + 1);
-        if (tickNo > 0) {
-            int[] tickPos = new int[tickNo];
-            String[] labels = new String[tickNo];
-            int[] labelWidths = new int[tickNo];
-            int[] labelHeights = new int[tickNo];
-            int sign = invert ? -1 : 1;
-            double offset = 0;
-            FontMetrics fm = g2.getFontMetrics();
-            for (int i = 0; i < tickNo; i++) {
-                double pos = start + offset;
-                tickPos[i] = sign * (int) (pos * scale);
-                String label = String.format(tpt, (pos + min));
-                labels[i] = label;
-                Rectangle2D bounds = fm.getStringBounds(label, g2);
-                labelWidths[i] = (int) bounds.getWidth();
-                labelHeights[i] = (int) bounds.getHeight();
-                offset += interval;
+        int sign = invert ? -1 : 1;
+        double offset = 0;
+        for (int i = 0; i < tickNo; i++) {
+            double pos = start + offset;
+            int from = labels.length();
+            labels.putFixed(pos + min, decimals);
+            if (labels.equals(from, labels.length(), ZERO_LABEL) && zeroIdx < 0) {
+                zeroIdx = i;
             }
-            return new Axis(labels, labelWidths, labelHeights, tickPos, String.format(tpt, 0.0));
+            addTick(fm, sign * (int) (pos * scale));
+            offset += interval;
         }
-        return null;
     }
 
-    public static String fmtX(double value) {
-        return String.format(X_TPT, value);
+    private void layoutTime(FontMetrics fm) {
+        if (!(range > 0.0) || Double.isInfinite(range) || Double.isNaN(min)) {
+            return;
+        }
+        double minStep = range / X_RANGE_NUMBER_OF_TIME_TICKS;
+        if (minStep > TIME_STEPS[TIME_STEPS.length - 1]) {
+            layoutMonths(fm, minStep);
+            return;
+        }
+        long step = TIME_STEPS[0];
+        for (int i = 0; step < minStep; i++) {
+            step = TIME_STEPS[i];
+        }
+        LabelBuffer.TimeFormat format = step >= DAY
+                ? LabelBuffer.TimeFormat.DATE
+                : step >= MINUTE
+                ? LabelBuffer.TimeFormat.MINUTES
+                : step >= SECOND ? LabelBuffer.TimeFormat.SECONDS : LabelBuffer.TimeFormat.MILLIS;
+        int sign = invert ? -1 : 1;
+        double max = min + range;
+        long first = (long) Math.floor(min);
+        if (step < HOUR) {
+            // first tick aligned to the step in local time, then stepped, daylight saving
+            // time moves clocks by whole hours (bar a few zones), sub hour steps stay aligned
+            int offset = timeZone.getOffset(first);
+            long tick = Math.floorDiv(first + offset, step) * step - offset;
+            if (tick < min) {
+                tick += step;
+            }
+            for (; tick <= max; tick += step) {
+                labels.putTime(tick, timeZone, format);
+                addTick(fm, sign * (int) ((tick - min) * scale));
+            }
+            return;
+        }
+        // every tick aligned to the step in local time, the offset changes with daylight
+        // saving time. Local times skipped by the change map to the same tick
+        long prevTick = Long.MIN_VALUE;
+        for (long tickLocal = Math.floorDiv(first + timeZone.getOffset(first), step) * step; ; tickLocal += step) {
+            long tick = toUtc(tickLocal);
+            if (tick > max) {
+                break;
+            }
+            if (tick >= min && tick > prevTick) {
+                labels.putTime(tick, timeZone, format);
+                addTick(fm, sign * (int) ((tick - min) * scale));
+                prevTick = tick;
+            }
+        }
     }
 
-    public static String fmtY(double value) {
-        return String.format(Y_TPT, value);
+    // ticks on the first day of every so many months, in local time
+    private void layoutMonths(FontMetrics fm, double minStep) {
+        int step = MONTH_STEPS[MONTH_STEPS.length - 1];
+        for (int s : MONTH_STEPS) {
+            if (s * (double) AVG_MONTH >= minStep) {
+                step = s;
+                break;
+            }
+        }
+        long first = (long) Math.floor(min);
+        long local = first + timeZone.getOffset(first);
+        long months = Math.floorDiv(LabelBuffer.civilDate(Math.floorDiv(local, DAY)), 32L);
+        months = Math.floorDiv(months, step) * step;
+        int sign = invert ? -1 : 1;
+        for (double max = min + range; ; months += step) {
+            long tick = toUtc(LabelBuffer.epochDayOfMonth(months) * DAY);
+            if (tick > max) {
+                break;
+            }
+            if (tick >= min) {
+                labels.putTime(tick, timeZone, LabelBuffer.TimeFormat.DATE);
+                addTick(fm, sign * (int) ((tick - min) * scale));
+            }
+        }
+    }
+
+    // epoch millis of a local time, with the offset in effect at that time
+    private long toUtc(long local) {
+        return local - timeZone.getOffset(local - timeZone.getOffset(local));
+    }
+
+    private void addTick(FontMetrics fm, int position) {
+        if (size == labelEnds.length) {
+            int capacity = size * 2;
+            labelEnds = Arrays.copyOf(labelEnds, capacity);
+            labelWidths = Arrays.copyOf(labelWidths, capacity);
+            labelPositions = Arrays.copyOf(labelPositions, capacity);
+        }
+        int from = size > 0 ? labelEnds[size - 1] : 0;
+        labelEnds[size] = labels.length();
+        labelWidths[size] = labels.width(fm, from, labels.length());
+        labelPositions[size] = position;
+        size++;
+    }
+
+    /**
+     * Puts the value as the x labels are formatted, as a time when the axis was laid out
+     * for times.
+     *
+     * @param buffer the buffer
+     * @param value  the value
+     */
+    void putValue(LabelBuffer buffer, double value) {
+        if (isTime && !Double.isNaN(value) && !Double.isInfinite(value)) {
+            buffer.putTime((long) Math.floor(value), timeZone, LabelBuffer.TimeFormat.FULL);
+        } else {
+            buffer.putFixed(value, decimals);
+        }
     }
 
     public boolean isZero(int i) {
-        return labelZero.equals(labels[i]);
+        return i == zeroIdx;
     }
 
     public int getYPositionOfZeroLabel() {
-        for (int i = 0; i < labels.length; i++) {
-            if (labelZero.equals(labels[i])) {
-                return labelPositions[i];
-            }
-        }
-        return -1;
+        return zeroIdx >= 0 ? labelPositions[zeroIdx] : -1;
     }
 
     public int size() {
-        return labels.length;
+        return size;
+    }
+
+    boolean labelEquals(int n, CharSequence text) {
+        return labels.equals(n > 0 ? labelEnds[n - 1] : 0, labelEnds[n], text);
     }
 
-    public String label(int n) {
-        return labels[n];
+    public void drawLabel(Graphics2D g2, int n, int x, int y) {
+        labels.draw(g2, n > 0 ? labelEnds[n - 1] : 0, labelEnds[n], x, y);
     }
 
     public int width(int n) {
@@ -129,7 +290,7 @@ public class Axis {
     }
 
     public int getHeight(int n) {
-        return labelHeights[n];
+        return labelHeight;
     }
 
     public int position(int n) {
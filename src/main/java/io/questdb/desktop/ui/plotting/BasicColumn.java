@@ -48,7 +48,7 @@ public class BasicColumn implements Column {
         offset = 0;
         size = SCALE;
         min = Double.MAX_VALUE;
-        max = Double.MIN_VALUE;
+        max = -Double.MAX_VALUE;
     }
 
     @Override
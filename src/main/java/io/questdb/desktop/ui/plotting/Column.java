@@ -42,6 +42,41 @@ public interface Column {
 
     String name();
 
+    /**
+     * @return number of values appended over the life of the column, the column holds
+     * those numbered [version - size, version). Plots cache what they derive from the
+     * values by version, and align columns by it. Defaults to the size, which suits
+     * columns that do not drop values
+     */
+    default long version() {
+        return size();
+    }
+
+    /**
+     * @return a view of the values that does not change while it is read, even if
+     * values are appended concurrently, to be checked with {@link #isValid()} once read.
+     * Defaults to the column itself
+     */
+    default Column snapshot() {
+        return this;
+    }
+
+    /**
+     * @return false when the values read from this snapshot may have been overwritten
+     * while they were being read, and should be read again from a new snapshot
+     */
+    default boolean isValid() {
+        return true;
+    }
+
+    /**
+     * @return true when the values are timestamps, in epoch millis, for axes to label
+     * them as such. Defaults to false
+     */
+    default boolean isTimestamp() {
+        return false;
+    }
+
     default Color color() {
         return GTk.Editor.KEYWORD_FOREGROUND_COLOR;
     }
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.util.Arrays;
+
+
+/**
+ * Min/max (M4) downsampling of a series to the pixels of the plot area.
+ * <p>
+ * Points are projected to pixel coordinates and consecutive points falling on the same
+ * pixel column are reduced to at most four: the first, the one with the lowest and the
+ * one with the highest y, and the last, in their original order. Drawing the polyline
+ * through the reduced points lights the same pixels as drawing it through all of them,
+ * thus a series is reduced to about four points per pixel column, whatever its size.
+ * Series whose x is not sorted (eg. a circle) are reduced run by run, mostly untouched.
+ * Non finite values are skipped.
+ * <p>
+ * Series whose x is ascending can instead be reduced with the {@link MinMaxPyramid} of
+ * their y, see {@link #reduceAscending}: the points within the plot area are located by
+ * binary search, and the min and max of each pixel column are found in the pyramid,
+ * thus in O(pixels log n) rather than O(n), which is what makes zooming into long series
+ * interactive.
+ * <p>
+ * Not thread safe, reduced points are valid until the next call to reduce.
+ */
+final class Downsampler {
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final int MAX_EXACT_POINTS_PER_PIXEL = 4; // below, reduceAscending reduces point by point
+
+    private float[] xs = new float[INITIAL_CAPACITY];
+    private float[] ys = new float[INITIAL_CAPACITY];
+    private int size;
+
+    // bucket, the run of points on the current pixel column
+    private int bucketFirstIdx, bucketMinIdx, bucketMaxIdx, bucketLastIdx;
+    private float firstX, firstY, minX, minY, maxX, maxY, lastX, lastY;
+
+    /**
+     * Reduces the series to pixel coordinates relative to the bottom-left corner of the
+     * plot area, y grows upwards thus pixel y values are negative.
+     *
+     * @param x       x values
+     * @param xFrom   index of the first x value
+     * @param y       y values
+     * @param yFrom   index of the first y value, paired with the first x value
+     * @param n       number of points
+     * @param originX x value at the left edge of the plot area
+     * @param originY y value at the bottom edge of the plot area
+     * @param scaleX  pixels per x unit
+     * @param scaleY  pixels per y unit
+     * @return number of reduced points
+     */
+    int reduce(Column x, int xFrom, Column y, int yFrom, int n, double originX, double originY, double scaleX, double scaleY) {
+        size = 0;
+        int bucket = Integer.MIN_VALUE;
+        int idx = 0;
+        for (int i = 0; i < n; i++) {
+            float px = (float) ((x.get(xFrom + i) - originX) * scaleX);
+            float py = (float) ((originY - y.get(yFrom + i)) * scaleY);
+            if (!Float.isFinite(px) || !Float.isFinite(py)) {
+                continue;
+            }
+            int col = (int) Math.floor(px);
+            if (col != bucket) {
+                if (bucket != Integer.MIN_VALUE) {
+                    flushBucket();
+                }
+                bucket = col;
+                bucketFirstIdx = bucketMinIdx = bucketMaxIdx = bucketLastIdx = idx;
+                firstX = minX = maxX = lastX = px;
+                firstY = minY = maxY = lastY = py;
+            } else {
+                bucketLastIdx = idx;
+                lastX = px;
+                lastY = py;
+                if (py < minY) {
+                    bucketMinIdx = idx;
+                    minX = px;
+                    minY = py;
+                }
+                if (py > maxY) {
+                    bucketMaxIdx = idx;
+                    maxX = px;
+                    maxY = py;
+                }
+            }
+            idx++;
+        }
+        if (bucket != Integer.MIN_VALUE) {
+            flushBucket();
+        }
+        return size;
+    }
+
+    /**
+     * Reduces the points of the series within the plot area, and those next to its edges,
+     * which x must be ascending. Reduces to the same points as {@link #reduce}, pixel column
+     * by pixel column: the bounds of each are found by binary search, and its min and max
+     * are found in the pyramid of y. Falls back to {@link #reduce} when the pyramid is not
+     * {@link MinMaxPyramid#isIndexed() indexed}, a scan of the visible points costs less than
+     * rebuilding it.
+     *
+     * @param x         x values, ascending
+     * @param xFrom     index of the first x value
+     * @param y         y values, the pyramid was last updated with
+     * @param yFrom     index of the first y value, paired with the first x value
+     * @param yLevels   pyramid of the y values
+     * @param n         number of points
+     * @param originX   x value at the left edge of the plot area
+     * @param originY   y value at the bottom edge of the plot area
+     * @param scaleX    pixels per x unit
+     * @param scaleY    pixels per y unit
+     * @param plotWidth width of the plot area in pixels
+     * @return number of reduced points
+     */
+    int reduceAscending(
+            Column x,
+            int xFrom,
+            Column y,
+            int yFrom,
+            MinMaxPyramid yLevels,
+            int n,
+            double originX,
+            double originY,
+            double scaleX,
+            double scaleY,
+            int plotWidth
+    ) {
+        int lo = Math.max(0, lowerBound(x, xFrom, 0, n, originX) - 1);
+        int hi = Math.min(n, lowerBound(x, xFrom, lo, n, originX + (plotWidth + 1) / scaleX) + 1);
+        if (!yLevels.isIndexed() || hi - lo <= MAX_EXACT_POINTS_PER_PIXEL * (plotWidth + 1)) {
+            return reduce(x, xFrom + lo, y, yFrom + lo, hi - lo, originX, originY, scaleX, scaleY);
+        }
+        size = 0;
+        for (int i = lo; i < hi; ) {
+            int col = pixelColumn(x.get(xFrom + i), originX, scaleX);
+            int j = nextPixelColumn(x, xFrom, i + 1, hi, col, originX, scaleX);
+            int last = j - 1;
+            addPoint(x, xFrom, y, yFrom, i, originX, originY, scaleX, scaleY);
+            if (j - i > 2) {
+                // pixel y grows downwards, the top of the column is the max
+                int top = yLevels.argMax(y, yFrom + i, yFrom + j) - yFrom;
+                int bottom = yLevels.argMin(y, yFrom + i, yFrom + j) - yFrom;
+                addInnerPoint(x, xFrom, y, yFrom, Math.min(top, bottom), i, last, originX, originY, scaleX, scaleY);
+                addInnerPoint(x, xFrom, y, yFrom, Math.max(top, bottom), i, last, originX, originY, scaleX, scaleY);
+            }
+            if (last != i) {
+                addPoint(x, xFrom, y, yFrom, last, originX, originY, scaleX, scaleY);
+            }
+            i = j;
+        }
+        return size;
+    }
+
+    private static int pixelColumn(double x, double originX, double scaleX) {
+        return (int) Math.floor((float) ((x - originX) * scaleX));
+    }
+
+    // index of the first point in [from, to) past pixel column col, x ascending
+    private static int nextPixelColumn(Column x, int xFrom, int from, int to, int col, double originX, double scaleX) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pixelColumn(x.get(xFrom + mid), originX, scaleX) <= col) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // index of the first point in [from, to) with x not less than value, x ascending
+    static int lowerBound(Column x, int xFrom, int from, int to, double value) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x.get(xFrom + mid) < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    int size() {
+        return size;
+    }
+
+    float x(int i) {
+        return xs[i];
+    }
+
+    float y(int i) {
+        return ys[i];
+    }
+
+    private void flushBucket() {
+        add(firstX, firstY);
+        if (bucketMinIdx < bucketMaxIdx) {
+            addInner(bucketMinIdx, minX, minY);
+            addInner(bucketMaxIdx, maxX, maxY);
+        } else {
+            addInner(bucketMaxIdx, maxX, maxY);
+            addInner(bucketMinIdx, minX, minY);
+        }
+        if (bucketLastIdx != bucketFirstIdx) {
+            add(lastX, lastY);
+        }
+    }
+
+    private void addInner(int idx, float px, float py) {
+        if (idx != bucketFirstIdx && idx != bucketLastIdx && (size == 0 || xs[size - 1] != px || ys[size - 1] != py)) {
+            add(px, py);
+        }
+    }
+
+    private void addPoint(Column x, int xFrom, Column y, int yFrom, int idx, double originX, double originY, double scaleX, double scaleY) {
+        float px = (float) ((x.get(xFrom + idx) - originX) * scaleX);
+        float py = (float) ((originY - y.get(yFrom + idx)) * scaleY);
+        if (Float.isFinite(px) && Float.isFinite(py)) {
+            add(px, py);
+        }
+    }
+
+    // as addInner, the min or max of a pixel column, unless it is its first or last point
+    private void addInnerPoint(Column x, int xFrom, Column y, int yFrom, int idx, int first, int last, double originX, double originY, double scaleX, double scaleY) {
+        if (idx <= first || idx == last) {
+            return;
+        }
+        float px = (float) ((x.get(xFrom + idx) - originX) * scaleX);
+        float py = (float) ((originY - y.get(yFrom + idx)) * scaleY);
+        if (Float.isFinite(px) && Float.isFinite(py) && (size == 0 || xs[size - 1] != px || ys[size - 1] != py)) {
+            add(px, py);
+        }
+    }
+
+    private void add(float px, float py) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = px;
+        ys[size] = py;
+        size++;
+    }
+}
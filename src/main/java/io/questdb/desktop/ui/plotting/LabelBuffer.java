@@ -0,0 +1,257 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+
+/**
+ * Growable buffer of chars to format plot labels into, and draw them from, without
+ * allocating: numbers are formatted digit by digit, timestamps by computing the civil
+ * date of their epoch millis, and labels are drawn with
+ * {@link Graphics2D#drawChars(char[], int, int, int, int)}.
+ * <p>
+ * Not thread safe.
+ */
+final class LabelBuffer {
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+    private static final double MAX_FIXED_INTEGER = 1e18;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private char[] chars = new char[128];
+    private int length;
+
+    void clear() {
+        length = 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * @param from index of the first char
+     * @param to   index of the last char, exclusive
+     * @return whether the chars in the range equal the text
+     */
+    boolean equals(int from, int to, CharSequence text) {
+        if (to - from != text.length()) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (chars[i] != text.charAt(i - from)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int width(FontMetrics metrics, int from, int to) {
+        return metrics.charsWidth(chars, from, to - from);
+    }
+
+    void draw(Graphics2D g2, int from, int to, int x, int y) {
+        g2.drawChars(chars, from, to - from, x, y);
+    }
+
+    LabelBuffer put(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+        return this;
+    }
+
+    LabelBuffer put(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            put(text.charAt(i));
+        }
+        return this;
+    }
+
+    LabelBuffer put(long value) {
+        if (value < 0L) {
+            put('-');
+            if (value == Long.MIN_VALUE) {
+                return put("9223372036854775808");
+            }
+            value = -value;
+        }
+        int start = length;
+        do {
+            put((char) ('0' + value % 10L));
+            value /= 10L;
+        } while (value > 0L);
+        // digits were put least significant first
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = chars[i];
+            chars[i] = chars[j];
+            chars[j] = c;
+        }
+        return this;
+    }
+
+    /**
+     * Puts the value with a fixed number of decimals, as "%.Nf" does, rounding half up,
+     * with a '.' separator whatever the locale. The integer part is split from the
+     * fraction before scaling it, which is exact, thus only the fraction is rounded. Values
+     * which are the double nearest a tie round up, as they do with "%.Nf", which rounds
+     * their shortest decimal representation. It may still differ from "%.Nf" in the last
+     * decimal of values with more significant digits than a double holds.
+     *
+     * @param value    the value
+     * @param decimals number of decimals, up to 6
+     * @return this buffer
+     */
+    LabelBuffer putFixed(double value, int decimals) {
+        if (Double.isNaN(value)) {
+            return put("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return put(value > 0.0 ? "Infinity" : "-Infinity");
+        }
+        double abs = Math.abs(value);
+        if (abs >= MAX_FIXED_INTEGER) {
+            return put(String.format("%." + decimals + "f", value)); // beyond longs, rare
+        }
+        long pow = POW10[decimals];
+        long integer = (long) abs;
+        double remainder = abs - integer; // exact
+        double scaled = remainder * pow;
+        double error = Math.fma(remainder, pow, -scaled); // of the product, exact
+        long fraction = (long) scaled;
+        double half = fraction + 0.5;
+        double ulp = Math.ulp(abs) * pow;
+        if (scaled > half || (ulp < 0.1 && half - scaled - error <= ulp / 2.0)) {
+            if (++fraction == pow) {
+                fraction = 0L;
+                integer++;
+            }
+        }
+        if (Double.doubleToRawLongBits(value) < 0L) {
+            put('-'); // as "%.Nf", which also keeps the sign of values rounding to zero
+        }
+        put(integer);
+        if (decimals > 0) {
+            put('.');
+            for (long p = pow / 10L; p > 0L; p /= 10L) {
+                put((char) ('0' + fraction / p % 10L));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Puts the time, in the time zone.
+     *
+     * @param epochMillis the time
+     * @param timeZone    the time zone
+     * @param format      the fields to put
+     * @return this buffer
+     */
+    LabelBuffer putTime(long epochMillis, TimeZone timeZone, TimeFormat format) {
+        long local = epochMillis + timeZone.getOffset(epochMillis);
+        int millisOfDay = (int) Math.floorMod(local, MILLIS_PER_DAY);
+        long date = civilDate(Math.floorDiv(local, MILLIS_PER_DAY));
+        long months = Math.floorDiv(date, 32L);
+        int day = (int) Math.floorMod(date, 32L) + 1;
+        int month = (int) Math.floorMod(months, 12L) + 1;
+        long year = Math.floorDiv(months, 12L);
+        int hours = millisOfDay / 3_600_000;
+        int minutes = millisOfDay / 60_000 % 60;
+        int seconds = millisOfDay / 1000 % 60;
+        int millis = millisOfDay % 1000;
+        switch (format) {
+            case DATE -> putDate(year, month, day);
+            case MINUTES -> {
+                putTwoDigits(month).put('-').putTwoDigits(day).put(' ');
+                putTwoDigits(hours).put(':').putTwoDigits(minutes);
+            }
+            case SECONDS -> putTwoDigits(hours).put(':').putTwoDigits(minutes).put(':').putTwoDigits(seconds);
+            case MILLIS -> {
+                putTwoDigits(hours).put(':').putTwoDigits(minutes).put(':').putTwoDigits(seconds).put('.');
+                put((char) ('0' + millis / 100)).putTwoDigits(millis % 100);
+            }
+            case FULL -> {
+                putDate(year, month, day).put(' ');
+                putTwoDigits(hours).put(':').putTwoDigits(minutes).put(':').putTwoDigits(seconds).put('.');
+                put((char) ('0' + millis / 100)).putTwoDigits(millis % 100);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param epochDay days since 1970-01-01
+     * @return the civil date, as (months since 0000-01) * 32 + day of month - 1
+     */
+    static long civilDate(long epochDay) {
+        // see http://howardhinnant.github.io/date_algorithms.html
+        long z = epochDay + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        long dayOfEra = z - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460L + dayOfEra / 36_524L - dayOfEra / 146_096L) / 365L;
+        long dayOfYear = dayOfEra - (365L * yearOfEra + yearOfEra / 4L - yearOfEra / 100L);
+        long mp = (5L * dayOfYear + 2L) / 153L;
+        long day = dayOfYear - (153L * mp + 2L) / 5L;
+        long month = mp < 10L ? mp + 2L : mp - 10L;
+        long year = yearOfEra + era * 400L + (month < 2L ? 1L : 0L);
+        return (year * 12L + month) * 32L + day;
+    }
+
+    /**
+     * @param months months since 0000-01
+     * @return days since 1970-01-01 of the first day of the month
+     */
+    static long epochDayOfMonth(long months) {
+        long year = Math.floorDiv(months, 12L);
+        long month = Math.floorMod(months, 12L) + 1L;
+        year -= month <= 2L ? 1L : 0L;
+        long era = Math.floorDiv(year, 400L);
+        long yearOfEra = year - era * 400L;
+        long dayOfYear = (153L * (month > 2L ? month - 3L : month + 9L) + 2L) / 5L;
+        long dayOfEra = yearOfEra * 365L + yearOfEra / 4L - yearOfEra / 100L + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private LabelBuffer putDate(long year, int month, int day) {
+        return put(year).put('-').putTwoDigits(month).put('-').putTwoDigits(day);
+    }
+
+    private LabelBuffer putTwoDigits(int value) {
+        return put((char) ('0' + value / 10)).put((char) ('0' + value % 10));
+    }
+
+    enum TimeFormat {
+        DATE, // yyyy-MM-dd
+        MINUTES, // MM-dd HH:mm
+        SECONDS, // HH:mm:ss
+        MILLIS, // HH:mm:ss.SSS
+        FULL // yyyy-MM-dd HH:mm:ss.SSS
+    }
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneOffset;
+
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.SQLExecutionRequest;
+import io.questdb.desktop.model.SQLType;
+import io.questdb.desktop.model.Table;
+
+
+/**
+ * The query behind a live plot, executed on an interval, of which only the rows not yet
+ * plotted are appended to the plot's columns.
+ * <p>
+ * Rows are keyed by the x column, which must be ascending, typically the designated
+ * timestamp. In {@link Mode#RERUN} mode the query is executed as is and rows with a key
+ * not greater than the last appended are skipped. In {@link Mode#TAIL} mode the query is
+ * wrapped to filter by the key on the server:
+ * <pre>
+ *     SELECT * FROM (query) WHERE x &gt; last_seen
+ * </pre>
+ * thus each refresh fetches only the new rows, and QuestDB scans only the partitions
+ * after last_seen when x is the designated timestamp.
+ * <p>
+ * Requests bypass the result cache. Not thread safe, the plot calls {@link #nextRequest()}
+ * and {@link #appendDelta(Table, Column, Column...)} one after the other.
+ */
+public class LiveQuery {
+    public static final String SOURCE_ID = "live-plot";
+
+    private final DbConn conn;
+    private final String query;
+    private final String keyColName;
+    private final int keyColType;
+    private final Mode mode;
+    private final boolean isFloatKey;
+    private boolean hasLastKey;
+    private long lastLongKey; // integer and timestamp keys, exact beyond 2^53
+    private double lastDoubleKey; // REAL and DOUBLE keys
+    private String lastKeyLiteral;
+
+    /**
+     * @param conn       connection to execute the query through
+     * @param query      the query, the first column of its results is x, the others are y
+     * @param keyColName name of the x column
+     * @param keyColType SQL type of the x column, see {@link java.sql.Types}
+     * @param mode       how to fetch new rows
+     * @throws IllegalArgumentException when the x column cannot be used as key
+     */
+    public LiveQuery(DbConn conn, String query, String keyColName, int keyColType, Mode mode) {
+        if (!isKeyType(keyColType)) {
+            throw new IllegalArgumentException(String.format(
+                    "Column X [%s %s] must be a timestamp, or numeric",
+                    keyColName,
+                    SQLType.resolveName(keyColType)));
+        }
+        this.conn = conn;
+        this.query = stripTrailingSemicolons(query);
+        this.keyColName = keyColName;
+        this.keyColType = keyColType;
+        this.mode = mode;
+        isFloatKey = keyColType == Types.REAL || keyColType == Types.DOUBLE;
+    }
+
+    private static boolean isKeyType(int sqlType) {
+        return switch (sqlType) {
+            case Types.TINYINT,
+                    Types.SMALLINT,
+                    Types.INTEGER,
+                    Types.BIGINT,
+                    Types.REAL,
+                    Types.DOUBLE,
+                    Types.TIMESTAMP,
+                    Types.TIMESTAMP_WITH_TIMEZONE -> true;
+            default -> false;
+        };
+    }
+
+    private static String stripTrailingSemicolons(String query) {
+        int end = query.length();
+        while (end > 0 && (query.charAt(end - 1) == ';' || Character.isWhitespace(query.charAt(end - 1)))) {
+            end--;
+        }
+        return query.substring(0, end);
+    }
+
+    // timestamps are keyed by epoch micros, QuestDB's resolution, integers by value
+    private static long longKeyOf(Object value, int sqlType) {
+        if (value instanceof Timestamp ts) {
+            long epochSecs = sqlType == Types.TIMESTAMP
+                    // wall clock time in UTC, as sent by the server
+                    ? ts.toLocalDateTime().toEpochSecond(ZoneOffset.UTC)
+                    : Math.floorDiv(ts.getTime(), 1000L);
+            return epochSecs * 1_000_000L + ts.getNanos() / 1000L;
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static String quoteIdentifier(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @return true when the x column is a timestamp, appended as epoch millis
+     */
+    public boolean isTimestampKey() {
+        return keyColType == Types.TIMESTAMP || keyColType == Types.TIMESTAMP_WITH_TIMEZONE;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the request to fetch the rows not yet plotted
+     */
+    public SQLExecutionRequest nextRequest() {
+        String sql = query;
+        if (mode == Mode.TAIL && lastKeyLiteral != null) {
+            sql = "SELECT * FROM (" + query + ") WHERE " + quoteIdentifier(keyColName) + " > " + lastKeyLiteral;
+        }
+        return new SQLExecutionRequest(SOURCE_ID, conn, sql, false, false);
+    }
+
+    /**
+     * Appends to the columns the rows of the table with a key greater than that of the
+     * last row appended, x then each y for each row. Null y values are appended as NaN.
+     *
+     * @param table results of the last request, its columns are #, x, y...
+     * @param x     column to append the x values to
+     * @param ys    columns to append the y values to, in the order of the table's
+     * @return number of rows appended
+     */
+    public int appendDelta(Table table, Column x, Column... ys) {
+        if (table == null || table.getColumnCount() < 2 + ys.length) {
+            return 0;
+        }
+        int xType = table.getColumnType(1);
+        int appended = 0;
+        for (int i = 0, n = table.size(); i < n; i++) {
+            Object xValue = table.getValueAt(i, 1);
+            if (!(xValue instanceof Timestamp || xValue instanceof Number)) {
+                continue;
+            }
+            if (isFloatKey) {
+                double key = ((Number) xValue).doubleValue();
+                if (Double.isNaN(key) || (hasLastKey && key <= lastDoubleKey)) {
+                    continue;
+                }
+                lastDoubleKey = key;
+            } else {
+                long key = longKeyOf(xValue, xType);
+                if (hasLastKey && key <= lastLongKey) {
+                    continue;
+                }
+                lastLongKey = key;
+            }
+            hasLastKey = true;
+            x.append(SQLType.getNumericValue(xValue, xType));
+            for (int j = 0; j < ys.length; j++) {
+                ys[j].append(SQLType.getNumericValue(table.getValueAt(i, j + 2), table.getColumnType(j + 2)));
+            }
+            appended++;
+        }
+        if (appended > 0) {
+            lastKeyLiteral = switch (keyColType) {
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> "CAST(" + lastLongKey + " AS TIMESTAMP)";
+                case Types.REAL, Types.DOUBLE -> Double.toString(lastDoubleKey);
+                default -> Long.toString(lastLongKey);
+            };
+        }
+        return appended;
+    }
+
+    public enum Mode {
+        RERUN("Re-run"), // execute the query as is, append the new rows
+        TAIL("Tail"); // fetch only the rows after the last seen key
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.util.Arrays;
+
+
+/**
+ * Multi-resolution min/max of the values of a column, a pyramid of levels of blocks:
+ * level 0 holds where the min and max of consecutive blocks of {@link #BLOCK_SIZE} values
+ * are, and each level above holds those of pairs of blocks of the level below. The min and
+ * max of any range of values is then found in O(log n) blocks, plus at most two partial
+ * blocks at its ends, read from the column. Blocks hold the index of their min and max
+ * rather than their value, thus the points can be located, and the levels take about a
+ * thirty-second of the memory of the values.
+ * <p>
+ * Levels are extended as values are appended. Rebuilding them when the column drops
+ * values from its front, as a full sliding column does on every append, would cost O(n)
+ * per update, thus they are dropped instead and ranges are scanned, which costs at most
+ * as much, until the front stops moving; they are then rebuilt once. Also tracks whether
+ * the values are ascending, in O(1) per value appended, which is what allows locating
+ * the values within an x range by binary search. NaN values are not considered for min
+ * and max, and are not ascending.
+ * <p>
+ * Not thread safe.
+ */
+final class MinMaxPyramid {
+    static final int BLOCK_SHIFT = 6;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int INITIAL_BLOCKS = 64;
+
+    private int[][] argMins = new int[0][];
+    private int[][] argMaxs = new int[0][];
+    private int[] counts = new int[0]; // blocks, by level
+    private long start = -1L; // version - size of the column, sequence of its first value
+    private long end = -1L; // version of the column
+    private int size; // values covered by the levels
+    private int blockArgMin, blockArgMax; // of the partial block at the end, -1 when none
+    private boolean isIndexed; // whether the levels cover the column
+    private long lastDescent = -1L; // sequence of the last value not ascending from the one before
+
+    /**
+     * Extends the levels with the values appended to the column since the last update.
+     *
+     * @param column a snapshot of the column
+     */
+    void update(Column column) {
+        int n = column.size();
+        long end = column.version();
+        long start = end - n;
+        if (end < this.end || start < this.start) {
+            reset(); // cleared, or another column
+        }
+        boolean isSliding = this.end >= 0L && start != this.start;
+        for (int i = Math.max(1, (int) Math.min(n, this.end - start)); i < n; i++) {
+            if (!(column.get(i) >= column.get(i - 1))) {
+                lastDescent = start + i;
+            }
+        }
+        this.start = start;
+        this.end = end;
+        if (isSliding) {
+            Arrays.fill(counts, 0);
+            size = 0;
+            isIndexed = false;
+            return;
+        }
+        for (int i = size; i < n; i++) {
+            if ((i & (BLOCK_SIZE - 1)) == 0) {
+                blockArgMin = -1;
+                blockArgMax = -1;
+            }
+            blockArgMin = pick(column, blockArgMin, i, false);
+            blockArgMax = pick(column, blockArgMax, i, true);
+            if ((i & (BLOCK_SIZE - 1)) == BLOCK_SIZE - 1) {
+                push(column, 0, blockArgMin, blockArgMax);
+            }
+        }
+        size = n;
+        isIndexed = true;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        start = -1L;
+        end = -1L;
+        size = 0;
+        isIndexed = false;
+        lastDescent = -1L;
+    }
+
+    boolean isAscending() {
+        return lastDescent <= start;
+    }
+
+    /**
+     * @return whether range queries are answered from the levels, rather than scanned,
+     * false while the column drops values from its front
+     */
+    boolean isIndexed() {
+        return isIndexed;
+    }
+
+    /**
+     * @param column the column the levels were last updated with
+     * @param from   index of the first value, inclusive
+     * @param to     index of the last value, exclusive
+     * @return index of the min of the values in the range, the first should there be
+     * several, -1 when there are none
+     */
+    int argMin(Column column, int from, int to) {
+        return find(column, from, to, false);
+    }
+
+    /**
+     * @param column the column the levels were last updated with
+     * @param from   index of the first value, inclusive
+     * @param to     index of the last value, exclusive
+     * @return index of the max of the values in the range, the first should there be
+     * several, -1 when there are none
+     */
+    int argMax(Column column, int from, int to) {
+        return find(column, from, to, true);
+    }
+
+    /**
+     * @return min of the values in the range, NaN when there are none
+     */
+    double min(Column column, int from, int to) {
+        int idx = argMin(column, from, to);
+        return idx >= 0 ? column.get(idx) : Double.NaN;
+    }
+
+    /**
+     * @return max of the values in the range, NaN when there are none
+     */
+    double max(Column column, int from, int to) {
+        int idx = argMax(column, from, to);
+        return idx >= 0 ? column.get(idx) : Double.NaN;
+    }
+
+    private int find(Column column, int from, int to, boolean isMax) {
+        int result = -1;
+        int lo = Math.max(0, from);
+        int hi = Math.min((int) (end - start), to);
+        if (!isIndexed) {
+            while (lo < hi) {
+                result = pick(column, result, lo++, isMax);
+            }
+            return result;
+        }
+        // partial blocks at the ends, read from the column
+        while (lo < hi && (lo & (BLOCK_SIZE - 1)) != 0) {
+            result = pick(column, result, lo++, isMax);
+        }
+        while (hi > lo && (hi & (BLOCK_SIZE - 1)) != 0) {
+            result = pick(column, result, --hi, isMax);
+        }
+        // whole blocks, climbing the levels, each level contributes at most two blocks
+        int b0 = lo >> BLOCK_SHIFT;
+        int b1 = hi >> BLOCK_SHIFT;
+        for (int level = 0; b0 < b1; level++) {
+            int[] blocks = isMax ? argMaxs[level] : argMins[level];
+            if ((b0 & 1) != 0) {
+                result = pick(column, result, blocks[b0++], isMax);
+            }
+            if ((b1 & 1) != 0) {
+                result = pick(column, result, blocks[--b1], isMax);
+            }
+            b0 >>= 1;
+            b1 >>= 1;
+        }
+        return result;
+    }
+
+    // the index of the min, or max, of the values at two indexes, -1 for none, the lower
+    // index on ties, NaN values are not picked
+    private static int pick(Column column, int a, int b, boolean isMax) {
+        if (b < 0 || Double.isNaN(column.get(b))) {
+            return a;
+        }
+        if (a < 0) {
+            return b;
+        }
+        double va = column.get(a);
+        double vb = column.get(b);
+        if (isMax ? vb > va : vb < va) {
+            return b;
+        }
+        if (va == vb) {
+            return Math.min(a, b);
+        }
+        return a;
+    }
+
+    private void push(Column column, int level, int argMin, int argMax) {
+        if (level == counts.length) {
+            int levels = level + 1;
+            argMins = Arrays.copyOf(argMins, levels);
+            argMaxs = Arrays.copyOf(argMaxs, levels);
+            counts = Arrays.copyOf(counts, levels);
+            argMins[level] = new int[INITIAL_BLOCKS];
+            argMaxs[level] = new int[INITIAL_BLOCKS];
+        }
+        int idx = counts[level];
+        if (idx == argMins[level].length) {
+            argMins[level] = Arrays.copyOf(argMins[level], idx * 2);
+            argMaxs[level] = Arrays.copyOf(argMaxs[level], idx * 2);
+        }
+        argMins[level][idx] = argMin;
+        argMaxs[level][idx] = argMax;
+        counts[level] = idx + 1;
+        if ((idx & 1) == 1) {
+            // completes a pair, which becomes a block of the level above
+            push(column, level + 1, pick(column, argMins[level][idx - 1], argMin, false), pick(column, argMaxs[level][idx - 1], argMax, true));
+        }
+    }
+}
@@ -24,31 +24,423 @@
 
 package io.questdb.desktop.ui.plotting;
 
+import io.questdb.desktop.model.SQLExecutionRequest;
+import io.questdb.desktop.model.SQLExecutionResponse;
+import io.questdb.desktop.model.SQLExecutor;
+import io.questdb.desktop.model.Table;
 import io.questdb.desktop.ui.EventConsumer;
 import io.questdb.desktop.ui.EventProducer;
 import io.questdb.desktop.GTk;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
 
 public class Plot extends JDialog implements EventProducer<Plot.EventType> {
+    private static final Log LOG = LogFactory.getLog(Plot.class);
+    private static final int DEFAULT_LIVE_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_LIVE_WINDOW = 10_000;
+    private static final int REFINE_DELAY_MILLIS = 400; // after the last zoom, or pan
+    private static final Color LIVE_FONT_COLOR = new Color(58, 138, 138);
+    private static final float SERIES_HUE_STEP = 0.618034F; // golden ratio, consecutive hues far apart
 
+    private final EventConsumer<Plot, Object> eventConsumer;
     private final PlotCanvas canvas;
+    private final JCheckBox liveCheckBox;
+    private final JComboBox<LiveQuery.Mode> liveMode;
+    private final JTextField liveInterval;
+    private final JTextField liveWindow;
+    private final JLabel status;
+    private final JCheckBox refineCheckBox;
+    private final Timer refineTimer;
+    private Timer liveTimer;
+    private SQLExecutor liveExecutor;
+    private volatile LiveQuery liveQuery; // null when not live
+    private volatile boolean isLiveRequestInFlight;
+    private volatile boolean isStopped; // by stopRequests, no more requests are submitted
+    // refinement of the view, accessed on the EDT
+    private SQLExecutor refineExecutor;
+    private SampleByQuery refineQuery; // null when the results cannot be refined
+    private SQLExecutionRequest refineRequest; // in flight, or last applied
+    private Column[] baseColumns; // the results, as set
+    private Table refinedTable; // null when the results are plotted
+    private double refinedMinX, refinedMaxX;
+    private double viewMinX, viewMaxX;
+    private int viewPoints, viewWidth;
 
     public Plot(Frame owner, String title, EventConsumer<Plot, Object> eventConsumer) {
         super(owner, title);
+        this.eventConsumer = eventConsumer;
         GTk.configureDialog(this, 0.78F, 0.66F, () -> eventConsumer.onSourceEvent(Plot.this, EventType.HIDE_REQUEST, null));
+        liveCheckBox = new JCheckBox("Live", false);
+        liveCheckBox.setBackground(GTk.APP_BACKGROUND_COLOR);
+        liveCheckBox.setForeground(Color.WHITE);
+        liveCheckBox.addActionListener(this::onToggleLive);
+        liveMode = new JComboBox<>(LiveQuery.Mode.values());
+        liveMode.setToolTipText("Re-run: execute the query and append the new rows, Tail: fetch only the rows after the last x");
+        liveInterval = new JTextField(String.valueOf(DEFAULT_LIVE_INTERVAL_MILLIS), 6);
+        liveWindow = new JTextField(String.valueOf(DEFAULT_LIVE_WINDOW), 8);
+        status = GTk.label("", LIVE_FONT_COLOR);
+        refineCheckBox = new JCheckBox("Refine", false);
+        refineCheckBox.setBackground(GTk.APP_BACKGROUND_COLOR);
+        refineCheckBox.setForeground(Color.WHITE);
+        refineCheckBox.setEnabled(false);
+        refineCheckBox.setToolTipText("Re-query the zoomed interval at a finer SAMPLE BY when it has fewer rows than pixels");
+        refineTimer = new Timer(REFINE_DELAY_MILLIS, e -> onRefineTick());
+        refineTimer.setRepeats(false);
+        refineCheckBox.addActionListener(e -> refineTimer.restart());
+        JPanel liveControls = GTk.flowPanel(
+                BorderFactory.createEmptyBorder(2, 4, 2, 4),
+                GTk.APP_BACKGROUND_COLOR,
+                5,
+                0,
+                status,
+                refineCheckBox,
+                GTk.label("every (ms)", LIVE_FONT_COLOR),
+                liveInterval,
+                GTk.label("window (rows)", LIVE_FONT_COLOR),
+                liveWindow,
+                liveMode,
+                liveCheckBox);
         Container contentPane = getContentPane();
         contentPane.setLayout(new BorderLayout());
+        contentPane.add(BorderLayout.NORTH, liveControls);
         contentPane.add(BorderLayout.CENTER, canvas = new PlotCanvas());
+        canvas.setViewListener(this::onViewChanged);
     }
 
-    public void setDataSet(Column x, Column y) {
-        canvas.setDataSet(null, x, y);
+    /**
+     * @param i index of a series
+     * @return the color of the series, the first matches the editor's, the others are
+     * spread around the color wheel
+     */
+    public static Color seriesColor(int i) {
+        if (i == 0) {
+            return GTk.Editor.MATCH_FOREGROUND_COLOR;
+        }
+        return Color.getHSBColor((i * SERIES_HUE_STEP) % 1.0F, 0.65F, 0.95F);
     }
 
+    /**
+     * Plots the results, fitting the view to them. Wheel zooms, drag pans and double click
+     * fits the view again.
+     *
+     * @param x  x column
+     * @param ys y columns, a series each
+     */
+    public void setDataSet(Column x, Column... ys) {
+        stopLive();
+        clearRefinement();
+        refineQuery = null;
+        refineCheckBox.setEnabled(false);
+        baseColumns = concat(x, ys);
+        canvas.setDataSet(null, baseColumns);
+        canvas.resetView();
+    }
+
+    /**
+     * Enables refining the view, re-querying the interval zoomed into at a finer SAMPLE BY
+     * when the results have fewer rows than pixels there. Called after
+     * {@link #setDataSet(Column, Column...)}.
+     *
+     * @param executor executes the refined queries
+     * @param query    the query of the results, null when they cannot be refined
+     */
+    public void setRefinable(SQLExecutor executor, SampleByQuery query) {
+        refineExecutor = executor;
+        refineQuery = query;
+        refineCheckBox.setEnabled(query != null);
+    }
+
+    public LiveQuery.Mode getLiveMode() {
+        return (LiveQuery.Mode) liveMode.getSelectedItem();
+    }
+
+    /**
+     * Plots the results of the query, refreshed on the interval set in the live controls,
+     * into a sliding window of the size set there. Called on the EDT, as a response to
+     * {@link EventType#LIVE_REQUEST}.
+     *
+     * @param executor executes the query
+     * @param query    the live query
+     */
+    public void startLive(SQLExecutor executor, LiveQuery query) {
+        stopLive();
+        clearRefinement();
+        int intervalMillis = parsePositive(liveInterval, DEFAULT_LIVE_INTERVAL_MILLIS);
+        int window = parsePositive(liveWindow, DEFAULT_LIVE_WINDOW);
+        // one series per y column plotted, as named and colored
+        Column[] plotted = canvas.columns;
+        SlidingColumn x = new SlidingColumn("x", window, GTk.Editor.KEYWORD_FOREGROUND_COLOR, query.isTimestampKey());
+        SlidingColumn[] ys = new SlidingColumn[plotted != null ? plotted.length - 1 : 1];
+        for (int i = 0; i < ys.length; i++) {
+            ys[i] = plotted != null
+                    ? new SlidingColumn(plotted[i + 1].name(), window, plotted[i + 1].color())
+                    : new SlidingColumn("y", window, seriesColor(i));
+        }
+        canvas.setDataSet(null, concat(x, ys));
+        canvas.resetView();
+        liveExecutor = executor;
+        liveQuery = query;
+        isLiveRequestInFlight = false;
+        liveTimer = new Timer(intervalMillis, e -> onLiveTick(query, x, ys));
+        liveTimer.setInitialDelay(0);
+        liveTimer.start();
+        liveCheckBox.setSelected(true);
+        liveMode.setEnabled(false);
+        liveInterval.setEnabled(false);
+        liveWindow.setEnabled(false);
+        LOG.info().$("Live plot started [mode=").$(query.getMode().name())
+                .$(", intervalMillis=").$(intervalMillis)
+                .$(", window=").$(window)
+                .$(", series=").$(ys.length)
+                .I$();
+    }
+
+    public void stopLive() {
+        if (liveTimer != null) {
+            liveTimer.stop();
+            liveTimer = null;
+        }
+        LiveQuery query = liveQuery;
+        liveQuery = null;
+        if (query != null && liveExecutor != null) {
+            liveExecutor.cancelExistingRequest(query.nextRequest());
+            LOG.info().$("Live plot stopped").$();
+        }
+        liveExecutor = null;
+        liveCheckBox.setSelected(false);
+        liveMode.setEnabled(true);
+        liveInterval.setEnabled(true);
+        liveWindow.setEnabled(true);
+    }
+
+    /**
+     * Stops the live plot and the refinement, and cancels their requests in flight, without
+     * touching the dialog's components, thus it may be called off the EDT, as on shutdown,
+     * before closing the executor. No more requests are submitted after it returns.
+     */
+    public void stopRequests() {
+        isStopped = true;
+        LiveQuery query = liveQuery;
+        liveQuery = null;
+        refineTimer.stop(); // Timer.stop is thread safe
+        Timer timer = liveTimer;
+        if (timer != null) {
+            timer.stop();
+        }
+        SQLExecutor executor = liveExecutor;
+        if (executor != null && query != null) {
+            executor.cancelExistingRequest(query.nextRequest());
+        }
+        executor = refineExecutor;
+        SQLExecutionRequest req = refineRequest;
+        if (executor != null && req != null) {
+            executor.cancelExistingRequest(req);
+        }
+    }
+
+    @Override
+    public void setVisible(boolean isVisible) {
+        if (!isVisible) {
+            stopLive();
+            clearRefinement();
+        }
+        super.setVisible(isVisible);
+    }
+
+    private void onToggleLive(ActionEvent event) {
+        if (liveCheckBox.isSelected()) {
+            liveCheckBox.setSelected(false); // until started
+            eventConsumer.onSourceEvent(this, EventType.LIVE_REQUEST, null);
+        } else {
+            stopLive();
+        }
+    }
+
+    private void onLiveTick(LiveQuery query, Column x, Column[] ys) {
+        if (isStopped || isLiveRequestInFlight || liveQuery != query) {
+            return; // a slow query skips ticks rather than piling up
+        }
+        isLiveRequestInFlight = true;
+        liveExecutor.submit(query.nextRequest(), (source, event, res) -> onLiveEvent(query, x, ys, EventProducer.eventType(event), res));
+    }
+
+    // called by the executor's thread
+    private void onLiveEvent(LiveQuery query, Column x, Column[] ys, SQLExecutor.EventType event, SQLExecutionResponse res) {
+        switch (event) {
+            case COMPLETED -> {
+                if (liveQuery == query) {
+                    int appended = query.appendDelta(res.getTable(), x, ys);
+                    String text = String.format("+%d rows in %d ms", appended, res.getTotalMillis());
+                    GTk.invokeLater(() -> {
+                        status.setText(text);
+                        if (appended > 0) {
+                            canvas.repaint();
+                        }
+                    });
+                }
+                closeTable(res);
+                isLiveRequestInFlight = false;
+            }
+            case CANCELLED -> {
+                closeTable(res);
+                isLiveRequestInFlight = false;
+            }
+            case FAILURE -> {
+                closeTable(res);
+                isLiveRequestInFlight = false;
+                Throwable error = res.getError();
+                GTk.invokeLater(() -> {
+                    if (liveQuery == query) {
+                        stopLive();
+                        status.setText("");
+                        GTk.showErrorDialog(this, "Live plot stopped: " + (error != null ? error.getMessage() : "query failed"));
+                    }
+                });
+            }
+            default -> {
+                // rows are read on completion
+            }
+        }
+    }
+
+    // called by the canvas on the EDT, refines once the view settles
+    private void onViewChanged(double minX, double maxX, int visiblePoints, int plotWidth) {
+        viewMinX = minX;
+        viewMaxX = maxX;
+        viewPoints = visiblePoints;
+        viewWidth = plotWidth;
+        if (refineCheckBox.isSelected() && refineQuery != null && liveQuery == null) {
+            refineTimer.restart();
+        }
+    }
+
+    private void onRefineTick() {
+        if (isStopped) {
+            return;
+        }
+        if (!refineCheckBox.isSelected() || refineQuery == null || liveQuery != null || baseColumns == null) {
+            restoreResults();
+            return;
+        }
+        if (refinedTable != null && !(canvas.isZoomed() && viewMinX >= refinedMinX && viewMaxX <= refinedMaxX)) {
+            // out of the refined interval, back to the results, the view listener refines
+            // again should they be too sparse
+            restoreResults();
+            return;
+        }
+        if (!canvas.isZoomed() || viewPoints * 2 >= viewWidth) {
+            return; // enough rows, one every other pixel at least
+        }
+        SQLExecutionRequest req = refineQuery.refine(viewMinX, viewMaxX, viewWidth);
+        if (req == null || (refineRequest != null && req.getSqlCommand().equals(refineRequest.getSqlCommand()))) {
+            return; // not finer than the results, or already refined
+        }
+        double minX = viewMinX;
+        double maxX = viewMaxX;
+        refineRequest = req;
+        status.setText("refining...");
+        LOG.info().$("Refining plot [sql=").$(req.getSqlCommand()).I$();
+        refineExecutor.submit(req, (source, event, res) -> onRefineEvent(req, minX, maxX, EventProducer.eventType(event), res));
+    }
+
+    // called by the executor's thread
+    private void onRefineEvent(SQLExecutionRequest req, double minX, double maxX, SQLExecutor.EventType event, SQLExecutionResponse res) {
+        switch (event) {
+            case COMPLETED -> GTk.invokeLater(() -> applyRefinement(req, minX, maxX, res));
+            case CANCELLED -> closeTable(res);
+            case FAILURE -> {
+                closeTable(res);
+                Throwable error = res.getError();
+                GTk.invokeLater(() -> {
+                    if (refineRequest == req) {
+                        status.setText("refine failed: " + (error != null ? error.getMessage() : "query failed"));
+                    }
+                });
+            }
+            default -> {
+                // rows are read on completion
+            }
+        }
+    }
+
+    private void applyRefinement(SQLExecutionRequest req, double minX, double maxX, SQLExecutionResponse res) {
+        Table table = res.getTable();
+        if (refineRequest != req || baseColumns == null || liveQuery != null
+                || table == null || table.getColumnCount() != baseColumns.length + 1) {
+            closeTable(res);
+            return;
+        }
+        Column[] columns = new Column[baseColumns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (table.getNumericColumn(i + 1) == null) {
+                closeTable(res);
+                return;
+            }
+            columns[i] = new TableColumn(baseColumns[i].name(), table, i + 1, baseColumns[i].color());
+        }
+        canvas.setDataSet(null, columns);
+        if (refinedTable != null) {
+            refinedTable.close();
+        }
+        refinedTable = table;
+        refinedMinX = minX;
+        refinedMaxX = maxX;
+        status.setText(String.format("refined: %d rows in %d ms", table.size(), res.getTotalMillis()));
+    }
+
+    // plots the results again, dropping the refinement
+    private void restoreResults() {
+        if (refinedTable != null) {
+            canvas.setDataSet(null, baseColumns);
+            refinedTable.close();
+            refinedTable = null;
+            refineRequest = null;
+            status.setText("");
+        }
+    }
+
+    private void clearRefinement() {
+        refineTimer.stop();
+        if (refineRequest != null && refineExecutor != null) {
+            refineExecutor.cancelExistingRequest(refineRequest);
+        }
+        restoreResults();
+        refineRequest = null;
+    }
+
+    private static void closeTable(SQLExecutionResponse res) {
+        Table table = res.getTable();
+        if (table != null) {
+            table.close();
+        }
+    }
+
+    private static Column[] concat(Column x, Column[] ys) {
+        Column[] columns = new Column[ys.length + 1];
+        columns[0] = x;
+        System.arraycopy(ys, 0, columns, 1, ys.length);
+        return columns;
+    }
+
+    private static int parsePositive(JTextField field, int defaultValue) {
+        try {
+            int value = Integer.parseInt(field.getText().trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignore) {
+            // use the default
+        }
+        field.setText(String.valueOf(defaultValue));
+        return defaultValue;
+    }
 
     public enum EventType {
-        HIDE_REQUEST // Request to hide the metadata files explorer
+        HIDE_REQUEST, // Request to hide the metadata files explorer
+        LIVE_REQUEST // Request to start plotting the current results' query live
     }
 }
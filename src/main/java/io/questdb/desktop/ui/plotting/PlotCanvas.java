@@ -28,9 +28,16 @@ import io.questdb.desktop.GTk;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.GeneralPath;
-import java.awt.geom.Rectangle2D;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 
 public class PlotCanvas extends JPanel {
@@ -40,149 +47,589 @@ public class PlotCanvas extends JPanel {
     private static final int INSET_LEFT = 80;
     private static final int INSET_RIGHT = 20;
     private static final Insets PLOT_INSETS = new Insets(INSET_TOP, INSET_LEFT, INSET_BOTTOM, INSET_RIGHT);
+    private static final float POINT_RADIUS = 1.2F;
+    private static final int SNAPSHOT_ATTEMPTS = 3;
+    private static final int PARALLEL_MIN_POINTS = 64 * 1024; // below, series are prepared by the painting thread
+    private static final int LEGEND_GAP = 12;
+    private static final int LEGEND_SWATCH = 8;
+    private static final double ZOOM_STEP = 1.25; // range factor per wheel notch
+    private static final int MIN_VIEW_ULPS = 1000; // the narrowest view, in ulps of the x values
     public Column[] columns;
+    private Series[] series;
+    private final MinMaxPyramid xLevels = new MinMaxPyramid();
+    private ViewListener viewListener;
+    int parallelMinPoints = PARALLEL_MIN_POINTS; // tests compare the parallel and the serial paths
+    // viewport, NaN when fitting the data, changes are numbered by viewVersion
+    private double viewMinX = Double.NaN;
+    private double viewMaxX = Double.NaN;
+    private long viewVersion;
+    private final Axis xAxis = Axis.forX();
+    private final Axis yAxis = Axis.forY();
+    private final LabelBuffer titleLabel = new LabelBuffer(); // title and ranges
     private BasicStroke dashedStroke;
     private String title;
+    // cached, see updateCurve
+    private long xVersion = -1L;
+    private long curveViewVersion = -1L;
+    private int curveWidth = -1;
+    private int curveHeight = -1;
+    private double minX, minY, rangeX, rangeY, scaleX, scaleY;
+    private double fitRangeX; // range of x when fitting the data
+    private int visiblePoints;
+    // static layer, background and border, rebuilt when the size changes
+    private BufferedImage staticLayer;
+    private int staticLayerWidth, staticLayerHeight;
+    private double staticLayerScaleX, staticLayerScaleY;
+    // frame, the static layer, the axes and the curves, drawn again when the data, the
+    // view, or the size change
+    private final PlotRaster frame = new PlotRaster();
 
     public PlotCanvas() {
         setOpaque(true);
+        ViewMouseHandler mouseHandler = new ViewMouseHandler();
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
     }
 
+    /**
+     * @param viewListener notified on the EDT when the view, or the data, change
+     */
+    public void setViewListener(ViewListener viewListener) {
+        this.viewListener = viewListener;
+    }
+
+    /**
+     * Sets the series to plot, sharing the x column and the axes. Columns are paired by
+     * {@link Column#version()}, thus they may differ in size while they are appended to.
+     * The view is kept, see {@link #resetView()}.
+     *
+     * @param title   title of the plot, may be null
+     * @param columns x, followed by one or more y columns, each a series in its color
+     */
     public synchronized void setDataSet(String title, Column... columns) {
-        if (columns == null || columns.length != 2) {
-            throw new IllegalArgumentException("two columns are required");
+        if (columns == null || columns.length < 2) {
+            throw new IllegalArgumentException("an x and at least one y column are required");
         }
-        for (int i = 1; i < columns.length; i++) {
-            if (columns[0].size() != columns[i].size()) {
-                throw new IllegalArgumentException("sizes must match and be greater than zero, at index " + i);
-            }
+        Series[] series = new Series[columns.length - 1];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new Series(columns[i + 1]);
         }
         this.title = title;
         this.columns = columns;
+        this.series = series;
+        xVersion = -1L;
+        xLevels.reset();
+    }
+
+    /**
+     * Fits the view to the data, undoing zoom and pan.
+     */
+    public synchronized void resetView() {
+        setView(Double.NaN, Double.NaN);
+    }
+
+    public synchronized boolean isZoomed() {
+        return !Double.isNaN(viewMinX);
+    }
+
+    synchronized void setView(double minX, double maxX) {
+        viewMinX = minX;
+        viewMaxX = maxX;
+        viewVersion++;
+        repaint();
+    }
+
+    // zooms by factor, keeping the x under the mouse in place
+    private synchronized void zoom(int mouseX, double factor) {
+        if (columns == null || !(rangeX > 0.0) || !(scaleX > 0.0)) {
+            return;
+        }
+        double cursorX = minX + (mouseX - PLOT_INSETS.left) / scaleX;
+        double range = rangeX * factor;
+        if (factor > 1.0 && range >= fitRangeX) {
+            resetView();
+        } else if (range > Math.ulp(cursorX) * MIN_VIEW_ULPS) {
+            double min = cursorX - (cursorX - minX) * factor;
+            setView(min, min + range);
+        }
+    }
+
+    private synchronized void pan(int pixels) {
+        if (columns == null || !(rangeX > 0.0) || !(scaleX > 0.0)) {
+            return;
+        }
+        double min = minX - pixels / scaleX;
+        setView(min, min + rangeX);
     }
 
     @Override
     public void paint(Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-        super.paintComponent(g2);
-
         int height = getHeight();
         int width = getWidth();
         int plotHeight = height - (PLOT_INSETS.top + PLOT_INSETS.bottom);
         int plotWidth = width - (PLOT_INSETS.left + PLOT_INSETS.right);
 
+        // Static layer: background and border, cached
+        boolean hasCurve = false;
+        Series[] series;
+        double minX = 0.0;
+        double minY = 0.0;
+        double rangeX = 0.0;
+        double rangeY = 0.0;
+        double scaleX = 0.0;
+        double scaleY = 0.0;
+        boolean isViewChanged = false;
+        int visiblePoints = 0;
+        synchronized (this) {
+            series = this.series;
+            if (null != columns) {
+                isViewChanged = updateCurve(plotWidth, plotHeight);
+                visiblePoints = this.visiblePoints;
+                hasCurve = true;
+                minX = this.minX;
+                minY = this.minY;
+                rangeX = this.rangeX;
+                rangeY = this.rangeY;
+                scaleX = this.scaleX;
+                scaleY = this.scaleY;
+            }
+        }
+        AffineTransform tx = g2.getTransform();
+        double deviceScaleX = tx.getScaleX();
+        double deviceScaleY = tx.getScaleY();
+        boolean isFrameStale = isViewChanged;
+        if (staticLayer == null
+                || staticLayerWidth != width
+                || staticLayerHeight != height
+                || staticLayerScaleX != deviceScaleX
+                || staticLayerScaleY != deviceScaleY) {
+            int imgWidth = Math.max(1, (int) Math.ceil(width * deviceScaleX));
+            int imgHeight = Math.max(1, (int) Math.ceil(height * deviceScaleY));
+            if (staticLayer == null || staticLayer.getWidth() != imgWidth || staticLayer.getHeight() != imgHeight) {
+                if (staticLayer != null) {
+                    staticLayer.flush();
+                }
+                staticLayer = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D lg = staticLayer.createGraphics();
+            try {
+                lg.scale(deviceScaleX, deviceScaleY);
+                paintStaticLayer(lg, width, height, plotWidth, plotHeight);
+            } finally {
+                lg.dispose();
+            }
+            staticLayerWidth = width;
+            staticLayerHeight = height;
+            staticLayerScaleX = deviceScaleX;
+            staticLayerScaleY = deviceScaleY;
+            isFrameStale = true;
+        }
+
+        // Axes and curves, drawn over a copy of the static layer in device pixels. The
+        // axes move with the ranges, which change with every append to a streaming plot,
+        // thus they are drawn with each frame rather than cached with the static layer
+        if (frame.resize(staticLayer.getWidth(), staticLayer.getHeight()) || isFrameStale) {
+            frame.copyFrom(staticLayer);
+            boolean hasAxes = false;
+            if (hasCurve) {
+                Graphics2D fg = frame.image().createGraphics();
+                try {
+                    fg.setFont(getFont());
+                    fg.scale(deviceScaleX, deviceScaleY);
+                    hasAxes = paintAxes(fg, height, plotWidth, plotHeight, series, minX, minY, rangeX, rangeY, scaleX, scaleY);
+                } finally {
+                    fg.dispose();
+                }
+            }
+            if (hasAxes) {
+                // Draw only within plotting area
+                double originX = PLOT_INSETS.left;
+                double originY = height - PLOT_INSETS.bottom;
+                int clipX = (int) Math.floor(originX * deviceScaleX);
+                int clipY = (int) Math.floor((originY - plotHeight) * deviceScaleY);
+                frame.setClip(
+                        clipX,
+                        clipY,
+                        (int) Math.ceil((originX + plotWidth + 1) * deviceScaleX) - clipX,
+                        (int) Math.ceil((originY + 1) * deviceScaleY) - clipY);
+                synchronized (this) {
+                    drawSeries(series, originX, originY, deviceScaleX, deviceScaleY);
+                }
+            }
+        }
+        g2.drawImage(frame.image(), 0, 0, width, height, null);
+        ViewListener listener = viewListener;
+        if (isViewChanged && listener != null) {
+            listener.onViewChanged(minX, minX + rangeX, visiblePoints, plotWidth);
+        }
+    }
+
+    // draws the series into the frame, in order. Many points are drawn in parallel, on the
+    // common fork-join pool, each task drawing all of the series into a band of rows
+    private void drawSeries(Series[] series, double originX, double originY, double deviceScaleX, double deviceScaleY) {
+        long points = 0L;
+        for (Series s : series) {
+            points += s.size;
+        }
+        int bands = points >= parallelMinPoints ? Math.min(ForkJoinPool.getCommonPoolParallelism(), frame.clipHeight()) : 1;
+        if (bands <= 1) {
+            for (Series s : series) {
+                s.draw(frame, originX, originY, deviceScaleX, deviceScaleY);
+            }
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bands);
+        int clipY = frame.clipY();
+        int clipHeight = frame.clipHeight();
+        for (int b = 0; b < bands; b++) {
+            int from = clipY + (int) ((long) clipHeight * b / bands);
+            int to = clipY + (int) ((long) clipHeight * (b + 1) / bands);
+            PlotRaster band = frame.band(from, to - from);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (Series s : series) {
+                    s.draw(band, originX, originY, deviceScaleX, deviceScaleY);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private static void paintStaticLayer(Graphics2D g2, int width, int height, int plotWidth, int plotHeight) {
         // Fill background and draw border around plot area.
         g2.setColor(GTk.APP_BACKGROUND_COLOR);
         g2.fillRect(0, 0, width, height);
         g2.setColor(GTk.Editor.PLOT_BORDER_COLOR);
         g2.drawRect(PLOT_INSETS.left, PLOT_INSETS.top, plotWidth, plotHeight);
+    }
+
+    // returns false when there are no axes, and thus no curve is to be drawn
+    private boolean paintAxes(
+            Graphics2D g2,
+            int height,
+            int plotWidth,
+            int plotHeight,
+            Series[] series,
+            double minX,
+            double minY,
+            double rangeX,
+            double rangeY,
+            double scaleX,
+            double scaleY
+    ) {
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+
+        // Shift coordinate centre to bottom-left corner of the internal rectangle.
+        g2.translate(PLOT_INSETS.left, height - PLOT_INSETS.bottom);
+        double maxX = minX + rangeX;
+        double maxY = minY + rangeY;
+        Axis x = xAxis;
+        Axis y = yAxis;
+        if (!x.layout(g2, minX, rangeX, scaleX, columns[0].isTimestamp()) || !y.layout(g2, minY, rangeY, scaleY, false)) {
+            return false;
+        }
+
+        // Draw Zero line
+        int yPositionOfZero = y.getYPositionOfZeroLabel();
+        g2.drawLine(0, yPositionOfZero, plotWidth, yPositionOfZero);
+
+        // Draw ticks and their labels
+        int verticalPos = Axis.TICK_LENGTH + x.getHeight(0);
+        BasicStroke stroke = (BasicStroke) g2.getStroke();
+        if (dashedStroke == null) {
+            dashedStroke = new BasicStroke(stroke.getLineWidth(), stroke.getEndCap(), stroke.getLineJoin(), stroke.getMiterLimit(), DASHED_LINE, 0);
+        }
+        for (int i = 0, n = x.size(); i < n; i++) {
+            int pos = x.position(i);
+            g2.setColor(GTk.Editor.PLOT_BORDER_COLOR);
+            g2.drawLine(pos, 0, pos, Axis.TICK_LENGTH);
+            x.drawLabel(g2, i, pos - x.width(i) / 2, verticalPos);
+            g2.setColor(GTk.Editor.LINENO_COLOR);
+            g2.setStroke(dashedStroke);
+            g2.drawLine(pos, 0, pos, -plotHeight);
+            g2.setStroke(stroke);
+        }
+        for (int i = 0, n = y.size(); i < n; i++) {
+            int pos = y.position(i);
+            g2.setColor(GTk.Editor.PLOT_BORDER_COLOR);
+            g2.drawLine(0, pos, -Axis.TICK_LENGTH, pos);
+            y.drawLabel(g2, i, -(y.width(i) + Axis.TICK_LENGTH + 2), pos + y.getHeight(i) / 2 - 2);
+            if (i == 0 || i == n - 1 || y.isZero(i)) {
+                continue;
+            }
+            g2.setColor(GTk.Editor.LINENO_COLOR);
+            g2.setStroke(dashedStroke);
+            g2.drawLine(0, pos, plotWidth, pos);
+            g2.setStroke(stroke);
+        }
+
+        // Draw title and ranges
+        g2.setColor(GTk.Editor.MENU_FOREGROUND_COLOR);
+        LabelBuffer ranges = titleLabel;
+        ranges.clear();
+        if (title != null) {
+            ranges.put(title);
+        }
+        ranges.put(" x:[");
+        x.putValue(ranges, minX);
+        ranges.put(", ");
+        x.putValue(ranges, maxX);
+        ranges.put("], y:[");
+        y.putValue(ranges, minY);
+        ranges.put(", ");
+        y.putValue(ranges, maxY);
+        ranges.put(']');
+        int titlePos = Math.round(INSET_BOTTOM * 3 / 4.0F);
+        ranges.draw(g2, 0, ranges.length(), 0, titlePos);
 
-        // draw curve
-        if (null != columns) {
-            // Shift coordinate centre to bottom-left corner of the internal rectangle.
-            g2.translate(PLOT_INSETS.left, height - PLOT_INSETS.bottom);
-
-            double minX;
-            double maxX;
-            double minY;
-            double maxY;
-            synchronized (this) {
-                minX = columns[0].min();
-                maxX = columns[0].max();
-                minY = columns[1].min();
-                maxY = columns[1].max();
-            }
-            double deltaX = Math.abs(maxX - minX) * 0.005F;
+        // Draw the legend after the title, when there is more than one series
+        if (series.length > 1) {
+            FontMetrics metrics = g2.getFontMetrics();
+            int legendPos = ranges.width(metrics, 0, ranges.length());
+            for (Series s : series) {
+                String name = s.column.name();
+                legendPos += LEGEND_GAP;
+                g2.setColor(s.column.color());
+                g2.fillRect(legendPos, titlePos - LEGEND_SWATCH, LEGEND_SWATCH, LEGEND_SWATCH);
+                legendPos += LEGEND_SWATCH + 4;
+                g2.drawString(name, legendPos, titlePos);
+                legendPos += metrics.stringWidth(name);
+            }
+        }
+        return true;
+    }
+
+    // recomputes the ranges and the downsampled curves of the series whose data, or scale,
+    // changed, when the data, the view or the size of the plot area change, called holding
+    // this canvas's lock. The ranges are shared, the union of those of the series, within
+    // the view when zoomed and x is ascending. Columns are read from snapshots, aligned by
+    // version, and read again should they have been overwritten while being read. Series
+    // are prepared in parallel, on the common fork-join pool, when there are enough points.
+    // Returns true when the curves were updated
+    private boolean updateCurve(int plotWidth, int plotHeight) {
+        for (int attempt = 1; ; attempt++) {
+            Column xs = columns[0].snapshot();
+            long xVersion = xs.version();
+            boolean isDataChanged = xVersion != this.xVersion;
+            long points = 0L;
+            for (Series s : series) {
+                s.snapshot = s.column.snapshot();
+                isDataChanged |= s.snapshot.version() != s.version;
+                points += s.snapshot.size();
+            }
+            if (!isDataChanged && viewVersion == curveViewVersion && plotWidth == curveWidth && plotHeight == curveHeight) {
+                return false;
+            }
+            boolean isParallel = series.length > 1 && points >= parallelMinPoints;
+            xLevels.update(xs);
+            forEach(series, isParallel, s -> s.levels.update(s.snapshot));
+            boolean isAscending = xLevels.isAscending();
+
+            // ranges, x is that of the view when zoomed
+            int xSize = xs.size();
+            long xStart = xVersion - xSize;
+            double dataMinX = xs.min();
+            double dataMaxX = xs.max();
+            double fitDeltaX = Math.abs(dataMaxX - dataMinX) * 0.005F;
+            double fitMinX = dataMinX - fitDeltaX;
+            double fitRangeX = dataMaxX + fitDeltaX - fitMinX;
+            boolean isZoomed = !Double.isNaN(viewMinX);
+            double minX = isZoomed ? viewMinX : fitMinX;
+            double rangeX = isZoomed ? viewMaxX - viewMinX : fitRangeX;
+            int visibleFrom = 0;
+            int visibleTo = xSize;
+            if (isZoomed && isAscending) {
+                visibleFrom = Downsampler.lowerBound(xs, 0, 0, xSize, minX);
+                visibleTo = Downsampler.lowerBound(xs, 0, visibleFrom, xSize, minX + rangeX);
+            }
+            // y fits the visible points, or all of them when none is visible, values
+            // without an x are not plotted, thus not fitted
+            int rangeFrom = visibleFrom < visibleTo ? visibleFrom : 0;
+            int rangeTo = visibleFrom < visibleTo ? visibleTo : xSize;
+            double minY = Double.NaN;
+            double maxY = Double.NaN;
+            for (Series s : series) {
+                // x index i pairs with y index i + xStart - yStart
+                int offset = (int) (xStart - (s.snapshot.version() - s.snapshot.size()));
+                int yFrom = rangeFrom + offset;
+                int yTo = rangeTo + offset;
+                double min;
+                double max;
+                if (yFrom <= 0 && yTo >= s.snapshot.size()) {
+                    min = s.snapshot.min();
+                    max = s.snapshot.max();
+                } else {
+                    min = s.levels.min(s.snapshot, yFrom, yTo);
+                    max = s.levels.max(s.snapshot, yFrom, yTo);
+                }
+                if (Double.isNaN(minY) || min < minY) {
+                    minY = min;
+                }
+                if (Double.isNaN(maxY) || max > maxY) {
+                    maxY = max;
+                }
+            }
             double deltaY = Math.abs(maxY - minY) * 0.07F;
-            minX -= deltaX;
-            maxX += deltaX;
             minY -= deltaY;
-            maxY += deltaY;
-            double rangeX = maxX - minX;
-            double rangeY = maxY - minY;
+            double rangeY = maxY + deltaY - minY;
             double scaleX = plotWidth / rangeX;
             double scaleY = plotHeight / rangeY;
-            double pointSizeFactor = 1.2;
-            double xTick = pointSizeFactor / scaleX;
-            double yTick = pointSizeFactor / scaleY;
-            double xPointWidth = xTick * 2.0F;
-            double yPointWidth = yTick * 2.0F;
-            Axis x = Axis.forX(g2, minX, rangeX, scaleX);
-            Axis y = Axis.forY(g2, minY, rangeY, scaleY);
-            if (x == null || y == null) {
-                return;
-            }
-
-            // Draw Zero line
-            int yPositionOfZero = y.getYPositionOfZeroLabel();
-            g2.drawLine(0, yPositionOfZero, plotWidth, yPositionOfZero);
-
-            // Draw ticks and their labels
-            int verticalPos = Axis.TICK_LENGTH + x.getHeight(0);
-            BasicStroke stroke = (BasicStroke) g2.getStroke();
-            if (dashedStroke == null) {
-                dashedStroke = new BasicStroke(stroke.getLineWidth(), stroke.getEndCap(), stroke.getLineJoin(), stroke.getMiterLimit(), DASHED_LINE, 0);
-            }
-            for (int i = 0, n = x.size(); i < n; i++) {
-                int pos = x.position(i);
-                g2.setColor(GTk.Editor.PLOT_BORDER_COLOR);
-                g2.drawLine(pos, 0, pos, Axis.TICK_LENGTH);
-                g2.drawString(x.label(i), pos - x.width(i) / 2, verticalPos);
-                g2.setColor(GTk.Editor.LINENO_COLOR);
-                g2.setStroke(dashedStroke);
-                g2.drawLine(pos, 0, pos, -plotHeight);
-                g2.setStroke(stroke);
-            }
-            for (int i = 0, n = y.size(); i < n; i++) {
-                int pos = y.position(i);
-                g2.setColor(GTk.Editor.PLOT_BORDER_COLOR);
-                g2.drawLine(0, pos, -Axis.TICK_LENGTH, pos);
-                g2.drawString(y.label(i), -(y.width(i) + Axis.TICK_LENGTH + 2), pos + y.getHeight(i) / 2 - 2);
-                if (i == 0 || i == n - 1 || y.isZero(i)) {
-                    continue;
+
+            // curves
+            boolean isRescaled = minX != this.minX || minY != this.minY || scaleX != this.scaleX || scaleY != this.scaleY;
+            for (Series s : series) {
+                s.isStale = isRescaled || xVersion != this.xVersion || s.snapshot.version() != s.version;
+            }
+            double originX = minX;
+            double originY = minY;
+            forEach(series, isParallel, s -> {
+                if (s.isStale) {
+                    s.prepare(xs, isAscending, originX, originY, scaleX, scaleY, plotWidth);
                 }
-                g2.setColor(GTk.Editor.LINENO_COLOR);
-                g2.setStroke(dashedStroke);
-                g2.drawLine(0, pos, plotWidth, pos);
-                g2.setStroke(stroke);
-            }
-
-            // Draw title and ranges
-            g2.setColor(GTk.Editor.MENU_FOREGROUND_COLOR);
-            g2.drawString(String.format("%s x:[%s, %s], y:[%s, %s]", title != null ? title : "", Axis.fmtX(minX), Axis.fmtX(maxX), Axis.fmtY(minY), Axis.fmtY(maxY)), 0, Math.round(INSET_BOTTOM * 3 / 4.0F));
-
-            // Scale the coordinate system to match plot coordinates
-            g2.scale(scaleX, -scaleY);
-            g2.translate(-1.0F * minX, -1.0F * minY);
-
-            // Draw only within plotting area
-            g2.setClip(new Rectangle2D.Double(minX, minY, rangeX, rangeY));
-
-            // Set stroke for curve
-            g2.setStroke(new BasicStroke((float) Math.abs(1.0F / (100.0F * Math.max(scaleX, scaleY)))));
-            g2.setColor(columns[1].color());
-
-            GeneralPath path = null;
-            synchronized (this) {
-                int n = columns[1].size();
-                if (n > 0) {
-                    path = new GeneralPath(GeneralPath.WIND_NON_ZERO, n);
-                    double px = columns[0].get(0);
-                    double py = columns[1].get(0);
-                    path.moveTo(px, py);
-                    g2.fill(new Ellipse2D.Double(px - xTick, py - yTick, xPointWidth, yPointWidth));
-                    for (int i = 1; i < n; i++) {
-                        px = columns[0].get(i);
-                        py = columns[1].get(i);
-                        path.lineTo(px, py);
-                        g2.fill(new Ellipse2D.Double(px - xTick, py - yTick, xPointWidth, yPointWidth));
-                    }
+            });
+            boolean isValid = xs.isValid();
+            for (int i = 0; isValid && i < series.length; i++) {
+                isValid = series[i].snapshot.isValid();
+            }
+            if (attempt < SNAPSHOT_ATTEMPTS && !isValid) {
+                // the pyramids may hold overwritten values
+                xLevels.reset();
+                for (Series s : series) {
+                    s.levels.reset();
                 }
+                continue;
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.rangeX = rangeX;
+            this.rangeY = rangeY;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.fitRangeX = fitRangeX;
+            this.xVersion = xVersion;
+            this.visiblePoints = visibleTo - visibleFrom;
+            for (Series s : series) {
+                s.version = s.snapshot.version();
+                s.snapshot = null;
             }
-            if (path != null) {
-                g2.draw(path);
+            curveViewVersion = viewVersion;
+            curveWidth = plotWidth;
+            curveHeight = plotHeight;
+            return true;
+        }
+    }
+
+    // y range of the curves last prepared, for tests
+    synchronized double minY() {
+        return minY;
+    }
+
+    synchronized double maxY() {
+        return minY + rangeY;
+    }
+
+    private static void forEach(Series[] series, boolean isParallel, Consumer<Series> action) {
+        if (isParallel) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(series.length);
+            for (Series s : series) {
+                tasks.add(ForkJoinTask.adapt(() -> action.accept(s)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for (Series s : series) {
+                action.accept(s);
+            }
+        }
+    }
+
+    public interface ViewListener {
+        /**
+         * @param minX          x at the left edge of the plot area
+         * @param maxX          x at the right edge of the plot area
+         * @param visiblePoints points within [minX, maxX] when x is ascending, else all
+         * @param plotWidth     width of the plot area in pixels
+         */
+        void onViewChanged(double minX, double maxX, int visiblePoints, int plotWidth);
+    }
+
+    // a y column and its downsampled curve, in pixel coordinates
+    private static final class Series {
+        private final Column column;
+        private final MinMaxPyramid levels = new MinMaxPyramid();
+        private final Downsampler downsampler = new Downsampler();
+        private int size; // of the curve, points reduced by the downsampler
+        private long version = -1L; // of the column, when the curve was prepared
+        private Column snapshot; // being prepared
+        private boolean isStale;
+
+        private Series(Column column) {
+            this.column = column;
+        }
+
+        private void prepare(Column xs, boolean isAscending, double originX, double originY, double scaleX, double scaleY, int plotWidth) {
+            Column ys = snapshot;
+            long xVersion = xs.version();
+            long yVersion = ys.version();
+            long xStart = xVersion - xs.size();
+            long yStart = yVersion - ys.size();
+            long start = Math.max(xStart, yStart);
+            int n = (int) Math.max(0L, Math.min(xVersion, yVersion) - start);
+            int xFrom = (int) (start - xStart);
+            int yFrom = (int) (start - yStart);
+            size = isAscending
+                    ? downsampler.reduceAscending(xs, xFrom, ys, yFrom, levels, n, originX, originY, scaleX, scaleY, plotWidth)
+                    : downsampler.reduce(xs, xFrom, ys, yFrom, n, originX, originY, scaleX, scaleY);
+        }
+
+        // draws the curve, and its points, relative to the origin of the plot area, scaled
+        // to device pixels. They are of the same color, thus drawn in one pass
+        private void draw(PlotRaster frame, double originX, double originY, double deviceScaleX, double deviceScaleY) {
+            Downsampler curve = downsampler;
+            int n = size;
+            frame.setColor(column.color());
+            double radiusX = POINT_RADIUS * deviceScaleX;
+            double radiusY = POINT_RADIUS * deviceScaleY;
+            double prevX = 0.0;
+            double prevY = 0.0;
+            for (int i = 0; i < n; i++) {
+                double px = (originX + curve.x(i)) * deviceScaleX;
+                double py = (originY + curve.y(i)) * deviceScaleY;
+                if (i > 0) {
+                    frame.drawLine(prevX, prevY, px, py);
+                }
+                frame.fillEllipse(px, py, radiusX, radiusY);
+                prevX = px;
+                prevY = py;
+            }
+        }
+    }
+
+    // wheel zooms around the mouse, drag pans, double click fits the view to the data
+    private final class ViewMouseHandler extends MouseAdapter {
+        private int dragX;
+
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            zoom(e.getX(), Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()));
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            dragX = e.getX();
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            pan(e.getX() - dragX);
+            dragX = e.getX();
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+                resetView();
             }
         }
     }
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+
+/**
+ * Frame of a plot, an int[] of RGB pixels drawn into directly, and blitted with a single
+ * drawImage.
+ * <p>
+ * Coordinates are in pixels of the frame, pixel centres are at integer coordinates, as
+ * they are for Java2D's non anti-aliased rendering with the default stroke control. Lines
+ * are one pixel wide, they span the columns (rows when steep) nearest their ends, and
+ * light in each the pixel nearest the line at the column's centre, clamped to their ends,
+ * thus the pixels of a line are adjacent. Points are filled ellipses, drawn scanline by
+ * scanline, lighting the pixels whose centre falls within, a few more at their outline
+ * than Java2D lights by filling the curves it flattens the ellipse into. Shapes are
+ * clipped by the pixels they light, which do not depend on the clip rectangle, thus a
+ * frame can be drawn in bands, each by a {@link #band(int, int)} view of its own, in
+ * parallel, to the same pixels it would be drawn at once.
+ * <p>
+ * Drawing costs a few writes per pixel lit, and nothing per shape besides, thus millions
+ * of points are drawn in tens of milliseconds, where Java2D would build and fill a path
+ * of them.
+ * <p>
+ * Not thread safe, bands may be drawn concurrently.
+ */
+final class PlotRaster {
+    private BufferedImage image;
+    private int[] pixels;
+    private int width;
+    private int height;
+    // clip rectangle, inclusive
+    private int clipMinX, clipMinY, clipMaxX, clipMaxY;
+    private int rgb;
+
+    PlotRaster() {
+    }
+
+    private PlotRaster(PlotRaster frame) {
+        image = frame.image;
+        pixels = frame.pixels;
+        width = frame.width;
+        height = frame.height;
+        clipMinX = frame.clipMinX;
+        clipMinY = frame.clipMinY;
+        clipMaxX = frame.clipMaxX;
+        clipMaxY = frame.clipMaxY;
+        rgb = frame.rgb;
+    }
+
+    /**
+     * @param width  width in pixels
+     * @param height height in pixels
+     * @return true when the frame was reallocated, and its pixels are to be drawn again
+     */
+    boolean resize(int width, int height) {
+        if (image != null && this.width == width && this.height == height) {
+            return false;
+        }
+        if (image != null) {
+            image.flush();
+        }
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.width = width;
+        this.height = height;
+        setClip(0, 0, width, height);
+        return true;
+    }
+
+    BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Copies the pixels of the image, which must be of type {@link BufferedImage#TYPE_INT_RGB}
+     * and of the same size.
+     */
+    void copyFrom(BufferedImage background) {
+        int[] src = ((DataBufferInt) background.getRaster().getDataBuffer()).getData();
+        System.arraycopy(src, 0, pixels, 0, width * height);
+    }
+
+    /**
+     * @param y      first row of the band
+     * @param height number of rows
+     * @return a view of the rows of this frame within the clip rectangle, clipped to them
+     */
+    PlotRaster band(int y, int height) {
+        PlotRaster band = new PlotRaster(this);
+        band.clipMinY = Math.max(clipMinY, y);
+        band.clipMaxY = Math.min(clipMaxY, y + height - 1);
+        return band;
+    }
+
+    void setClip(int x, int y, int w, int h) {
+        clipMinX = Math.max(0, x);
+        clipMinY = Math.max(0, y);
+        clipMaxX = Math.min(width, x + w) - 1;
+        clipMaxY = Math.min(height, y + h) - 1;
+    }
+
+    int clipY() {
+        return clipMinY;
+    }
+
+    int clipHeight() {
+        return Math.max(0, clipMaxY - clipMinY + 1);
+    }
+
+    void setColor(Color color) {
+        rgb = color.getRGB();
+    }
+
+    void drawLine(double x0, double y0, double x1, double y1) {
+        double minX = Math.min(x0, x1);
+        double maxX = Math.max(x0, x1);
+        double minY = Math.min(y0, y1);
+        double maxY = Math.max(y0, y1);
+        if (maxX < clipMinX - 0.5 || minX >= clipMaxX + 0.5 || maxY < clipMinY - 0.5 || minY >= clipMaxY + 0.5) {
+            return;
+        }
+        if (maxX - minX >= maxY - minY) {
+            drawSpan(x0, y0, x1, y1, clipMinX, clipMaxX, clipMinY, clipMaxY, 1, width);
+        } else {
+            // steep, rows for columns
+            drawSpan(y0, x0, y1, x1, clipMinY, clipMaxY, clipMinX, clipMaxX, width, 1);
+        }
+    }
+
+    // lights, for each column u the line spans, the row v nearest it at the column's
+    // centre, clamped to the line's ends. Columns step the pixel index by uStep, rows by vStep
+    private void drawSpan(double u0, double v0, double u1, double v1, int uMin, int uMax, int vMin, int vMax, int uStep, int vStep) {
+        if (u0 > u1) {
+            double t = u0;
+            u0 = u1;
+            u1 = t;
+            t = v0;
+            v0 = v1;
+            v1 = t;
+        }
+        double slope = u1 > u0 ? (v1 - v0) / (u1 - u0) : 0.0;
+        // the columns nearest the ends, clipped as columns rather than as coordinates, for
+        // the pixels lit not to depend on the clip
+        int from = floor(Math.max(uMin, u0 + 0.5));
+        int to = floor(Math.min(uMax, u1 + 0.5));
+        if (slope != 0.0) {
+            // columns where the line is within the clip's rows, give or take one
+            double uA = u0 + (vMin - 0.5 - v0) / slope;
+            double uB = u0 + (vMax + 0.5 - v0) / slope;
+            double lo = Math.min(uA, uB) - 1.0;
+            double hi = Math.max(uA, uB) + 1.0;
+            if (lo > to || hi < from) {
+                return;
+            }
+            from = floor(Math.max(from, lo));
+            to = floor(Math.min(to, hi));
+        }
+        int[] pixels = this.pixels;
+        int rgb = this.rgb;
+        for (int u = from; u <= to; u++) {
+            double at = Math.max(u0, Math.min(u1, u));
+            int v = floor(v0 + (at - u0) * slope + 0.5);
+            if (v >= vMin && v <= vMax) {
+                pixels[u * uStep + v * vStep] = rgb;
+            }
+        }
+    }
+
+    /**
+     * Fills the ellipse centred at (cx, cy), with radii rx and ry.
+     */
+    void fillEllipse(double cx, double cy, double rx, double ry) {
+        if (cy + ry < clipMinY || cy - ry > clipMaxY || cx + rx < clipMinX || cx - rx > clipMaxX) {
+            return;
+        }
+        int yFrom = Math.max(clipMinY, -floor(ry - cy)); // ceil(cy - ry)
+        int yTo = Math.min(clipMaxY, floor(cy + ry));
+        int[] pixels = this.pixels;
+        int rgb = this.rgb;
+        for (int y = yFrom; y <= yTo; y++) {
+            double dy = (y - cy) / ry;
+            double halfWidth = rx * Math.sqrt(1.0 - dy * dy);
+            int xFrom = Math.max(clipMinX, -floor(halfWidth - cx)); // ceil(cx - halfWidth)
+            int xTo = Math.min(clipMaxX, floor(cx + halfWidth));
+            for (int idx = y * width + xFrom, end = y * width + xTo; idx <= end; idx++) {
+                pixels[idx] = rgb;
+            }
+        }
+    }
+
+    // Math.floor, for values within the range of int
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+}
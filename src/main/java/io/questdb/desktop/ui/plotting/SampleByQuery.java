@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.ui.plotting;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.SQLExecutionRequest;
+
+
+/**
+ * A query sampled by time, plotted against its timestamp, rewritten to sample an interval
+ * at a finer granularity. The plot uses it to refine the view when zoomed in beyond the
+ * resolution of the results:
+ * <pre>
+ *     ... SAMPLE BY 1h ...
+ * </pre>
+ * becomes:
+ * <pre>
+ *     ... WHERE x &gt;= 'from' AND x &lt; 'to' SAMPLE BY 10m ...
+ * </pre>
+ * with a step giving about one row per pixel, and the filter on x, the sampled timestamp,
+ * bounding the interval on the server. An existing WHERE is kept, and the filter is added
+ * to it. SAMPLE BY FROM-TO would bound the interval too, but servers before 8.0 do not
+ * support it. Queries with more than one SAMPLE BY, or with FROM-TO already, are not
+ * refined.
+ * <p>
+ * Requests bypass the result cache, the plot owns their tables.
+ */
+public class SampleByQuery {
+    public static final String SOURCE_ID = "plot-refine";
+    private static final Pattern SAMPLE_BY = Pattern.compile("(?i:\\bSAMPLE\\s+BY)\\s+(\\d+)\\s*([UTsmhdwMy])\\b(?!\\s+(?i:FROM)\\b)");
+    private static final String[] STEPS = {
+            "1T", "2T", "5T", "10T", "20T", "50T", "100T", "200T", "500T",
+            "1s", "2s", "5s", "10s", "15s", "30s",
+            "1m", "2m", "5m", "10m", "15m", "30m",
+            "1h", "2h", "3h", "6h", "12h", "1d"
+    };
+    private static final long[] STEP_MICROS = new long[STEPS.length];
+    private static final DateTimeFormatter LITERAL_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    static {
+        for (int i = 0; i < STEPS.length; i++) {
+            String step = STEPS[i];
+            int last = step.length() - 1;
+            STEP_MICROS[i] = Long.parseLong(step.substring(0, last)) * unitMicros(step.charAt(last));
+        }
+    }
+
+    private final DbConn conn;
+    private final String query;
+    private final String xName;
+    private final int xType;
+    private final int sampleByStart; // of the SAMPLE BY clause within the query
+    private final int sampleByEnd;
+    private final long stepMicros; // of the query
+
+    private SampleByQuery(DbConn conn, String query, String xName, int xType, Matcher sampleBy) {
+        this.conn = conn;
+        this.query = query;
+        this.xName = xName;
+        this.xType = xType;
+        sampleByStart = sampleBy.start();
+        sampleByEnd = sampleBy.end();
+        stepMicros = Long.parseLong(sampleBy.group(1)) * unitMicros(sampleBy.group(2).charAt(0));
+    }
+
+    /**
+     * @param conn  connection to execute the refined queries through
+     * @param query the query, the first column of its results is x
+     * @param xName name of the x column, the designated timestamp of the sampled table,
+     *              refined queries fail when it is an alias
+     * @param xType SQL type of the x column, see {@link java.sql.Types}
+     * @return the query, or null when it cannot be refined: x is not a timestamp, or the
+     * query does not have exactly one SAMPLE BY without FROM-TO
+     */
+    public static SampleByQuery of(DbConn conn, String query, String xName, int xType) {
+        if (conn == null || query == null || xName == null || (xType != Types.TIMESTAMP && xType != Types.TIMESTAMP_WITH_TIMEZONE)) {
+            return null;
+        }
+        Matcher sampleBy = SAMPLE_BY.matcher(query);
+        if (!sampleBy.find()) {
+            return null;
+        }
+        SampleByQuery sampleByQuery = new SampleByQuery(conn, query, xName, xType, sampleBy);
+        return sampleBy.find() ? null : sampleByQuery;
+    }
+
+    // approximate for months and years, steps are only compared
+    private static long unitMicros(char unit) {
+        return switch (unit) {
+            case 'U' -> 1L;
+            case 'T' -> 1_000L;
+            case 's' -> 1_000_000L;
+            case 'm' -> 60_000_000L;
+            case 'h' -> 3_600_000_000L;
+            case 'd' -> 86_400_000_000L;
+            case 'w' -> 7L * 86_400_000_000L;
+            case 'M' -> 30L * 86_400_000_000L;
+            case 'y' -> 365L * 86_400_000_000L;
+            default -> throw new IllegalArgumentException("unit: " + unit);
+        };
+    }
+
+    /**
+     * @param fromMillis x at the start of the interval, as plotted, see
+     *                   {@link io.questdb.desktop.model.SQLType#getNumericValue(Object, int)}
+     * @param toMillis   x at the end of the interval
+     * @param pixels     width of the interval in pixels
+     * @return the request to sample the interval at about one row per pixel, or null when
+     * that is not finer than the query's step
+     */
+    public SQLExecutionRequest refine(double fromMillis, double toMillis, int pixels) {
+        long from = toMicros(fromMillis);
+        long to = toMicros(toMillis);
+        long target = (to - from) / Math.max(1, pixels);
+        int stepIdx = 0;
+        while (stepIdx + 1 < STEPS.length && STEP_MICROS[stepIdx + 1] <= target) {
+            stepIdx++;
+        }
+        long step = STEP_MICROS[stepIdx];
+        if (step >= stepMicros) {
+            return null;
+        }
+        String x = quoteIdentifier(xName);
+        String filter = x + " >= '" + LITERAL_FORMAT.format(toInstant(Math.floorDiv(from, step) * step))
+                + "' AND " + x + " < '" + LITERAL_FORMAT.format(toInstant((Math.floorDiv(to, step) + 1L) * step)) + "'";
+        int where = whereEnd(query, sampleByStart);
+        String sql = (where < 0
+                ? query.substring(0, sampleByStart) + "WHERE " + filter
+                : query.substring(0, where) + " (" + query.substring(where, sampleByStart).strip() + ") AND " + filter)
+                + " SAMPLE BY " + STEPS[stepIdx] + query.substring(sampleByEnd);
+        return new SQLExecutionRequest(SOURCE_ID, conn, sql, false, false);
+    }
+
+    // end of the WHERE keyword of the SELECT sampled, -1 when it has none. Scans back from
+    // SAMPLE BY, skipping quoted text and parenthesised sub queries, to the SELECT
+    private static int whereEnd(String query, int sampleByStart) {
+        int depth = 0;
+        for (int i = sampleByStart - 1; i >= 0; i--) {
+            char c = query.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = query.lastIndexOf(c, i - 1);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == ')') {
+                depth++;
+            } else if (c == '(') {
+                if (depth == 0) {
+                    return -1; // the start of the sub query sampled
+                }
+                depth--;
+            } else if (depth == 0 && isWordEnd(query, i)) {
+                int start = i;
+                while (start > 0 && isWordChar(query.charAt(start - 1))) {
+                    start--;
+                }
+                String word = query.substring(start, i + 1);
+                if (word.equalsIgnoreCase("WHERE")) {
+                    return i + 1;
+                }
+                if (word.equalsIgnoreCase("SELECT")) {
+                    return -1;
+                }
+                i = start;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordEnd(String query, int i) {
+        return isWordChar(query.charAt(i)) && (i + 1 == query.length() || !isWordChar(query.charAt(i + 1)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static String quoteIdentifier(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    // timestamps are plotted by Timestamp.getTime(), which takes the wall clock time sent
+    // by the server to be local for TIMESTAMP, as in LiveQuery
+    private long toMicros(double millis) {
+        long epochMillis = (long) Math.floor(millis);
+        if (xType == Types.TIMESTAMP) {
+            Timestamp ts = new Timestamp(epochMillis);
+            return ts.toLocalDateTime().toEpochSecond(ZoneOffset.UTC) * 1_000_000L + ts.getNanos() / 1000L;
+        }
+        return epochMillis * 1000L;
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000L);
+    }
+}
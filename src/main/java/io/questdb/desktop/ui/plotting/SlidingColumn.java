@@ -24,20 +24,80 @@
 
 package io.questdb.desktop.ui.plotting;
 
-import java.util.Objects;
+import io.questdb.desktop.GTk;
 
+import java.awt.*;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Column of the last n values appended, in a lock-free single producer ring buffer.
+ * <p>
+ * Values are numbered by the sequence of their append, the column holds those in
+ * [{@link #version()} - {@link #size()}, {@link #version()}). The producer writes the
+ * value to its slot and then publishes the sequence, with release semantics, thus it
+ * never waits for readers. Readers take a {@link #snapshot()}, a view of the window
+ * ending at the last published sequence, read it, and then check that it is still
+ * {@link Column#isValid() valid}, that is, that the producer has not lapped them. The ring
+ * has room for more values than the window, the slack, so that the producer can go on
+ * appending while the window is read; readers retry in the unlikely case that it has
+ * overwritten more than the slack.
+ * <p>
+ * The min and max of the window are kept in monotonic deques of the positions of the
+ * values that can still become the window's min, or max: on append, values no smaller
+ * (no larger) than the new one are dropped from the back, as they can no longer be the min
+ * (max), and the front is dropped once it slides out of the window. Each value enters and
+ * leaves a deque once, thus append costs O(1) amortised. The resulting min and max are
+ * stored by sequence next to the value, and read by snapshots in O(1). NaN values are not
+ * considered, the min and max of a window without values are NaN.
+ * <p>
+ * Appends must be made by one thread at a time, with a happens-before relation between
+ * consecutive producers.
+ */
 public class SlidingColumn implements Column {
+    private static final int MIN_SLACK = 1024;
 
     private final String name;
+    private final Color color;
+    private final boolean isTimestamp;
+    private final int window;
+    private final int capacity;
     private final double[] points;
-    private final Object lock;
-    private int writePtr = -1;
-    private int readPtr;
+    private final double[] mins; // window min as of each sequence
+    private final double[] maxs; // window max as of each sequence
+    private final MonotonicDeque minDeque; // producer's
+    private final MonotonicDeque maxDeque; // producer's
+    private final AtomicLong published = new AtomicLong(); // sequence of the next append
+    private long appends; // producer's copy of published
+
+    public SlidingColumn(String name, int size) {
+        this(name, size, GTk.Editor.KEYWORD_FOREGROUND_COLOR);
+    }
+
+    public SlidingColumn(String name, int size, Color color) {
+        this(name, size, color, false);
+    }
 
-    public SlidingColumn(String name, Object lock, int size) {
+    /**
+     * @param name        name of the column
+     * @param size        number of values in the window
+     * @param color       color of the series
+     * @param isTimestamp whether values are timestamps, in epoch millis
+     */
+    public SlidingColumn(String name, int size, Color color, boolean isTimestamp) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be greater than zero");
+        }
         this.name = name;
-        this.lock = Objects.requireNonNull(lock);
-        points = new double[size];
+        this.color = color;
+        this.isTimestamp = isTimestamp;
+        window = size;
+        capacity = size + Math.max(MIN_SLACK, size / 8);
+        points = new double[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        minDeque = new MonotonicDeque(size, false);
+        maxDeque = new MonotonicDeque(size, true);
     }
 
     @Override
@@ -45,58 +105,189 @@ public class SlidingColumn implements Column {
         return name;
     }
 
+    @Override
+    public Color color() {
+        return color;
+    }
+
+    @Override
+    public boolean isTimestamp() {
+        return isTimestamp;
+    }
+
     @Override
     public int size() {
-        synchronized (lock) {
-            return writePtr == -1 ? 0 : readPtr < writePtr ? writePtr - readPtr : points.length;
-        }
+        return (int) Math.min(published.get(), window);
+    }
+
+    @Override
+    public long version() {
+        return published.get();
     }
 
     @Override
     public void append(double value) {
-        synchronized (lock) {
-            writePtr = (writePtr + 1) % points.length;
-            points[writePtr] = value;
-            if (readPtr == writePtr) {
-                readPtr = (writePtr + 1) % points.length;
-            }
-        }
+        long seq = appends;
+        int slot = (int) (seq % capacity);
+        // the last sequence published is visible before the slot is overwritten, see Snapshot.isValid
+        VarHandle.storeStoreFence();
+        points[slot] = value;
+        long oldestSeq = Math.max(0L, seq + 1L - window);
+        minDeque.push(seq, value, oldestSeq);
+        maxDeque.push(seq, value, oldestSeq);
+        mins[slot] = minDeque.isEmpty() ? Double.NaN : minDeque.front();
+        maxs[slot] = maxDeque.isEmpty() ? Double.NaN : maxDeque.front();
+        appends = seq + 1L;
+        published.lazySet(appends);
     }
 
+    /**
+     * Not consistent while appends are being made, read a {@link #snapshot()} instead.
+     */
     @Override
     public double get(int i) {
-        synchronized (lock) {
-            double value = points[readPtr];
-            readPtr = (readPtr + 1) % points.length;
-            return value;
-        }
+        long end = published.get();
+        return points[(int) ((end - Math.min(end, window) + i) % capacity)];
     }
 
     @Override
     public double min() {
-        double min = Double.MAX_VALUE;
-        synchronized (lock) {
-            for (int i = 0, n = size(); i < n; i++) {
-                double p = points[(readPtr + i) % points.length];
-                if (p < min) {
-                    min = p;
-                }
-            }
-        }
-        return min;
+        long end = published.get();
+        return end == 0L ? Double.NaN : mins[(int) ((end - 1L) % capacity)];
     }
 
     @Override
     public double max() {
-        double max = Double.MIN_VALUE;
-        synchronized (lock) {
-            for (int i = readPtr, n = readPtr + size(); i < n; i++) {
-                double p = points[(readPtr + i) % points.length];
-                if (p > max) {
-                    max = p;
+        long end = published.get();
+        return end == 0L ? Double.NaN : maxs[(int) ((end - 1L) % capacity)];
+    }
+
+    @Override
+    public Column snapshot() {
+        long end = published.get();
+        if (end == 0L) {
+            return new Snapshot(0L, 0, Double.NaN, Double.NaN);
+        }
+        int slot = (int) ((end - 1L) % capacity);
+        return new Snapshot(end, (int) Math.min(end, window), mins[slot], maxs[slot]);
+    }
+
+    // the window ending at a published sequence
+    private final class Snapshot implements Column {
+        private final long end;
+        private final long start;
+        private final int size;
+        private final double min;
+        private final double max;
+
+        private Snapshot(long end, int size, double min, double max) {
+            this.end = end;
+            this.start = end - size;
+            this.size = size;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Color color() {
+            return color;
+        }
+
+        @Override
+        public boolean isTimestamp() {
+            return isTimestamp;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long version() {
+            return end;
+        }
+
+        @Override
+        public void append(double value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double get(int i) {
+            return points[(int) ((start + i) % capacity)];
+        }
+
+        @Override
+        public double min() {
+            return min;
+        }
+
+        @Override
+        public double max() {
+            return max;
+        }
+
+        @Override
+        public boolean isValid() {
+            // the producer overwrites the slot of sequence s when it appends s + capacity,
+            // after publishing s + capacity - 1. As in a seqlock, the values read must be
+            // ordered before the sequence is read again
+            VarHandle.acquireFence();
+            return published.get() - capacity < start;
+        }
+    }
+
+    // candidates, by sequence number, their values are monotonic from front to back
+    private static final class MonotonicDeque {
+        private final long[] seqs;
+        private final double[] values;
+        private final boolean isMax;
+        private int head; // front
+        private int count;
+
+        private MonotonicDeque(int capacity, boolean isMax) {
+            seqs = new long[capacity];
+            values = new double[capacity];
+            this.isMax = isMax;
+        }
+
+        void push(long seq, double value, long oldestSeq) {
+            expire(oldestSeq);
+            if (Double.isNaN(value)) {
+                return;
+            }
+            while (count > 0) {
+                double back = values[(head + count - 1) % values.length];
+                if (isMax ? back > value : back < value) {
+                    break;
                 }
+                count--;
             }
+            int tail = (head + count) % seqs.length;
+            seqs[tail] = seq;
+            values[tail] = value;
+            count++;
+        }
+
+        void expire(long oldestSeq) {
+            while (count > 0 && seqs[head] < oldestSeq) {
+                head = (head + 1) % seqs.length;
+                count--;
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        double front() {
+            return values[head];
         }
-        return max;
     }
 }
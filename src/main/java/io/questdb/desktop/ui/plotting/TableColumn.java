@@ -25,33 +25,36 @@
 package io.questdb.desktop.ui.plotting;
 
 
-import io.questdb.desktop.model.SQLPagedTableModel;
-import io.questdb.desktop.model.SQLType;
+import io.questdb.desktop.model.NumericColumn;
+import io.questdb.desktop.model.Table;
 
 import java.awt.*;
+import java.sql.Types;
 
+/**
+ * Column of a {@link Table}, over all of its rows, fetched or being fetched. Reads the
+ * table's {@link NumericColumn}, thus values are not unboxed, nor scanned for min and max.
+ * The column grows as rows are fetched, values are never modified, and they outlive the
+ * table: they are kept when it is closed, for instance when the next query runs.
+ */
 public class TableColumn implements Column {
 
     private final String name;
-    private final SQLPagedTableModel table;
-    private final int colIndex;
+    private final NumericColumn values;
     private final Color color;
-    private final double min, max;
+    private final boolean isTimestamp;
 
-    public TableColumn(String name, SQLPagedTableModel table, int colIndex, Color color) {
+    public TableColumn(String name, Table table, int colIndex, Color color) {
+        values = table.getNumericColumn(colIndex);
+        if (values == null) {
+            throw new IllegalArgumentException("column is not numeric: " + name);
+        }
         this.name = name;
-        this.table = table;
-        this.colIndex = colIndex;
         this.color = color;
-        double tMin = Double.MAX_VALUE;
-        double tMax = Double.MIN_VALUE;
-        for (int i = 0; i < table.getRowCount(); i++) {
-            double val = get(i);
-            tMin = Math.min(tMin, val);
-            tMax = Math.max(tMax, val);
-        }
-        this.min = tMin;
-        this.max = tMax;
+        isTimestamp = switch (table.getColumnType(colIndex)) {
+            case Types.DATE, Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> true;
+            default -> false;
+        };
     }
 
     @Override
@@ -64,9 +67,14 @@ public class TableColumn implements Column {
         return color;
     }
 
+    @Override
+    public boolean isTimestamp() {
+        return isTimestamp;
+    }
+
     @Override
     public int size() {
-        return table.getRowCount();
+        return values.size();
     }
 
     @Override
@@ -76,16 +84,16 @@ public class TableColumn implements Column {
 
     @Override
     public double get(int i) {
-        return SQLType.getNumericValue(table.getValueAt(i, colIndex), table.getColumnType(colIndex));
+        return values.get(i);
     }
 
     @Override
     public double min() {
-        return min;
+        return values.min();
     }
 
     @Override
     public double max() {
-        return max;
+        return values.max();
     }
 }
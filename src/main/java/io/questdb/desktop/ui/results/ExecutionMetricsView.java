@@ -0,0 +1,97 @@
+package io.questdb.desktop.ui.results;
+
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+import io.questdb.desktop.GTk;
+import io.questdb.desktop.model.ExecutionMetrics;
+
+
+/**
+ * Live view of the {@link ExecutionMetrics}, refreshed every second while visible.
+ */
+public class ExecutionMetricsView extends JDialog {
+    private static final int REFRESH_MILLIS = 1000;
+    private static final String[] COLUMN_NAMES = {"Metric", "Value"};
+
+    private final ExecutionMetrics metrics;
+    private final List<String[]> rows = new ArrayList<>();
+    private final AbstractTableModel model;
+    private final Timer refresher;
+
+    public ExecutionMetricsView(Window owner, ExecutionMetrics metrics) {
+        super(owner, "Execution metrics");
+        this.metrics = metrics;
+        GTk.configureDialog(this, 0.35F, 0.5F, () -> setVisible(false));
+        model = new AbstractTableModel() {
+            @Override
+            public int getRowCount() {
+                return rows.size();
+            }
+
+            @Override
+            public int getColumnCount() {
+                return COLUMN_NAMES.length;
+            }
+
+            @Override
+            public String getColumnName(int column) {
+                return COLUMN_NAMES[column];
+            }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                return rows.get(row)[column];
+            }
+        };
+        JTable table = new JTable(model);
+        table.setFont(GTk.TABLE_CELL_FONT);
+        table.getTableHeader().setFont(GTk.TABLE_HEADER_FONT);
+        table.setFillsViewportHeight(true);
+        refresher = new Timer(REFRESH_MILLIS, e -> refresh());
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                refresh();
+                refresher.start();
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                refresher.stop();
+            }
+        });
+        JButton resetButton = GTk.button("Reset", () -> {
+            metrics.reset();
+            refresh();
+        });
+        getRootPane().registerKeyboardAction(
+                e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.setBackground(GTk.APP_BACKGROUND_COLOR);
+        buttons.add(resetButton);
+        JPanel contentPane = new JPanel(new BorderLayout(0, 4));
+        contentPane.setBackground(GTk.APP_BACKGROUND_COLOR);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        contentPane.add(new JScrollPane(table), BorderLayout.CENTER);
+        contentPane.add(buttons, BorderLayout.SOUTH);
+        setContentPane(contentPane);
+    }
+
+    private void refresh() {
+        rows.clear();
+        for (Map.Entry<String, String> e : metrics.snapshot().entrySet()) {
+            rows.add(new String[]{e.getKey(), e.getValue()});
+        }
+        model.fireTableDataChanged();
+    }
+}
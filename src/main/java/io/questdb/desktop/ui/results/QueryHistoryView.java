@@ -0,0 +1,226 @@
+package io.questdb.desktop.ui.results;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+import io.questdb.desktop.GTk;
+import io.questdb.desktop.model.QueryHistory;
+
+
+/**
+ * Latency of the executions recorded in the {@link QueryHistory}, per quest and day:
+ * number of runs and failures, and 50th, 95th and 99th percentiles of the execution and
+ * total times. Days are listed most recent first, so that regressions show as the first
+ * rows of a quest growing bigger than the ones below. Cached executions count as runs,
+ * not as latencies.
+ */
+public class QueryHistoryView extends JDialog {
+    private static final String[] COLUMN_NAMES = {
+            "Quest", "Day", "Runs", "Failed",
+            "Exec p50", "Exec p95", "Exec p99",
+            "Total p50", "Total p95", "Total p99"
+    };
+    private static final Comparator<Row> ROW_ORDER = Comparator.comparing(Row::quest)
+            .thenComparing(Row::day, Comparator.reverseOrder());
+
+    private final QueryHistory history;
+    private final List<Row> rows = new ArrayList<>();
+    private final RowsModel model = new RowsModel();
+    private final JLabel statusLabel;
+
+    public QueryHistoryView(Window owner, QueryHistory history) {
+        super(owner, "Query history");
+        this.history = history;
+        GTk.configureDialog(this, 0.7F, 0.6F, () -> setVisible(false));
+        JTable table = new JTable(model);
+        table.setFont(GTk.TABLE_CELL_FONT);
+        table.getTableHeader().setFont(GTk.TABLE_HEADER_FONT);
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+        statusLabel = GTk.label("", GTk.Editor.MENU_FOREGROUND_COLOR);
+        getRootPane().registerKeyboardAction(
+                e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+        JPanel contentPane = new JPanel(new BorderLayout(0, 4));
+        contentPane.setBackground(GTk.APP_BACKGROUND_COLOR);
+        contentPane.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        contentPane.add(new JScrollPane(table), BorderLayout.CENTER);
+        contentPane.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(contentPane);
+    }
+
+    /**
+     * Shows the dialog, with the history read anew in the background.
+     */
+    public void open() {
+        if (!isVisible()) {
+            Dimension location = GTk.frameLocation(getSize());
+            setLocation(location.width, location.height);
+        }
+        statusLabel.setText("reading history...");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return aggregate(history.read());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((aggregated, err) -> GTk.invokeLater(() -> {
+            rows.clear();
+            if (err != null) {
+                statusLabel.setText("could not read history: " + err.getMessage());
+            } else {
+                rows.addAll(aggregated);
+                statusLabel.setText(String.format("%d quest days", rows.size()));
+            }
+            model.fireTableDataChanged();
+        }));
+        setVisible(true);
+    }
+
+    static List<Row> aggregate(List<QueryHistory.Execution> executions) {
+        Map<Key, Samples> byQuestDay = new TreeMap<>(Comparator.comparing(Key::quest).thenComparing(Key::day));
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0, n = executions.size(); i < n; i++) {
+            QueryHistory.Execution execution = executions.get(i);
+            LocalDate day = Instant.ofEpochMilli(execution.timestamp()).atZone(zone).toLocalDate();
+            byQuestDay.computeIfAbsent(new Key(execution.quest(), day), k -> new Samples()).add(execution);
+        }
+        List<Row> rows = new ArrayList<>(byQuestDay.size());
+        for (Map.Entry<Key, Samples> e : byQuestDay.entrySet()) {
+            Samples samples = e.getValue();
+            long[] exec = samples.exec.sorted();
+            long[] total = samples.total.sorted();
+            rows.add(new Row(
+                    e.getKey().quest,
+                    e.getKey().day,
+                    samples.runs,
+                    samples.failed,
+                    percentile(exec, 50), percentile(exec, 95), percentile(exec, 99),
+                    percentile(total, 50), percentile(total, 95), percentile(total, 99)));
+        }
+        rows.sort(ROW_ORDER);
+        return rows;
+    }
+
+    // nearest rank, -1 when there are no samples
+    static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return -1L;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    record Row(
+            String quest,
+            LocalDate day,
+            int runs,
+            int failed,
+            long execP50, long execP95, long execP99,
+            long totalP50, long totalP95, long totalP99
+    ) {
+        Object get(int column) {
+            return switch (column) {
+                case 0 -> quest;
+                case 1 -> day;
+                case 2 -> runs;
+                case 3 -> failed;
+                case 4 -> execP50;
+                case 5 -> execP95;
+                case 6 -> execP99;
+                case 7 -> totalP50;
+                case 8 -> totalP95;
+                case 9 -> totalP99;
+                default -> throw new IndexOutOfBoundsException(column);
+            };
+        }
+    }
+
+    private record Key(String quest, LocalDate day) {
+    }
+
+    private static final class Samples {
+        private final Longs exec = new Longs();
+        private final Longs total = new Longs();
+        private int runs;
+        private int failed;
+
+        private void add(QueryHistory.Execution execution) {
+            runs++;
+            switch (execution.outcome()) {
+                case FAILED -> failed++;
+                case OK -> {
+                    exec.add(execution.execMillis());
+                    total.add(execution.totalMillis());
+                }
+                default -> {
+                    // cached, not a latency
+                }
+            }
+        }
+    }
+
+    private static final class Longs {
+        private long[] values = new long[8];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private class RowsModel extends AbstractTableModel {
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return switch (column) {
+                case 0 -> String.class;
+                case 1 -> LocalDate.class;
+                case 2, 3 -> Integer.class;
+                default -> Long.class;
+            };
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row).get(column);
+        }
+    }
+}
@@ -109,11 +109,15 @@ public class SQLResultsTable extends JPanel implements Closeable {
         return tableModel;
     }
 
+    public Table getResults() {
+        return results.get();
+    }
+
     public void updateStats(String eventType, SQLExecutionResponse res) {
         if (res != null) {
             statsLabel.setText(String.format(
                 "[%s]  Exec: %5d,  Fetch: %5d,  Total: %6d (ms)",
-                eventType,
+                res.isCached() ? eventType + ", cached" : eventType,
                 res.getExecMillis(),
                 res.getFetchMillis(),
                 res.getTotalMillis()));
@@ -28,6 +28,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
 import io.questdb.desktop.model.DbConnProperties;
 import io.questdb.desktop.model.Store;
@@ -46,6 +50,15 @@ public class StoreTest {
                 assertThat("delete", file.delete());
             }
             assertThat(file.exists(), is(false));
+            File folder = new File(Store.ROOT_PATH, fileName + Store.FOLDER_SUFFIX);
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    assertThat("delete", f.delete());
+                }
+                assertThat("delete", folder.delete());
+            }
+            assertThat(folder.exists(), is(false));
         }
         return fileName;
     }
@@ -135,6 +148,212 @@ public class StoreTest {
         }
     }
 
+    @Test
+    public void test_journal_replay_and_checkpoint() throws IOException {
+        String fileName = deleteIfExists("test-store-journal.json");
+        String crashedFileName = deleteIfExists("test-store-journal-crashed.json");
+        try {
+            File folder = new File(Store.ROOT_PATH, fileName + Store.FOLDER_SUFFIX);
+            Store<Content> store = new TStore<>(fileName, Content.class);
+            for (int i = 0; i < 3; i++) {
+                store.addEntry(new Content("quest_" + i));
+            }
+            store.saveToFile();
+            store.getEntry(1, null).setContent("changed");
+            store.removeEntry(2);
+            store.saveToFile();
+
+            // a copy of the folder, as left by a crash, only the journal has been written
+            assertThat(new File(folder, "0.json").exists(), is(false));
+            File crashedFolder = new File(Store.ROOT_PATH, crashedFileName + Store.FOLDER_SUFFIX);
+            assertThat("mkdir", crashedFolder.mkdir());
+            for (File file : folder.listFiles()) {
+                Files.copy(file.toPath(), new File(crashedFolder, file.getName()).toPath());
+            }
+            try (Store<Content> recovered = new TStore<>(crashedFileName, Content.class)) {
+                recovered.loadFromFile();
+                assertThat(recovered.size(), is(2));
+                assertThat(recovered.entries().get(1).getName(), is("quest_1"));
+                assertThat(recovered.entries().get(1).getContent(), is("changed"));
+            }
+
+            // close checkpoints
+            store.getEntry(0, null).setContent("closing");
+            store.close();
+            assertThat(new File(folder, "0.json").exists(), is(true));
+            assertThat(new File(folder, "1.json").exists(), is(true));
+            assertThat(new File(folder, "2.json").exists(), is(false));
+            assertThat(new File(folder, "journal.log").length(), is(0L));
+            try (Store<Content> reloaded = new TStore<>(fileName, Content.class)) {
+                reloaded.loadFromFile();
+                assertThat(reloaded.size(), is(2));
+                assertThat(reloaded.entries().get(0).getContent(), is("closing"));
+                assertThat(reloaded.entries().get(1).getContent(), is("changed"));
+            }
+
+            // entries are read on first access, names come from the index
+            assertThat(new File(folder, "1.json").delete(), is(true));
+            try (Store<Content> lazy = new TStore<>(fileName, Content.class)) {
+                lazy.loadFromFile();
+                assertThat(lazy.entryNames(), is(new String[]{"quest_0", "quest_1"}));
+                assertThat(lazy.getEntry(0, null).getContent(), is("closing"));
+                assertThat(lazy.getEntry(1, null).getName(), is("quest_1"));
+            }
+        } finally {
+            deleteIfExists(fileName);
+            deleteIfExists(crashedFileName);
+        }
+    }
+
+    @Test
+    public void test_journal_records_edits() throws IOException {
+        String fileName = deleteIfExists("test-store-journal-edits.json");
+        String crashedFileName = deleteIfExists("test-store-journal-edits-crashed.json");
+        try {
+            File folder = new File(Store.ROOT_PATH, fileName + Store.FOLDER_SUFFIX);
+            File journal = new File(folder, "journal.log");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; sb.length() < 1024 * 1024; i++) {
+                sb.append("SELECT * FROM trades WHERE id = ").append(i).append(";\n");
+            }
+            String text = sb.toString();
+            Store<Content> store = new TStore<>(fileName, Content.class);
+            store.addEntry(new Content("large"));
+            store.addEntry(new Content("small"));
+            Content large = store.getEntry(0, null);
+            large.setContent(text);
+            store.saveToFile();
+            long fullRecord = journal.length();
+            assertThat(fullRecord > text.length(), is(true));
+
+            // small changes to the large entry append small records
+            String edited = text.substring(0, 500_000) + "-- edited" + text.substring(500_000);
+            large.setContent(edited);
+            store.saveToFile();
+            edited = edited.substring(0, 1000) + edited.substring(1010);
+            large.setContent(edited);
+            large.setName("renamed");
+            store.getEntry(1, null).setContent("small change");
+            store.saveToFile();
+            assertThat(journal.length() - fullRecord < 1024, is(true));
+
+            // replayed from the journal, as left by a crash
+            File crashedFolder = new File(Store.ROOT_PATH, crashedFileName + Store.FOLDER_SUFFIX);
+            assertThat("mkdir", crashedFolder.mkdir());
+            for (File file : folder.listFiles()) {
+                Files.copy(file.toPath(), new File(crashedFolder, file.getName()).toPath());
+            }
+            try (Store<Content> recovered = new TStore<>(crashedFileName, Content.class)) {
+                recovered.loadFromFile();
+                assertThat(recovered.entryNames(), is(new String[]{"renamed", "small"}));
+                assertThat(recovered.getEntry(0, null).getContent(), is(edited));
+                assertThat(recovered.getEntry(1, null).getContent(), is("small change"));
+            }
+            store.close();
+            try (Store<Content> reloaded = new TStore<>(fileName, Content.class)) {
+                reloaded.loadFromFile();
+                assertThat(reloaded.getEntry(0, null).getContent(), is(edited));
+            }
+        } finally {
+            deleteIfExists(fileName);
+            deleteIfExists(crashedFileName);
+        }
+    }
+
+    @Test
+    public void test_backup_supersedes_folder() throws InterruptedException {
+        String fileName = deleteIfExists("test-store-backup.json");
+        String otherFileName = deleteIfExists("test-store-backup-other.json");
+        try {
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                Content content = new Content("quest");
+                content.setContent("stale");
+                store.addEntry(content);
+            }
+            Thread.sleep(20L); // file times in millis
+            try (Store<Content> other = new TStore<>(otherFileName, Content.class)) {
+                Content content = new Content("backed up");
+                content.setContent("fresh");
+                other.addEntry(content);
+                other.saveToFile(new File(Store.ROOT_PATH, fileName));
+            }
+            List<String> names = new ArrayList<>();
+            Store.readEntries(fileName, (id, entry) -> names.add(entry.getName()));
+            assertThat(names, is(List.of("backed up")));
+
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                store.loadFromFile();
+                assertThat(store.entryNames(), is(new String[]{"backed up"}));
+                store.getEntry(0, null).setContent("migrated");
+            }
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                store.loadFromFile();
+                assertThat(store.size(), is(1));
+                assertThat(store.getEntry(0, null).getContent(), is("migrated"));
+            }
+        } finally {
+            deleteIfExists(fileName);
+            deleteIfExists(otherFileName);
+        }
+    }
+
+    @Test
+    public void test_resident_limit() {
+        String fileName = deleteIfExists("test-store-resident.json");
+        try {
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                for (int i = 0; i < 4; i++) {
+                    Content content = new Content("quest_" + i);
+                    content.setContent("content_" + i);
+                    store.addEntry(content);
+                }
+            }
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                store.setResidentLimit(2);
+                store.loadFromFile();
+                Content first = store.getEntry(0, null);
+                for (int i = 1; i < 4; i++) {
+                    assertThat(store.getEntry(i, null).getContent(), is("content_" + i));
+                }
+                // evicted, read again
+                assertThat(store.getEntry(0, null) == first, is(false));
+                assertThat(store.getEntry(0, null).getContent(), is("content_0"));
+
+                // changed entries are kept until a checkpoint writes their file, then dropped
+                Content changed = store.getEntry(1, null);
+                changed.setContent("changed");
+                store.saveToFile();
+                accessAll(store, 4);
+                store.saveToFile(); // waits for the checkpoint
+                accessAll(store, 4);
+                assertThat(store.getEntry(1, null) == changed, is(false));
+                assertThat(store.getEntry(1, null).getContent(), is("changed"));
+
+                // as are entries never saved
+                Content added = store.getEntry(4, () -> new Content("quest_4"));
+                added.setContent("added");
+                accessAll(store, 4);
+                store.saveToFile();
+                accessAll(store, 4);
+                assertThat(store.getEntry(4, null) == added, is(false));
+                assertThat(store.getEntry(4, null).getContent(), is("added"));
+            }
+            try (Store<Content> store = new TStore<>(fileName, Content.class)) {
+                store.loadFromFile();
+                assertThat(store.getEntry(1, null).getContent(), is("changed"));
+                assertThat(store.getEntry(4, null).getContent(), is("added"));
+            }
+        } finally {
+            deleteIfExists(fileName);
+        }
+    }
+
+    private static void accessAll(Store<Content> store, int size) {
+        for (int i = 0; i < size; i++) {
+            store.getEntry(i, null);
+        }
+    }
+
     private static class TStore<T extends StoreEntry> extends Store<T> {
         public TStore(String fileName, Class<? extends StoreEntry> clazz) {
             super(fileName, clazz);
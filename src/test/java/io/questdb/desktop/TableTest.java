@@ -36,6 +36,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import io.questdb.desktop.model.NumericColumn;
 import io.questdb.desktop.model.Row;
 import io.questdb.desktop.model.Table;
 import org.hamcrest.Matchers;
@@ -114,4 +115,27 @@ public class TableTest {
             assertThat(table.getRow(0), Matchers.is(new Row(rowKey, expectedColValues)));
         }
     }
+
+    @Test
+    public void test_numeric_column_min_max_during_fetch() throws SQLException {
+        when(rs.getObject(3)).thenReturn(null, -5, 42, null, -7);
+        double[] expectedMins = {Double.NaN, -5.0, -5.0, -5.0, -7.0};
+        double[] expectedMaxs = {Double.NaN, -5.0, 42.0, 42.0, 42.0};
+        try (Table table = new Table(null)) {
+            table.setColumnMetadata(rs);
+            assertThat(table.getNumericColumn(1), nullValue()); // VARCHAR
+            NumericColumn uptime = table.getNumericColumn(3);
+            assertThat(uptime.size(), is(0));
+            assertThat(Double.isNaN(uptime.min()), is(true));
+            for (int i = 0; i < expectedMins.length; i++) {
+                table.addRow(i, rs);
+                assertThat(uptime.size(), is(i + 1));
+                assertThat(Double.compare(uptime.min(), expectedMins[i]), is(0));
+                assertThat(Double.compare(uptime.max(), expectedMaxs[i]), is(0));
+            }
+            assertThat(Double.isNaN(uptime.get(0)), is(true));
+            assertThat(uptime.get(2), is(42.0));
+            assertThat(uptime.get(4), is(-7.0));
+        }
+    }
 }
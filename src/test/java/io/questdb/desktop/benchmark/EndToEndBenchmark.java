@@ -0,0 +1,346 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.GsonBuilder;
+import io.questdb.ServerMain;
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.SQLExecutionRequest;
+import io.questdb.desktop.model.SQLExecutionResponse;
+import io.questdb.desktop.model.SQLExecutor;
+import io.questdb.desktop.model.Table;
+import io.questdb.desktop.ui.EventProducer;
+
+
+/**
+ * End-to-end fetch benchmark: boots QuestDB in-process in a temporary folder, creates
+ * synthetic tables of the given widths and row counts, and fetches them through the
+ * {@link SQLExecutor}, as the client does, for each combination of fetch size and
+ * transfer mode. For each combination it reports the medians of time to first row,
+ * total time and rows per second, the allocation rate of the executor's thread (the
+ * client's, QuestDB's threads are excluded), and the peak heap.
+ * <p>
+ * Run it with ./gradlew endToEndBenchmark, settings are passed as system properties,
+ * see the PROPERTY constants, and results are also written as JSON.
+ * <p>
+ * Transfer modes are: text, binary (binaryTransfer, statements prepared from the first
+ * execution) and simple (simple query protocol). The driver only honours the fetch size
+ * when auto-commit is off, 0 keeps it on and fetches all rows at once.
+ */
+public final class EndToEndBenchmark {
+    private static final String PROPERTY_PREFIX = "questdb.desktop.e2e.";
+    private static final String ROWS_PROPERTY = PROPERTY_PREFIX + "rows";
+    private static final String COLUMNS_PROPERTY = PROPERTY_PREFIX + "columns";
+    private static final String FETCH_SIZES_PROPERTY = PROPERTY_PREFIX + "fetchSizes";
+    private static final String MODES_PROPERTY = PROPERTY_PREFIX + "modes";
+    private static final String RUNS_PROPERTY = PROPERTY_PREFIX + "runs";
+    private static final String WARMUPS_PROPERTY = PROPERTY_PREFIX + "warmups";
+    private static final String PORT_PROPERTY = PROPERTY_PREFIX + "port";
+    private static final String RESULTS_PROPERTY = PROPERTY_PREFIX + "results";
+    private static final String[] COLUMN_FUNCTIONS = {"rnd_double()", "rnd_long()", "rnd_str(8, 16, 0)", "rnd_boolean()", "rnd_int()"};
+    private static final long RUN_TIMEOUT_SECS = 300L;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private EndToEndBenchmark() {
+        throw new IllegalStateException("not meant to be instantiated");
+    }
+
+    public static void main(String... args) throws Exception {
+        int[] rowCounts = ints(System.getProperty(ROWS_PROPERTY, "100000,1000000"));
+        int[] widths = ints(System.getProperty(COLUMNS_PROPERTY, "4,16"));
+        int[] fetchSizes = ints(System.getProperty(FETCH_SIZES_PROPERTY, "0,1000,10000"));
+        String[] modes = System.getProperty(MODES_PROPERTY, "text,binary,simple").split(",");
+        int runs = Integer.getInteger(RUNS_PROPERTY, 5);
+        int warmups = Integer.getInteger(WARMUPS_PROPERTY, 2);
+        int port = Integer.getInteger(PORT_PROPERTY, 18812);
+        File resultsFile = new File(System.getProperty(RESULTS_PROPERTY, "e2e-results.json"));
+
+        Path root = Files.createTempDirectory("questdb-e2e");
+        List<Result> results = new ArrayList<>();
+        try {
+            writeServerConf(root, port);
+            try (ServerMain questDb = new ServerMain("-d", root.toString())) {
+                questDb.start(false);
+                SQLExecutor executor = new SQLExecutor();
+                executor.start();
+                try (DbConn setup = new BenchConn(port, 0, "text")) {
+                    Connection connection = setup.open();
+                    for (int rowCount : rowCounts) {
+                        for (int width : widths) {
+                            createTable(connection, rowCount, width);
+                        }
+                    }
+                    for (int rowCount : rowCounts) {
+                        for (int width : widths) {
+                            String query = "SELECT * FROM " + tableName(rowCount, width);
+                            for (int fetchSize : fetchSizes) {
+                                for (String mode : modes) {
+                                    results.add(measure(executor, port, query, rowCount, width, fetchSize, mode.trim(), warmups, runs));
+                                }
+                            }
+                        }
+                    }
+                } finally {
+                    executor.close();
+                }
+            }
+        } finally {
+            delete(root.toFile());
+        }
+        print(results);
+        File parent = resultsFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("could not create " + parent);
+        }
+        try (Writer out = Files.newBufferedWriter(resultsFile.toPath(), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(results, out);
+        }
+        System.out.printf("results: %s%n", resultsFile.getAbsolutePath());
+    }
+
+    private static Result measure(
+            SQLExecutor executor,
+            int port,
+            String query,
+            int rowCount,
+            int width,
+            int fetchSize,
+            String mode,
+            int warmups,
+            int runs
+    ) throws SQLException, InterruptedException {
+        try (DbConn conn = new BenchConn(port, fetchSize, mode)) {
+            conn.open().setAutoCommit(fetchSize == 0);
+            for (int i = 0; i < warmups; i++) {
+                run(executor, conn, query);
+            }
+            Sample[] samples = new Sample[runs];
+            for (int i = 0; i < runs; i++) {
+                samples[i] = run(executor, conn, query);
+                if (samples[i].rows != rowCount) {
+                    throw new IllegalStateException("expected " + rowCount + " rows, fetched " + samples[i].rows);
+                }
+            }
+            return new Result(
+                    rowCount,
+                    width,
+                    fetchSize,
+                    mode,
+                    runs,
+                    median(samples, s -> s.firstRowNanos) / 1e6,
+                    median(samples, s -> s.totalNanos) / 1e6,
+                    median(samples, s -> s.rows * 1e9 / s.totalNanos),
+                    median(samples, s -> s.allocatedBytes * 1e9 / s.totalNanos / (1024 * 1024)),
+                    Arrays.stream(samples).mapToLong(s -> s.peakHeapBytes).max().orElse(0L) / (1024.0 * 1024.0));
+        }
+    }
+
+    private static Sample run(SQLExecutor executor, DbConn conn, String query) throws InterruptedException {
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        for (int i = 0, n = heapPools.size(); i < n; i++) {
+            heapPools.get(i).resetPeakUsage();
+        }
+        Sample sample = new Sample();
+        CountDownLatch done = new CountDownLatch(1);
+        long submitNanos = System.nanoTime();
+        executor.submit(new SQLExecutionRequest("e2e", conn, query), (source, event, res) -> {
+            // on the executor's thread
+            switch (EventProducer.<SQLExecutor.EventType>eventType(event)) {
+                case STARTED -> sample.allocatedBytes = -THREADS.getCurrentThreadAllocatedBytes();
+                case FIRST_ROW_AVAILABLE -> sample.firstRowNanos = System.nanoTime() - submitNanos;
+                case COMPLETED, CANCELLED, FAILURE -> {
+                    sample.totalNanos = System.nanoTime() - submitNanos;
+                    sample.allocatedBytes += THREADS.getCurrentThreadAllocatedBytes();
+                    sample.last = res;
+                    done.countDown();
+                }
+                default -> {
+                    // rows available
+                }
+            }
+        });
+        if (!done.await(RUN_TIMEOUT_SECS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("timed out: " + query);
+        }
+        if (sample.last.getError() != null) {
+            throw new IllegalStateException("failed: " + query, sample.last.getError());
+        }
+        Table table = sample.last.getTable();
+        sample.rows = table.size();
+        for (int i = 0, n = heapPools.size(); i < n; i++) {
+            sample.peakHeapBytes += heapPools.get(i).getPeakUsage().getUsed();
+        }
+        table.close();
+        return sample;
+    }
+
+    private static void createTable(Connection connection, int rowCount, int width) throws SQLException {
+        StringBuilder sql = new StringBuilder("CREATE TABLE ").append(tableName(rowCount, width)).append(" AS (SELECT ");
+        for (int c = 1; c < width; c++) {
+            sql.append(COLUMN_FUNCTIONS[(c - 1) % COLUMN_FUNCTIONS.length]).append(" c").append(c).append(", ");
+        }
+        sql.append("timestamp_sequence(0, 1000000) ts FROM long_sequence(").append(rowCount)
+                .append(")) TIMESTAMP(ts) PARTITION BY DAY");
+        long start = System.nanoTime();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql.toString());
+        }
+        System.out.printf("created %s in %d ms%n", tableName(rowCount, width), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String tableName(int rowCount, int width) {
+        return "e2e_r" + rowCount + "_w" + width;
+    }
+
+    private static void writeServerConf(Path root, int port) throws IOException {
+        Path conf = Files.createDirectories(root.resolve("conf"));
+        Files.writeString(conf.resolve("server.conf"), String.join("\n",
+                "pg.net.bind.to=0.0.0.0:" + port,
+                "http.enabled=false",
+                "http.min.enabled=false",
+                "line.tcp.enabled=false",
+                "line.udp.enabled=false",
+                "telemetry.enabled=false",
+                ""));
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static double median(Sample[] samples, java.util.function.ToDoubleFunction<Sample> metric) {
+        double[] values = Arrays.stream(samples).mapToDouble(metric).sorted().toArray();
+        int mid = values.length / 2;
+        return values.length % 2 == 1 ? values[mid] : (values[mid - 1] + values[mid]) / 2.0;
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static void print(List<Result> results) {
+        results.sort(Comparator.comparingInt(Result::rows).thenComparingInt(Result::columns));
+        System.out.printf("%10s %7s %9s %7s %12s %10s %12s %12s %10s%n",
+                "rows", "columns", "fetchSize", "mode", "firstRow ms", "total ms", "rows/sec", "alloc MB/s", "peak MB");
+        for (Result r : results) {
+            System.out.printf("%10d %7d %9d %7s %12.2f %10.1f %12.0f %12.1f %10.1f%n",
+                    r.rows, r.columns, r.fetchSize, r.mode, r.firstRowMillis, r.totalMillis, r.rowsPerSec, r.allocMBPerSec, r.peakHeapMB);
+        }
+    }
+
+    private static final class Sample {
+        private long firstRowNanos;
+        private long totalNanos;
+        private long allocatedBytes;
+        private long peakHeapBytes;
+        private int rows;
+        private SQLExecutionResponse last;
+    }
+
+    private record Result(
+            int rows,
+            int columns,
+            int fetchSize,
+            String mode,
+            int runs,
+            double firstRowMillis,
+            double totalMillis,
+            double rowsPerSec,
+            double allocMBPerSec,
+            double peakHeapMB
+    ) {
+    }
+
+    // connection to the embedded QuestDB, with the fetch size and transfer mode under test
+    private static final class BenchConn extends DbConn {
+        private final int fetchSize;
+        private final String mode;
+
+        private BenchConn(int port, int fetchSize, String mode) {
+            super("e2e", "localhost", String.valueOf(port), "qdb", "admin", "quest");
+            this.fetchSize = fetchSize;
+            this.mode = mode;
+        }
+
+        @Override
+        public Properties createLoginProperties() {
+            Properties props = super.createLoginProperties();
+            // the driver only reads String values
+            props.setProperty("ssl", "false");
+            props.setProperty("sslmode", "disable");
+            props.setProperty("defaultRowFetchSize", String.valueOf(fetchSize));
+            switch (mode) {
+                case "text" -> props.setProperty("binaryTransfer", "false");
+                case "binary" -> {
+                    props.setProperty("binaryTransfer", "true");
+                    props.setProperty("prepareThreshold", "-1"); // binary results need prepared statements
+                }
+                case "simple" -> props.setProperty("preferQueryMode", "simple");
+                default -> throw new IllegalArgumentException("unknown transfer mode: " + mode);
+            }
+            return props;
+        }
+    }
+}
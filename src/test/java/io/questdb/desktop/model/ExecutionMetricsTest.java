@@ -0,0 +1,115 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.Test;
+
+public class ExecutionMetricsTest {
+    private static final int LAST_BUCKET = ExecutionMetrics.Histogram.bucketOf(Long.MAX_VALUE);
+
+    // the value falls within its bucket, whose bounds are within an eighth of it
+    private static void assertBucket(long value) {
+        int bucket = ExecutionMetrics.Histogram.bucketOf(value);
+        long upper = ExecutionMetrics.Histogram.upperBoundOf(bucket);
+        assertThat(value + " <= " + upper, value <= upper, is(true));
+        if (bucket > 0) {
+            long lower = ExecutionMetrics.Histogram.upperBoundOf(bucket - 1) + 1L;
+            assertThat(value + " >= " + lower, value >= lower, is(true));
+            assertThat(value + " within an eighth", (double) (upper - lower) <= value / 8.0, is(true));
+        }
+    }
+
+    @Test
+    public void test_small_values_have_a_bucket_each() {
+        for (int value = 0; value < 16; value++) {
+            assertThat(ExecutionMetrics.Histogram.bucketOf(value), is(value));
+            assertThat(ExecutionMetrics.Histogram.upperBoundOf(value), is((long) value));
+        }
+        assertThat(ExecutionMetrics.Histogram.bucketOf(-1L), is(0));
+        assertThat(ExecutionMetrics.Histogram.bucketOf(Long.MIN_VALUE), is(0));
+        assertThat(ExecutionMetrics.Histogram.bucketOf(16L), is(16));
+        assertThat(ExecutionMetrics.Histogram.bucketOf(17L), is(16));
+        assertThat(ExecutionMetrics.Histogram.upperBoundOf(16), is(17L));
+    }
+
+    @Test
+    public void test_powers_of_two_and_their_neighbours() {
+        for (int bit = 0; bit < Long.SIZE - 1; bit++) {
+            long power = 1L << bit;
+            assertBucket(power - 1L);
+            assertBucket(power);
+            assertBucket(power + 1L);
+            if (bit >= 3) {
+                // powers of two start their octave
+                int bucket = ExecutionMetrics.Histogram.bucketOf(power);
+                assertThat(ExecutionMetrics.Histogram.upperBoundOf(bucket - 1), is(power - 1L));
+            }
+        }
+        assertBucket(Long.MAX_VALUE);
+        assertThat(ExecutionMetrics.Histogram.upperBoundOf(LAST_BUCKET), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void test_buckets_are_contiguous() {
+        for (int bucket = 0; bucket < LAST_BUCKET; bucket++) {
+            long upper = ExecutionMetrics.Histogram.upperBoundOf(bucket);
+            assertThat(ExecutionMetrics.Histogram.bucketOf(upper), is(bucket));
+            assertThat(ExecutionMetrics.Histogram.bucketOf(upper + 1L), is(bucket + 1));
+        }
+    }
+
+    @Test
+    public void test_percentile() {
+        ExecutionMetrics.Histogram histogram = new ExecutionMetrics.Histogram();
+        assertThat(histogram.percentile(0.0), is(0L));
+        assertThat(histogram.percentile(0.5), is(0L));
+        assertThat(histogram.percentile(1.0), is(0L));
+
+        histogram.record(7L);
+        assertThat(histogram.percentile(0.0), is(7L));
+        assertThat(histogram.percentile(1.0), is(7L));
+
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(Long.MAX_VALUE);
+        // 102 values, 1 to 100 with 7 twice, then Long.MAX_VALUE
+        assertThat(histogram.percentile(0.0), is(1L));
+        assertThat(histogram.percentile(0.005), is(1L));
+        assertThat(histogram.percentile(0.01), is(2L));
+        assertThat(histogram.percentile(0.07), is(7L));
+        assertThat(histogram.percentile(0.075), is(7L));
+        assertThat(histogram.percentile(0.5), is(ExecutionMetrics.Histogram.upperBoundOf(ExecutionMetrics.Histogram.bucketOf(50L))));
+        assertThat(histogram.percentile(101.0 / 102.0), is(ExecutionMetrics.Histogram.upperBoundOf(ExecutionMetrics.Histogram.bucketOf(100L))));
+        assertThat(histogram.percentile(1.0), is(Long.MAX_VALUE));
+
+        histogram.reset();
+        assertThat(histogram.percentile(1.0), is(0L));
+    }
+}
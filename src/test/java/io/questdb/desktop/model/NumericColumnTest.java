@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class NumericColumnTest {
+
+    @Test
+    public void test_negative_values_and_nulls() {
+        NumericColumn column = new NumericColumn();
+        column.append(Double.NaN);
+        assertThat(Double.isNaN(column.min()) && Double.isNaN(column.max()), is(true));
+        column.append(-3.0);
+        column.append(-1.5);
+        column.append(Double.NaN);
+        column.append(-8.0);
+        assertThat(column.size(), is(5));
+        assertThat(column.min(), is(-8.0));
+        assertThat(column.max(), is(-1.5));
+    }
+
+    // the values and max are visible to readers that read the size first, while the array grows
+    @Test
+    public void test_read_while_appending() throws InterruptedException {
+        NumericColumn column = new NumericColumn();
+        int appends = 2_000_000;
+        AtomicBoolean isDone = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < appends; i++) {
+                column.append(i);
+            }
+            isDone.set(true);
+        }, "producer");
+        producer.start();
+        String failure = null;
+        while (failure == null && !isDone.get()) {
+            int n = column.size();
+            if (n > 0) {
+                if (column.get(n - 1) != n - 1) {
+                    failure = "value " + (n - 1) + " is " + column.get(n - 1);
+                } else if (column.min() != 0.0 || column.max() < n - 1) {
+                    failure = "size " + n + " has min/max " + column.min() + '/' + column.max();
+                }
+            }
+        }
+        producer.join();
+        assertThat(failure, nullValue());
+        assertThat(column.size(), is(appends));
+        assertThat(column.max(), is(appends - 1.0));
+    }
+}
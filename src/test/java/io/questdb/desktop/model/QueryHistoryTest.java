@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class QueryHistoryTest {
+
+    private File file;
+
+    private static SQLExecutionResponse response(String quest) {
+        return new SQLExecutionResponse(new SQLExecutionRequest(quest, null, "select 1"), null, 3L, 1L, 2L);
+    }
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("query-history", ".log").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        assertThat("delete", file.delete());
+    }
+
+    @Test
+    public void test_record_read() throws IOException {
+        try (QueryHistory history = new QueryHistory(file)) {
+            history.record(response("quest_0"), QueryHistory.Outcome.OK);
+            history.record(response("quest_1"), QueryHistory.Outcome.CACHED);
+            List<QueryHistory.Execution> executions = history.read();
+            assertThat(executions.size(), is(2));
+            assertThat(executions.get(0).quest(), is("quest_0"));
+            assertThat(executions.get(0).totalMillis(), is(3L));
+            assertThat(executions.get(1).quest(), is("quest_1"));
+            assertThat(executions.get(1).outcome(), is(QueryHistory.Outcome.CACHED));
+            assertThat(executions.get(1).conn(), is(""));
+        }
+    }
+
+    @Test
+    public void test_torn_record_is_truncated_on_open() throws IOException {
+        try (QueryHistory history = new QueryHistory(file)) {
+            history.record(response("quest_0"), QueryHistory.Outcome.OK);
+        }
+        long complete = file.length();
+        // the head of a record, as left by a crash
+        Files.write(file.toPath(), new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (QueryHistory history = new QueryHistory(file)) {
+            assertThat(history.read().size(), is(1));
+            history.record(response("quest_1"), QueryHistory.Outcome.OK);
+            List<QueryHistory.Execution> executions = history.read();
+            assertThat(executions.size(), is(2));
+            assertThat(executions.get(1).quest(), is("quest_1"));
+        }
+        assertThat(file.length(), is(2 * complete)); // quest names of equal length
+    }
+
+    @Test
+    public void test_string_overrunning_record_is_torn() throws IOException {
+        try (QueryHistory history = new QueryHistory(file)) {
+            history.record(response("quest_0"), QueryHistory.Outcome.OK);
+            history.record(response("quest_1"), QueryHistory.Outcome.OK);
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int second = bytes.length / 2;
+        // length of the second record's quest, after its prefix and fixed fields
+        ByteBuffer.wrap(bytes).putShort(second + Integer.BYTES + 8 * 7 + 1, Short.MAX_VALUE);
+        Files.write(file.toPath(), bytes);
+        try (QueryHistory history = new QueryHistory(file)) {
+            List<QueryHistory.Execution> executions = history.read();
+            assertThat(executions.size(), is(1));
+            assertThat(executions.get(0).quest(), is("quest_0"));
+        }
+    }
+
+    @Test
+    public void test_long_strings_are_cut_on_a_character_boundary() throws IOException {
+        String quest = "\u00e9".repeat(Short.MAX_VALUE); // two bytes each
+        try (QueryHistory history = new QueryHistory(file)) {
+            history.record(response(quest), QueryHistory.Outcome.OK);
+            List<QueryHistory.Execution> executions = history.read();
+            assertThat(executions.size(), is(1));
+            assertThat(executions.get(0).quest(), is("\u00e9".repeat(Short.MAX_VALUE / 2)));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ResultCacheTest {
+
+    private static final DbConn CONN = new DbConn("test");
+
+    private static Table table(long bytes) {
+        return new Table("t" + bytes) {
+            @Override
+            public long getEstimatedBytes() {
+                return bytes;
+            }
+        };
+    }
+
+    @Test
+    public void test_normalize() {
+        assertThat(ResultCache.normalize("select *\n\tfrom  t ;"), is("select * from t"));
+        assertThat(ResultCache.normalize("  select 1;;  ; "), is("select 1"));
+        assertThat(ResultCache.normalize("select 'a  b',  \"c  d\"  from t"), is("select 'a  b', \"c  d\" from t"));
+        assertThat(ResultCache.normalize("select 'a;' ;"), is("select 'a;'"));
+        assertThat(ResultCache.normalize("select 'it''s'   from t"), is("select 'it''s' from t"));
+        assertThat(ResultCache.normalize("select \"a'b\"   from t"), is("select \"a'b\" from t"));
+        assertThat(ResultCache.key(CONN, "select 1 ;"), is(ResultCache.key(CONN, "select\n1")));
+    }
+
+    @Test
+    public void test_lru_eviction_by_bytes() {
+        ResultCache cache = new ResultCache(100L, 60_000L, false);
+        Table a = table(40L);
+        Table b = table(40L);
+        assertThat(cache.put(CONN, "select a", a, null), is(true));
+        assertThat(cache.put(CONN, "select b", b, null), is(true));
+        assertThat(a.isReadOnly(), is(true));
+        assertThat(cache.get(CONN, "select a", null), sameInstance(a)); // b is now the least recently used
+        assertThat(cache.put(CONN, "select c", table(40L), null), is(true));
+        assertThat(cache.get(CONN, "select b", null), nullValue());
+        assertThat(cache.get(CONN, "select a", null), sameInstance(a));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getBytes(), is(80L));
+
+        // replaced, not added
+        assertThat(cache.put(CONN, "select  a;", table(10L), null), is(true));
+        assertThat(cache.getBytes(), is(50L));
+
+        // bigger than the cache
+        assertThat(cache.put(CONN, "select d", table(101L), null), is(false));
+        assertThat(cache.getBytes(), is(50L));
+    }
+
+    @Test
+    public void test_ttl() throws InterruptedException {
+        ResultCache cache = new ResultCache(100L, 50L, false);
+        Table a = table(10L);
+        cache.put(CONN, "select a", a, null);
+        assertThat(cache.get(CONN, "select a", null), sameInstance(a));
+        Thread.sleep(100L);
+        assertThat(cache.get(CONN, "select a", null), nullValue());
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getBytes(), is(0L));
+    }
+
+    @Test
+    public void test_txns_invalidate() {
+        ResultCache cache = new ResultCache(100L, 60_000L, true);
+        Table a = table(10L);
+        cache.put(CONN, "select * from trades", a, Map.of("trades", 5L, "t", 1L));
+        assertThat(cache.get(CONN, "select * from trades", Map.of("trades", 5L, "t", 2L)), sameInstance(a));
+        assertThat(cache.get(CONN, "select * from trades", null), sameInstance(a));
+        assertThat(cache.get(CONN, "select * from trades", Map.of("trades", 6L, "t", 2L)), nullValue());
+    }
+
+    @Test
+    public void test_tables_are_matched_as_whole_identifiers() {
+        Map<String, Long> txns = Map.of("t", 1L, "trades", 2L, "trades_2024", 3L, "my table", 4L);
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "select * from trades"), txns), is(Map.of("trades", 2L)));
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "SELECT * FROM Trades_2024 t"), txns), is(Map.of("trades_2024", 3L, "t", 1L)));
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "select * from \"t\""), txns), is(Map.of("t", 1L)));
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "select * from 'my table'"), txns), is(Map.of("my table", 4L)));
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "select 1"), txns), is(Map.of()));
+        assertThat(ResultCache.referencedTxns(ResultCache.key(CONN, "select 1"), null), nullValue());
+    }
+}
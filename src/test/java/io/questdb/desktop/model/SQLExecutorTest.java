@@ -0,0 +1,92 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.desktop.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.questdb.desktop.ui.EventProducer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SQLExecutorTest {
+
+    private File file;
+    private QueryHistory history;
+    private SQLExecutor executor;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("query-history", ".log").toFile();
+        history = new QueryHistory(file);
+        executor = new SQLExecutor();
+        executor.setQueryHistory(history);
+        executor.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+        history.close();
+        assertThat("delete", file.delete());
+    }
+
+    @Test
+    public void test_unrecorded_requests_skip_history_and_metrics() throws Exception {
+        DbConn conn = new DbConn("test"); // not connected, thus each execution fails
+        execute(new SQLExecutionRequest("live", conn, "select 1", false, false));
+        assertThat(history.read().size(), is(0));
+        assertThat(executor.getMetrics().getFailures(), is(0L));
+
+        execute(new SQLExecutionRequest("editor", conn, "select 2"));
+        List<QueryHistory.Execution> executions = history.read();
+        assertThat(executions.size(), is(1));
+        assertThat(executions.get(0).quest(), is("editor"));
+        assertThat(executions.get(0).outcome(), is(QueryHistory.Outcome.FAILED));
+        assertThat(executor.getMetrics().getFailures(), is(1L));
+    }
+
+    // submits the request, waiting for its last event
+    private void execute(SQLExecutionRequest req) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(req, (source, event, res) -> {
+            SQLExecutor.EventType type = EventProducer.eventType(event);
+            if (type == SQLExecutor.EventType.FAILURE || type == SQLExecutor.EventType.COMPLETED) {
+                done.countDown();
+            }
+        });
+        assertThat("executed", done.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.editor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+
+import org.junit.jupiter.api.Test;
+
+public class EditorTest {
+
+    @Test
+    public void test_replace_with_tabs() throws BadLocationException {
+        Editor editor = new Editor(true, false);
+        AbstractDocument doc = (AbstractDocument) editor.textPane.getDocument();
+        doc.insertString(0, "a;b;c", null);
+        // the document expands the tab to four spaces
+        assertThat(editor.replaceContent(";", false, ",\t"), is(2));
+        assertThat(editor.getText(), is("a,    b,    c"));
+        assertThat(editor.replaceContent("(\\w),", true, "$1\t"), is(2));
+        assertThat(editor.getText(), is("a        b        c"));
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.editor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.questdb.desktop.model.Store;
+import io.questdb.desktop.model.StoreEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class QuestIndexTest {
+
+    private final QuestIndex index = new QuestIndex();
+
+    private static StoreEntry quest(String name, String content) {
+        Content quest = new Content(name);
+        quest.setContent(content);
+        return quest;
+    }
+
+    private static List<String> names(List<QuestIndex.Hit> hits) {
+        List<String> names = new ArrayList<>(hits.size());
+        for (QuestIndex.Hit hit : hits) {
+            names.add(hit.notebook() + '/' + hit.name());
+        }
+        return names;
+    }
+
+    private static void delete(String notebook) {
+        File folder = new File(Store.ROOT_PATH, notebook + Store.FOLDER_SUFFIX);
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                assertThat("delete", f.delete());
+            }
+            assertThat("delete", folder.delete());
+        }
+        File file = new File(Store.ROOT_PATH, notebook);
+        assertThat("delete", !file.exists() || file.delete());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        index.close();
+    }
+
+    @Test
+    public void test_add_search_remove() {
+        index.onSave("b.json", Map.of(
+                0, quest("trades", "SELECT * FROM trades;"),
+                1, quest("sampled", "select avg(price) from trades sample by 1h")
+        ), Set.of());
+        index.onSave("a.json", Map.of(0, quest("quotes", "select bid, ask from quotes")), Set.of());
+        assertThat(index.size(), is(3));
+        assertThat(names(index.search("select", 10)), is(List.of("a.json/quotes", "b.json/sampled", "b.json/trades")));
+        assertThat(names(index.search("TRADES", 10)), is(List.of("b.json/sampled", "b.json/trades")));
+        assertThat(names(index.search("nothing", 10)), is(List.of()));
+        assertThat(names(index.search(" ;; ", 10)), is(List.of()));
+
+        // saves replace the quest's tokens
+        index.onSave("b.json", Map.of(0, quest("trades", "select * from quotes")), Set.of());
+        assertThat(names(index.search("trades", 10)), is(List.of("b.json/sampled", "b.json/trades")));
+        assertThat(names(index.search("quotes", 10)), is(List.of("a.json/quotes", "b.json/trades")));
+
+        index.onSave("b.json", Map.of(), Set.of(0));
+        assertThat(index.size(), is(2));
+        assertThat(names(index.search("quotes", 10)), is(List.of("a.json/quotes")));
+
+        // not a quest
+        index.onSave("c.json", Map.of(0, new StoreEntry("conn")), Set.of());
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void test_prefix_intersection() {
+        index.onSave("a.json", Map.of(
+                0, quest("q0", "select price from trades"),
+                1, quest("q1", "select price from prices"),
+                2, quest("q2", "select symbol from trades"),
+                3, quest("q3", "insert into trades values (1)")
+        ), Set.of());
+        assertThat(names(index.search("pri", 10)), is(List.of("a.json/q0", "a.json/q1")));
+        assertThat(names(index.search("pri tra", 10)), is(List.of("a.json/q0")));
+        assertThat(names(index.search("sel tra", 10)), is(List.of("a.json/q0", "a.json/q2")));
+        assertThat(names(index.search("tra sel ins", 10)), is(List.of()));
+        assertThat(names(index.search("q", 10)), is(List.of("a.json/q0", "a.json/q1", "a.json/q2", "a.json/q3")));
+    }
+
+    @Test
+    public void test_limit_keeps_the_first_hits_in_order() {
+        // doc ids are assigned in the reverse order of the names
+        for (int i = 9; i >= 0; i--) {
+            index.onSave("a.json", Map.of(i, quest("q" + i, "select " + i)), Set.of());
+        }
+        index.onSave("0.json", Map.of(0, quest("z", "select")), Set.of());
+        assertThat(names(index.search("select", 3)), is(List.of("0.json/z", "a.json/q0", "a.json/q1")));
+        assertThat(index.search("select", 100).size(), is(11));
+        assertThat(index.search("select", 0).size(), is(0));
+    }
+
+    @Test
+    public void test_saves_take_precedence_over_the_notebooks_read() {
+        String notebook = "test-quest-index.json";
+        delete(notebook);
+        try {
+            try (Store<Content> store = new Store<>(notebook, Content.class) {
+                @Override
+                public Content[] defaultStoreEntries() {
+                    return null;
+                }
+            }) {
+                Content kept = new Content("kept");
+                kept.setContent("select xyzzy_read from t");
+                Content edited = new Content("edited");
+                edited.setContent("select xyzzy_read from t");
+                Content dropped = new Content("dropped");
+                dropped.setContent("select xyzzy_read from t");
+                store.addEntry(kept);
+                store.addEntry(edited);
+                store.addEntry(dropped);
+            }
+            Map<Integer, StoreEntry> read = new LinkedHashMap<>();
+            Store.readEntries(notebook, read::put);
+            List<Integer> ids = new ArrayList<>(read.keySet());
+            assertThat(ids.size(), is(3));
+
+            // saved before the notebook is read, as by the open notebook
+            index.onSave(notebook, Map.of(ids.get(1), quest("edited", "select xyzzy_saved from t")), Set.of(ids.get(2)));
+            index.build().join();
+            assertThat(names(index.search("xyzzy_read", 10)), is(List.of(notebook + "/kept")));
+            assertThat(names(index.search("xyzzy_saved", 10)), is(List.of(notebook + "/edited")));
+
+            // read again when rewritten, dropping the saves
+            index.addNotebook(notebook);
+            long deadline = System.currentTimeMillis() + 10_000L;
+            while (index.search("xyzzy_read", 10).size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertThat(names(index.search("xyzzy", 10)), is(List.of(
+                    notebook + "/dropped",
+                    notebook + "/edited",
+                    notebook + "/kept")));
+        } finally {
+            delete(notebook);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.editor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.text.BadLocationException;
+
+import org.junit.jupiter.api.Test;
+
+public class TextFinderTest {
+
+    // applies the replacements as Editor does, to a copy of the text
+    private static String replaceAll(String text, String find, boolean isRegex, String replaceWith) throws BadLocationException {
+        StringBuilder sb = new StringBuilder(text);
+        int[] shift = {0};
+        TextFinder.of(find, isRegex).replaceAll(text, replaceWith, (start, end, replacement) -> {
+            sb.replace(start + shift[0], end + shift[0], replacement);
+            shift[0] += replacement.length() - (end - start);
+        });
+        return sb.toString();
+    }
+
+    private static String expected(String text, String find, boolean isRegex, String replaceWith) {
+        Pattern pattern = Pattern.compile(isRegex ? find : Pattern.quote(find), EditorHighlighter.PATTERN_FLAGS);
+        return pattern.matcher(text).replaceAll(isRegex ? replaceWith : Matcher.quoteReplacement(replaceWith));
+    }
+
+    // starts of all the matches, overlapping included
+    private static List<Integer> matches(String text, String find, boolean isRegex) {
+        TextFinder finder = TextFinder.of(find, isRegex);
+        List<Integer> starts = new ArrayList<>();
+        for (int from = 0; finder.find(text, from); from = finder.start() + 1) {
+            starts.add(finder.start());
+        }
+        return starts;
+    }
+
+    @Test
+    public void test_literal_is_case_insensitive() throws BadLocationException {
+        assertThat(matches("Select a FROM t; select b from T", "select", false), is(List.of(0, 17)));
+        assertThat(matches("Привет привет", "привет", false), is(List.of(0, 7)));
+        assertThat(replaceAll("Select a FROM t", "from", false, "$1 into"), is("Select a $1 into t"));
+    }
+
+    @Test
+    public void test_chars_colliding_in_the_shift_table() throws BadLocationException {
+        // ŀ, ɀ and '@' share their low byte, as do ¶ and ζ
+        String find = "ŀxζ";
+        String text = "@x¶ ɀxζ ŀx¶ @ŀxζ ŀxζ";
+        assertThat(matches(text, find, false), is(List.of(13, 17)));
+        assertThat(replaceAll(text, find, false, "!"), is(expected(text, find, false, "!")));
+        assertThat(matches("ĀĀĀa", "Āa", false), is(List.of(2)));
+        assertThat(matches("aaaaš", "aš", false), is(List.of(3)));
+    }
+
+    @Test
+    public void test_overlapping_matches_are_replaced_front_to_back() throws BadLocationException {
+        assertThat(matches("aaaa", "aa", false), is(List.of(0, 1, 2)));
+        assertThat(replaceAll("aaaa", "aa", false, "b"), is("bb"));
+        assertThat(replaceAll("aaa", "aa", false, "b"), is("ba"));
+        assertThat(replaceAll("abababa", "aba", false, "x"), is(expected("abababa", "aba", false, "x")));
+        assertThat(replaceAll("abababa", "a.a", true, "x"), is(expected("abababa", "a.a", true, "x")));
+    }
+
+    @Test
+    public void test_empty_matches() throws BadLocationException {
+        for (String text : new String[]{"", "b", "baac", "aab", "baa"}) {
+            assertThat(text, replaceAll(text, "a*", true, "-"), is(expected(text, "a*", true, "-")));
+            assertThat(text, replaceAll(text, "^", true, "> "), is(expected(text, "^", true, "> ")));
+        }
+        assertThat(replaceAll("baac", "a*", true, "-"), is("-b--c-"));
+    }
+
+    @Test
+    public void test_group_references() throws BadLocationException {
+        String text = "select a, b from t1, T2 where x = 'it''s $'";
+        assertThat(replaceAll(text, "(t)(\\d)", true, "$2_$1"), is("select a, b from 1_t, 2_T where x = 'it''s $'"));
+        assertThat(replaceAll(text, "(?<n>\\w)'", true, "[${n}]\\$"), is(expected(text, "(?<n>\\w)'", true, "[${n}]\\$")));
+        assertThat(replaceAll(text, "\\$", true, "\\\\"), is("select a, b from t1, T2 where x = 'it''s \\'"));
+    }
+
+    @Test
+    public void test_literal_regex_replacement_expands_references() throws BadLocationException {
+        String text = "select foo, Foo from t where $0 = 'foo\\'";
+        // searched for literally, as there are no special characters, replaced as a regex
+        for (String replaceWith : new String[]{"$0-x", "[$0]", "\\$0", "a\\\\b", "plain"}) {
+            assertThat(replaceWith, replaceAll(text, "foo", true, replaceWith), is(expected(text, "foo", true, replaceWith)));
+        }
+        assertThat(replaceAll(text, "foo", true, "$0-x"), is("select foo-x, Foo-x from t where $0 = 'foo-x\\'"));
+        assertThat(replaceAll(text, "fo+", true, "$0-x"), is(replaceAll(text, "foo", true, "$0-x")));
+        // not a regex, replaced literally
+        assertThat(replaceAll(text, "foo", false, "$0-x"), is("select $0-x, $0-x from t where $0 = '$0-x\\'"));
+        try {
+            replaceAll(text, "foo", true, "$1");
+            throw new AssertionError("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // as for a regex with special characters
+        }
+    }
+
+    @Test
+    public void test_invalid_find() {
+        for (String find : new String[]{null, ""}) {
+            try {
+                TextFinder.of(find, false);
+                throw new AssertionError("expected IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
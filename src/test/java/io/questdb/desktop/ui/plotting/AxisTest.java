@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+public class AxisTest {
+    private static final double SCALE = 1e-4; // pixels per milli
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MINUTES = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+
+    // lays the time axis out over seven steps, give or take the daylight saving time change,
+    // expecting a tick at each local time, as java.time resolves them through the change
+    private static void assertTimeTicks(String zone, LocalDateTime from, long stepHours, DateTimeFormatter format) {
+        ZoneId zoneId = ZoneId.of(zone);
+        LocalDateTime to = from.plusHours(7 * stepHours);
+        long min = from.atZone(zoneId).toInstant().toEpochMilli();
+        long max = to.atZone(zoneId).toInstant().toEpochMilli();
+        List<ZonedDateTime> expected = new ArrayList<>();
+        for (LocalDateTime local = from; !local.isAfter(to); local = local.plusHours(stepHours)) {
+            ZonedDateTime time = local.atZone(zoneId);
+            if (expected.isEmpty() || time.isAfter(expected.get(expected.size() - 1))) {
+                expected.add(time);
+            }
+        }
+        Axis axis = Axis.forX(TimeZone.getTimeZone(zone));
+        Graphics2D g2 = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        try {
+            assertThat(axis.layout(g2, min, max - min, SCALE, true), is(true));
+        } finally {
+            g2.dispose();
+        }
+        assertThat(zone + ' ' + from, axis.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            ZonedDateTime time = expected.get(i);
+            String label = format.format(time);
+            assertThat(zone + " tick " + i + " is not " + label, axis.labelEquals(i, label));
+            assertThat(axis.position(i), is((int) ((time.toInstant().toEpochMilli() - min) * SCALE)));
+        }
+    }
+
+    @Test
+    public void test_day_ticks_through_daylight_saving_changes() {
+        // daily ticks, at local midnight on either side of the change
+        assertTimeTicks("Europe/Berlin", LocalDateTime.of(2023, 10, 25, 0, 0), 24, DATE);
+        assertTimeTicks("Europe/Berlin", LocalDateTime.of(2023, 3, 22, 0, 0), 24, DATE);
+        assertTimeTicks("America/New_York", LocalDateTime.of(2023, 11, 1, 0, 0), 24, DATE);
+        // weekly ticks, epoch weeks start on thursdays
+        assertTimeTicks("America/New_York", LocalDateTime.of(2023, 10, 5, 0, 0), 7 * 24, DATE);
+    }
+
+    @Test
+    public void test_hour_ticks_through_daylight_saving_changes() {
+        // ticks every 3 local hours
+        assertTimeTicks("Europe/Berlin", LocalDateTime.of(2023, 10, 28, 12, 0), 3, MINUTES);
+        assertTimeTicks("Europe/Berlin", LocalDateTime.of(2023, 3, 25, 12, 0), 3, MINUTES);
+        assertTimeTicks("America/New_York", LocalDateTime.of(2023, 11, 4, 12, 0), 3, MINUTES);
+    }
+}
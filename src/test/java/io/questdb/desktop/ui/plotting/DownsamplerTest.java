@@ -0,0 +1,141 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DownsamplerTest {
+    private static final double ORIGIN_Y = 100.0;
+    private static final double SCALE_Y = 2.0;
+
+    private static BasicColumn walk(int n, long seed, boolean hasNaN) {
+        Random rnd = new Random(seed);
+        BasicColumn y = new BasicColumn("y");
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            v += rnd.nextInt(11) - 5;
+            y.append(hasNaN && i % 101 == 50 ? Double.NaN : v);
+        }
+        return y;
+    }
+
+    private static BasicColumn ascending(int n) {
+        BasicColumn x = new BasicColumn("x");
+        for (int i = 0; i < n; i++) {
+            x.append(i * 0.5);
+        }
+        return x;
+    }
+
+    @Test
+    public void test_extremes_kept_per_pixel_column() {
+        int n = 10_000;
+        BasicColumn x = ascending(n);
+        BasicColumn y = walk(n, 1L, true);
+        double scaleX = 0.4; // 80 points per pixel column
+        Downsampler downsampler = new Downsampler();
+        int size = downsampler.reduce(x, 0, y, 0, n, 0.0, ORIGIN_Y, scaleX, SCALE_Y);
+        int columns = (int) Math.ceil(x.get(n - 1) * scaleX) + 1;
+        int[] counts = new int[columns];
+        for (int i = 0; i < size; i++) {
+            counts[(int) Math.floor(downsampler.x(i))]++;
+            assertThat(i == 0 || downsampler.x(i) >= downsampler.x(i - 1), is(true));
+        }
+        for (int col = 0; col < columns; col++) {
+            // the points on the pixel column, by brute force
+            int first = -1;
+            int last = -1;
+            float minPy = Float.NaN;
+            float maxPy = Float.NaN;
+            for (int i = 0; i < n; i++) {
+                float px = (float) (x.get(i) * scaleX);
+                float py = (float) ((ORIGIN_Y - y.get(i)) * SCALE_Y);
+                if ((int) Math.floor(px) != col || !Float.isFinite(py)) {
+                    continue;
+                }
+                first = first < 0 ? i : first;
+                last = i;
+                minPy = Float.isNaN(minPy) ? py : Math.min(minPy, py);
+                maxPy = Float.isNaN(maxPy) ? py : Math.max(maxPy, py);
+            }
+            if (first < 0) {
+                assertThat(counts[col], is(0));
+                continue;
+            }
+            assertThat(counts[col], lessThanOrEqualTo(4));
+            float reducedMin = Float.NaN;
+            float reducedMax = Float.NaN;
+            int firstIdx = -1;
+            int lastIdx = -1;
+            for (int i = 0; i < size; i++) {
+                if ((int) Math.floor(downsampler.x(i)) == col) {
+                    float py = downsampler.y(i);
+                    reducedMin = Float.isNaN(reducedMin) ? py : Math.min(reducedMin, py);
+                    reducedMax = Float.isNaN(reducedMax) ? py : Math.max(reducedMax, py);
+                    firstIdx = firstIdx < 0 ? i : firstIdx;
+                    lastIdx = i;
+                }
+            }
+            assertThat(reducedMin, is(minPy));
+            assertThat(reducedMax, is(maxPy));
+            assertThat(downsampler.x(firstIdx), is((float) (x.get(first) * scaleX)));
+            assertThat(downsampler.y(firstIdx), is((float) ((ORIGIN_Y - y.get(first)) * SCALE_Y)));
+            assertThat(downsampler.x(lastIdx), is((float) (x.get(last) * scaleX)));
+            assertThat(downsampler.y(lastIdx), is((float) ((ORIGIN_Y - y.get(last)) * SCALE_Y)));
+        }
+    }
+
+    @Test
+    public void test_reduce_ascending_matches_reduce() {
+        int n = 200_000;
+        BasicColumn x = ascending(n);
+        BasicColumn y = walk(n, 2L, false);
+        MinMaxPyramid levels = new MinMaxPyramid();
+        levels.update(y);
+        int plotWidth = 640;
+        double[][] views = {{0.0, 0.02}, {12_345.6, 0.05}, {-100.0, 0.1}, {99_000.0, 0.5}};
+        for (double[] view : views) {
+            double originX = view[0];
+            double scaleX = view[1];
+            Downsampler ascending = new Downsampler();
+            int size = ascending.reduceAscending(x, 0, y, 0, levels, n, originX, ORIGIN_Y, scaleX, SCALE_Y, plotWidth);
+            // the points within the plot area and those next to its edges
+            int lo = Math.max(0, Downsampler.lowerBound(x, 0, 0, n, originX) - 1);
+            int hi = Math.min(n, Downsampler.lowerBound(x, 0, lo, n, originX + (plotWidth + 1) / scaleX) + 1);
+            Downsampler expected = new Downsampler();
+            int expectedSize = expected.reduce(x, lo, y, lo, hi - lo, originX, ORIGIN_Y, scaleX, SCALE_Y);
+            assertThat("view " + originX, size, is(expectedSize));
+            for (int i = 0; i < size; i++) {
+                assertThat("view " + originX + " point " + i, ascending.x(i) == expected.x(i) && ascending.y(i) == expected.y(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+public class LabelBufferTest {
+
+    private static void assertFixed(LabelBuffer buf, double value, int decimals) {
+        String expected = String.format(Locale.ROOT, "%." + decimals + "f", value);
+        buf.clear();
+        buf.putFixed(value, decimals);
+        assertThat(value + " with " + decimals + " decimals is not " + expected, buf.equals(0, buf.length(), expected));
+    }
+
+    @Test
+    public void test_fixed_matches_format() {
+        LabelBuffer buf = new LabelBuffer();
+        Random rnd = new Random(11);
+        for (int decimals = 0; decimals <= 6; decimals++) {
+            for (int i = 0; i < 100_000; i++) {
+                double magnitude = Math.pow(10.0, rnd.nextInt(16) - 6);
+                assertFixed(buf, (rnd.nextDouble() - 0.5) * magnitude, decimals);
+            }
+        }
+        // ticks, and the values nearest ties
+        for (int decimals = 0; decimals <= 3; decimals++) {
+            for (int k = -20_000; k <= 20_000; k++) {
+                assertFixed(buf, k * 0.001, decimals);
+                assertFixed(buf, k * 0.0005, decimals);
+                assertFixed(buf, k * 0.1 + 0.05, decimals);
+            }
+        }
+        double[] specials = {0.0, -0.0, -0.0004, 0.5, 1.5, 2.5, -2.5, 1e17, 123456789.0125, Double.MIN_VALUE};
+        for (double value : specials) {
+            for (int decimals = 0; decimals <= 6; decimals++) {
+                assertFixed(buf, value, decimals);
+            }
+        }
+        buf.clear();
+        assertThat(buf.putFixed(Double.NaN, 3).equals(0, buf.length(), "NaN"), is(true));
+    }
+
+    @Test
+    public void test_long() {
+        LabelBuffer buf = new LabelBuffer();
+        long[] values = {0L, 7L, -7L, 1_000_000L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            buf.clear();
+            buf.put(value);
+            assertThat(Long.toString(value), buf.equals(0, buf.length(), Long.toString(value)));
+        }
+    }
+
+    @Test
+    public void test_time_matches_java_time() {
+        LabelBuffer buf = new LabelBuffer();
+        Random rnd = new Random(5);
+        long from = Instant.parse("1900-01-01T00:00:00Z").toEpochMilli();
+        long to = Instant.parse("2100-01-01T00:00:00Z").toEpochMilli();
+        String[] zones = {"UTC", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe"};
+        DateTimeFormatter full = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+        DateTimeFormatter minutes = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+        for (String zone : zones) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            ZoneId zoneId = ZoneId.of(zone);
+            for (int i = 0; i < 20_000; i++) {
+                long millis = from + (long) (rnd.nextDouble() * (to - from));
+                ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(zoneId);
+                buf.clear();
+                buf.putTime(millis, timeZone, LabelBuffer.TimeFormat.FULL);
+                assertThat(zone + ' ' + millis, buf.equals(0, buf.length(), full.format(time)));
+                buf.clear();
+                buf.putTime(millis, timeZone, LabelBuffer.TimeFormat.MINUTES);
+                assertThat(zone + ' ' + millis, buf.equals(0, buf.length(), minutes.format(time)));
+            }
+        }
+    }
+
+    @Test
+    public void test_civil_date() {
+        for (long epochDay = -800_000L; epochDay <= 800_000L; epochDay += 13L) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            long months = date.getYear() * 12L + date.getMonthValue() - 1;
+            assertThat(LabelBuffer.civilDate(epochDay), is(months * 32L + date.getDayOfMonth() - 1));
+            assertThat(LabelBuffer.epochDayOfMonth(months), is(date.withDayOfMonth(1).toEpochDay()));
+        }
+    }
+}
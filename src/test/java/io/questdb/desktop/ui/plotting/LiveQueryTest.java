@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.Table;
+import org.junit.jupiter.api.Test;
+
+public class LiveQueryTest {
+
+    private static final DbConn CONN = new DbConn("test");
+
+    // columns #, x, y
+    private static Table table(int xType, Object... xs) {
+        return new Table("live") {
+            @Override
+            public int getColumnCount() {
+                return 3;
+            }
+
+            @Override
+            public int getColumnType(int i) {
+                return i == 1 ? xType : Types.DOUBLE;
+            }
+
+            @Override
+            public Object getValueAt(int rowIdx, int colIdx) {
+                return switch (colIdx) {
+                    case 0 -> (long) rowIdx;
+                    case 1 -> xs[rowIdx];
+                    default -> 1.0;
+                };
+            }
+
+            @Override
+            public int size() {
+                return xs.length;
+            }
+        };
+    }
+
+    @Test
+    public void test_bigint_keys_beyond_double_precision() {
+        LiveQuery query = new LiveQuery(CONN, "select k, v from t;", "k", Types.BIGINT, LiveQuery.Mode.TAIL);
+        assertThat(query.nextRequest().getSqlCommand(), is("select k, v from t"));
+        long base = 1L << 60; // doubles are 256 apart here
+        BasicColumn x = new BasicColumn("x");
+        BasicColumn y = new BasicColumn("y");
+        assertThat(query.appendDelta(table(Types.BIGINT, base + 1L, base + 2L, base + 3L), x, y), is(3));
+        assertThat(query.nextRequest().getSqlCommand(), is("SELECT * FROM (select k, v from t) WHERE \"k\" > " + (base + 3L)));
+        // re-run, only the new row is appended
+        assertThat(query.appendDelta(table(Types.BIGINT, base + 2L, base + 3L, base + 4L), x, y), is(1));
+        assertThat(x.size(), is(4));
+        assertThat(y.size(), is(4));
+    }
+
+    @Test
+    public void test_key_column_name_is_escaped() {
+        LiveQuery query = new LiveQuery(CONN, "select * from t", "my \"k\"", Types.INTEGER, LiveQuery.Mode.TAIL);
+        query.appendDelta(table(Types.INTEGER, 1, 2), new BasicColumn("x"), new BasicColumn("y"));
+        assertThat(query.nextRequest().getSqlCommand(), is("SELECT * FROM (select * from t) WHERE \"my \"\"k\"\"\" > 2"));
+    }
+
+    @Test
+    public void test_double_and_timestamp_keys() {
+        LiveQuery doubles = new LiveQuery(CONN, "select * from t", "k", Types.DOUBLE, LiveQuery.Mode.TAIL);
+        BasicColumn x = new BasicColumn("x");
+        BasicColumn y = new BasicColumn("y");
+        assertThat(doubles.appendDelta(table(Types.DOUBLE, 0.5, Double.NaN, 0.25, 1.5), x, y), is(2));
+        assertThat(doubles.nextRequest().getSqlCommand(), is("SELECT * FROM (select * from t) WHERE \"k\" > 1.5"));
+
+        LiveQuery timestamps = new LiveQuery(CONN, "select * from t", "ts", Types.TIMESTAMP_WITH_TIMEZONE, LiveQuery.Mode.TAIL);
+        Timestamp ts = new Timestamp(1_700_000_000_123L);
+        ts.setNanos(123_456_000);
+        assertThat(timestamps.appendDelta(table(Types.TIMESTAMP_WITH_TIMEZONE, ts, null), x, y), is(1));
+        assertThat(timestamps.nextRequest().getSqlCommand(), is("SELECT * FROM (select * from t) WHERE \"ts\" > CAST(1700000000123456 AS TIMESTAMP)"));
+    }
+}
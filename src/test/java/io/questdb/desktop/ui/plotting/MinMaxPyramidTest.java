@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class MinMaxPyramidTest {
+
+    private static int scan(Column column, int from, int to, boolean isMax) {
+        int result = -1;
+        for (int i = from; i < to; i++) {
+            double v = column.get(i);
+            if (!Double.isNaN(v) && (result < 0 || (isMax ? v > column.get(result) : v < column.get(result)))) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private static void assertRanges(MinMaxPyramid levels, Column column, Random rnd) {
+        int n = column.size();
+        for (int k = 0; k < 500; k++) {
+            int from = rnd.nextInt(n + 1);
+            int to = from + rnd.nextInt(n + 1 - from);
+            assertThat(from + ".." + to, levels.argMin(column, from, to) == scan(column, from, to, false));
+            assertThat(from + ".." + to, levels.argMax(column, from, to) == scan(column, from, to, true));
+        }
+        assertThat(levels.argMin(column, 0, n), is(scan(column, 0, n, false)));
+        assertThat(levels.argMax(column, 0, n), is(scan(column, 0, n, true)));
+    }
+
+    @Test
+    public void test_ranges_of_appended_values() {
+        Random rnd = new Random(42);
+        BasicColumn column = new BasicColumn("y");
+        MinMaxPyramid levels = new MinMaxPyramid();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0, n = 1 + rnd.nextInt(1000); i < n; i++) {
+                column.append(rnd.nextInt(20) == 0 ? Double.NaN : rnd.nextInt(100) - 50);
+            }
+            levels.update(column);
+            assertThat(levels.isIndexed(), is(true));
+            assertRanges(levels, column, rnd);
+        }
+    }
+
+    @Test
+    public void test_sliding_column_is_scanned_until_it_stops() {
+        Random rnd = new Random(7);
+        SlidingColumn column = new SlidingColumn("y", 300);
+        MinMaxPyramid levels = new MinMaxPyramid();
+        for (int i = 0; i < 1000; i++) {
+            column.append(rnd.nextGaussian());
+        }
+        levels.update(column.snapshot());
+        assertThat(levels.isIndexed(), is(true));
+        for (int round = 0; round < 3; round++) {
+            column.append(rnd.nextGaussian());
+            Column snapshot = column.snapshot();
+            levels.update(snapshot);
+            assertThat(levels.isIndexed(), is(false));
+            assertRanges(levels, snapshot, rnd);
+        }
+        Column snapshot = column.snapshot();
+        levels.update(snapshot);
+        assertThat(levels.isIndexed(), is(true));
+        assertRanges(levels, snapshot, rnd);
+    }
+
+    @Test
+    public void test_ascending_within_the_window() {
+        SlidingColumn column = new SlidingColumn("x", 100);
+        MinMaxPyramid levels = new MinMaxPyramid();
+        for (int i = 0; i < 150; i++) {
+            column.append(i);
+        }
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(true));
+
+        column.append(0.0);
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(false));
+        for (int i = 1; i < 99; i++) {
+            column.append(i);
+        }
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(false)); // the descent is the pair of the first two values
+        column.append(99.0);
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(true));
+
+        column.append(Double.NaN);
+        column.append(200.0);
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(false));
+        for (int i = 0; i < 99; i++) {
+            column.append(300.0 + i);
+        }
+        levels.update(column.snapshot());
+        assertThat(levels.isAscending(), is(true));
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongToDoubleFunction;
+
+import org.junit.jupiter.api.Test;
+
+public class PlotCanvasTest {
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 600;
+    private static final int APPENDS = 120_000;
+    private static final double UNPAIRED = 1e6; // y values without an x
+
+    // x and three y columns of unequal lengths, over more points than PARALLEL_MIN_POINTS:
+    // y0 starts before x, its head has no x, y1 ends before x, y2 pairs with all of x
+    private static Column[] columns(LongToDoubleFunction x) {
+        Random random = new Random(42L);
+        SlidingColumn xs = new SlidingColumn("x", 100_000, Color.WHITE, false);
+        SlidingColumn y0 = new SlidingColumn("y0", 110_000, Color.ORANGE);
+        SlidingColumn y1 = new SlidingColumn("y1", 100_000, Color.GREEN);
+        SlidingColumn y2 = new SlidingColumn("y2", 100_000, Color.CYAN);
+        for (long v = 0; v < APPENDS; v++) {
+            xs.append(x.applyAsDouble(v));
+            y0.append(v < APPENDS - 100_000 ? UNPAIRED : 100.0 * Math.sin(v / 1000.0));
+            if (v < 90_000) {
+                y1.append(50.0 * Math.cos(v / 777.0) + v % 13);
+            }
+            y2.append(random.nextGaussian() * 30.0);
+        }
+        return new Column[]{xs, y0, y1, y2};
+    }
+
+    private static PlotCanvas canvas(Column[] columns, boolean isParallel) {
+        PlotCanvas canvas = new PlotCanvas();
+        canvas.setSize(WIDTH, HEIGHT);
+        if (!isParallel) {
+            canvas.parallelMinPoints = Integer.MAX_VALUE;
+        }
+        canvas.setDataSet("test", columns);
+        return canvas;
+    }
+
+    private static int[] paint(PlotCanvas canvas) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            canvas.paint(g2);
+        } finally {
+            g2.dispose();
+        }
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    // paints both, expecting the same pixels and y range
+    private static void assertSamePaint(PlotCanvas parallel, PlotCanvas serial) {
+        assertThat(Arrays.equals(paint(parallel), paint(serial)), is(true));
+        assertThat(parallel.minY(), is(serial.minY()));
+        assertThat(parallel.maxY(), is(serial.maxY()));
+    }
+
+    // the union of the ranges of the y values paired with an x in [minX, maxX), padded
+    // as the canvas pads it
+    private static void assertRangeY(PlotCanvas canvas, Column[] columns, double minX, double maxX) {
+        Column xs = columns[0].snapshot();
+        long xStart = xs.version() - xs.size();
+        double lo = Double.NaN;
+        double hi = Double.NaN;
+        for (int c = 1; c < columns.length; c++) {
+            Column ys = columns[c].snapshot();
+            long yStart = ys.version() - ys.size();
+            long from = Math.max(xStart, yStart);
+            long to = Math.min(xs.version(), ys.version());
+            for (long v = from; v < to; v++) {
+                double x = xs.get((int) (v - xStart));
+                if (x >= minX && x < maxX) {
+                    double y = ys.get((int) (v - yStart));
+                    lo = Double.isNaN(lo) ? y : Math.min(lo, y);
+                    hi = Double.isNaN(hi) ? y : Math.max(hi, y);
+                }
+            }
+        }
+        assertThat(hi < UNPAIRED, is(true));
+        double deltaY = Math.abs(hi - lo) * 0.07F;
+        double minY = lo - deltaY;
+        assertThat(canvas.minY(), is(minY));
+        assertThat(canvas.maxY(), is(minY + (hi + deltaY - minY)));
+    }
+
+    @Test
+    public void test_parallel_and_serial_paths_paint_the_same_ascending() {
+        Column[] columns = columns(v -> v);
+        PlotCanvas parallel = canvas(columns, true);
+        PlotCanvas serial = canvas(columns, false);
+        assertSamePaint(parallel, serial);
+        assertRangeY(serial, columns, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+        // zoomed, y fits the visible points, through the pyramids
+        parallel.setView(45_000.5, 95_000.5);
+        serial.setView(45_000.5, 95_000.5);
+        assertSamePaint(parallel, serial);
+        assertRangeY(serial, columns, 45_000.5, 95_000.5);
+
+        // zoomed into the points of y0 alone
+        parallel.setView(100_000.0, 110_000.0);
+        serial.setView(100_000.0, 110_000.0);
+        assertSamePaint(parallel, serial);
+        assertRangeY(serial, columns, 100_000.0, 110_000.0);
+    }
+
+    @Test
+    public void test_parallel_and_serial_paths_paint_the_same_scattered() {
+        Random random = new Random(7L);
+        double[] x = new double[APPENDS];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = random.nextDouble() * 1000.0;
+        }
+        Column[] columns = columns(v -> x[(int) v]);
+        PlotCanvas parallel = canvas(columns, true);
+        PlotCanvas serial = canvas(columns, false);
+        assertSamePaint(parallel, serial);
+        assertRangeY(serial, columns, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void test_unequal_columns_pair_by_version() {
+        // x holds versions [50, 100), y0 [20, 100), y1 [0, 70)
+        SlidingColumn xs = new SlidingColumn("x", 50);
+        SlidingColumn y0 = new SlidingColumn("y0", 80, Color.ORANGE);
+        SlidingColumn y1 = new SlidingColumn("y1", 100, Color.GREEN);
+        for (int v = 0; v < 100; v++) {
+            xs.append(v);
+            y0.append(v < 50 ? UNPAIRED : v);
+            if (v < 70) {
+                y1.append(v < 50 ? -UNPAIRED : -v);
+            }
+        }
+        Column[] columns = {xs, y0, y1};
+        PlotCanvas canvas = canvas(columns, false);
+        paint(canvas);
+        assertRangeY(canvas, columns, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        canvas.setView(60.0, 80.0);
+        paint(canvas);
+        assertRangeY(canvas, columns, 60.0, 80.0);
+        canvas.setView(75.0, 90.0); // y1 has no points there
+        paint(canvas);
+        assertRangeY(canvas, columns, 75.0, 90.0);
+    }
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class PlotRasterTest {
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+    private static final int LIT = Color.WHITE.getRGB();
+
+    private static int[] pixels(PlotRaster raster) {
+        return ((DataBufferInt) raster.image().getRaster().getDataBuffer()).getData();
+    }
+
+    private static PlotRaster raster() {
+        PlotRaster raster = new PlotRaster();
+        raster.resize(WIDTH, HEIGHT);
+        raster.setColor(Color.WHITE);
+        return raster;
+    }
+
+    // lines and dots, many of them beyond the frame
+    private static void draw(PlotRaster raster, long seed) {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < 300; i++) {
+            double x0 = rnd.nextDouble() * WIDTH * 2 - WIDTH / 2.0;
+            double y0 = rnd.nextDouble() * HEIGHT * 2 - HEIGHT / 2.0;
+            double x1 = x0 + rnd.nextGaussian() * 40.0;
+            double y1 = y0 + rnd.nextGaussian() * 40.0;
+            raster.drawLine(x0, y0, x1, y1);
+            raster.fillEllipse(x1, y1, 1.2 + rnd.nextInt(3) * 0.6, 1.2 + rnd.nextInt(3) * 0.6);
+        }
+    }
+
+    private static int round(double value) {
+        return (int) Math.floor(value + 0.5);
+    }
+
+    @Test
+    public void test_line_lights_the_pixel_nearest_it_in_each_column() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < 2_000; i++) {
+            PlotRaster raster = raster();
+            double x0 = 10 + rnd.nextDouble() * (WIDTH - 20);
+            double y0 = 10 + rnd.nextDouble() * (HEIGHT - 20);
+            double x1 = 10 + rnd.nextDouble() * (WIDTH - 20);
+            double y1 = i % 10 == 0 ? y0 : 10 + rnd.nextDouble() * (HEIGHT - 20);
+            raster.drawLine(x0, y0, x1, y1);
+            int[] pixels = pixels(raster);
+            String line = x0 + "," + y0 + " to " + x1 + "," + y1;
+            boolean isSteep = Math.abs(y1 - y0) > Math.abs(x1 - x0);
+            double u0 = isSteep ? Math.min(y0, y1) : Math.min(x0, x1);
+            double u1 = isSteep ? Math.max(y0, y1) : Math.max(x0, x1);
+            double v0 = isSteep ? (y0 < y1 ? x0 : x1) : (x0 < x1 ? y0 : y1);
+            double v1 = isSteep ? (y0 < y1 ? x1 : x0) : (x0 < x1 ? y1 : y0);
+            int from = round(u0);
+            int to = round(u1);
+            int prev = -1;
+            for (int u = 0, n = isSteep ? HEIGHT : WIDTH; u < n; u++) {
+                int count = 0;
+                int lit = -1;
+                for (int v = 0, m = isSteep ? WIDTH : HEIGHT; v < m; v++) {
+                    if (pixels[isSteep ? u * WIDTH + v : v * WIDTH + u] == LIT) {
+                        count++;
+                        lit = v;
+                    }
+                }
+                if (u < from || u > to) {
+                    assertThat(line + " at " + u, count == 0);
+                    continue;
+                }
+                assertThat(line + " at " + u, count == 1);
+                double at = Math.max(u0, Math.min(u1, u));
+                double v = u1 > u0 ? v0 + (at - u0) * (v1 - v0) / (u1 - u0) : v0;
+                assertThat(line + " at " + u, Math.abs(lit - v) <= 0.5 + 1e-9);
+                assertThat(line + " at " + u, prev < 0 || Math.abs(lit - prev) <= 1);
+                prev = lit;
+            }
+        }
+    }
+
+    // Java2D fills the polygon it flattens the ellipse into, which leaves out some of the
+    // pixels whose centre is within the ellipse, next to its outline
+    @Test
+    public void test_dots_match_java2d_but_at_the_outline() {
+        Random rnd = new Random(2);
+        BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = expected.createGraphics();
+        g2.setColor(Color.WHITE);
+        PlotRaster raster = raster();
+        double[][] dots = new double[2_000][];
+        for (int i = 0; i < dots.length; i++) {
+            double cx = rnd.nextDouble() * (WIDTH + 10) - 5;
+            double cy = rnd.nextDouble() * (HEIGHT + 10) - 5;
+            double r = 1.2 * (1 + rnd.nextInt(3) * 0.5); // device scales 1, 1.5 and 2
+            dots[i] = new double[]{cx, cy, r};
+            g2.fill(new Ellipse2D.Double(cx - r, cy - r, 2 * r, 2 * r));
+            raster.fillEllipse(cx, cy, r, r);
+        }
+        g2.dispose();
+        int[] want = ((DataBufferInt) expected.getRaster().getDataBuffer()).getData();
+        int[] got = pixels(raster);
+        int extra = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean isJava2D = (want[y * WIDTH + x] & 0xFFFFFF) != 0;
+                boolean isRaster = got[y * WIDTH + x] == LIT;
+                assertThat(x + "," + y, !isJava2D || isRaster);
+                if (isRaster && !isJava2D) {
+                    // within a tenth of a pixel of the outline of some dot
+                    boolean isOutline = false;
+                    for (double[] dot : dots) {
+                        double d = Math.hypot(x - dot[0], y - dot[1]);
+                        isOutline |= d <= dot[2] && d > dot[2] - 0.1;
+                    }
+                    assertThat(x + "," + y, isOutline);
+                    extra++;
+                }
+            }
+        }
+        assertThat(extra < 100, is(true));
+    }
+
+    @Test
+    public void test_clip_keeps_the_pixels_within() {
+        PlotRaster full = raster();
+        draw(full, 3L);
+        PlotRaster clipped = raster();
+        int clipX = 17;
+        int clipY = 23;
+        int clipW = 101;
+        int clipH = 59;
+        clipped.setClip(clipX, clipY, clipW, clipH);
+        draw(clipped, 3L);
+        int[] want = pixels(full);
+        int[] got = pixels(clipped);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean isWithin = x >= clipX && x < clipX + clipW && y >= clipY && y < clipY + clipH;
+                assertThat(x + "," + y, got[y * WIDTH + x] == (isWithin ? want[y * WIDTH + x] : 0));
+            }
+        }
+    }
+
+    @Test
+    public void test_line_ends_far_beyond_the_frame() {
+        PlotRaster raster = raster();
+        raster.setClip(5, 3, WIDTH - 10, HEIGHT - 6);
+        raster.drawLine(-1e12, 40.2, 100.2, 40.2);
+        raster.drawLine(120.0, -1e12, 120.0, 1e12);
+        raster.drawLine(-3e9, -3e9, 3e9, 3e9);
+        int[] pixels = pixels(raster);
+        for (int x = 5; x <= 100; x++) {
+            assertThat("x " + x, pixels[40 * WIDTH + x] == LIT);
+        }
+        for (int y = 3; y < HEIGHT - 3; y++) {
+            assertThat("y " + y, pixels[y * WIDTH + 120] == LIT);
+            assertThat("y " + y, pixels[y * WIDTH + y] == (y >= 5 ? LIT : 0));
+        }
+    }
+
+    @Test
+    public void test_bands_draw_the_pixels_of_a_single_pass() {
+        PlotRaster single = raster();
+        single.setClip(5, 3, WIDTH - 10, HEIGHT - 6);
+        draw(single, 4L);
+        for (int bandHeight : new int[]{1, 7, 16, HEIGHT}) {
+            PlotRaster banded = raster();
+            banded.setClip(5, 3, WIDTH - 10, HEIGHT - 6);
+            for (int y = banded.clipY(), end = y + banded.clipHeight(); y < end; y += bandHeight) {
+                draw(banded.band(y, Math.min(bandHeight, end - y)), 4L);
+            }
+            assertThat("bands of " + bandHeight, Arrays.equals(pixels(banded), pixels(single)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.Types;
+import java.time.Instant;
+
+import io.questdb.desktop.model.DbConn;
+import io.questdb.desktop.model.SQLExecutionRequest;
+import org.junit.jupiter.api.Test;
+
+public class SampleByQueryTest {
+    private static final DbConn CONN = new DbConn("test");
+    private static final double FROM = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final double TO = Instant.parse("2024-01-11T00:00:00Z").toEpochMilli();
+    private static final String FILTER = "\"ts\" >= '2024-01-01T00:00:00.000000Z' AND \"ts\" < '2024-01-11T00:10:00.000000Z'";
+    private static final String REFINED = "WHERE " + FILTER + " SAMPLE BY 10m";
+
+    // ten days over a thousand pixels, 864 seconds per pixel
+    private static String refine(String query) {
+        SampleByQuery sampleByQuery = SampleByQuery.of(CONN, query, "ts", Types.TIMESTAMP_WITH_TIMEZONE);
+        if (sampleByQuery == null) {
+            return null;
+        }
+        SQLExecutionRequest req = sampleByQuery.refine(FROM, TO, 1000);
+        return req != null ? req.getSqlCommand() : null;
+    }
+
+    @Test
+    public void test_fill_and_align_after_sample_by() {
+        assertThat(
+                refine("SELECT ts, avg(v) FROM t SAMPLE BY 1d FILL(NULL) ALIGN TO CALENDAR"),
+                is("SELECT ts, avg(v) FROM t " + REFINED + " FILL(NULL) ALIGN TO CALENDAR"));
+        assertThat(
+                refine("select ts, avg(v) from t sample by 1h\nfill(prev)\nalign to calendar with offset '00:30'"),
+                is("select ts, avg(v) from t " + REFINED + "\nfill(prev)\nalign to calendar with offset '00:30'"));
+    }
+
+    @Test
+    public void test_filter_added_to_where() {
+        assertThat(
+                refine("SELECT ts, avg(v) FROM t WHERE s = 'a' OR v > 0 SAMPLE BY 1d"),
+                is("SELECT ts, avg(v) FROM t WHERE (s = 'a' OR v > 0) AND " + FILTER + " SAMPLE BY 10m"));
+        // the WHERE of a sub query, or within quotes, is not that of the sampled SELECT
+        assertThat(
+                refine("SELECT ts, avg(v) FROM (SELECT * FROM t WHERE v > 0) SAMPLE BY 1d"),
+                is("SELECT ts, avg(v) FROM (SELECT * FROM t WHERE v > 0) " + REFINED));
+        assertThat(
+                refine("SELECT ts, avg(v) \"where\" FROM t where_t SAMPLE BY 1d"),
+                is("SELECT ts, avg(v) \"where\" FROM t where_t " + REFINED));
+        // the sampled SELECT within a sub query
+        assertThat(
+                refine("SELECT * FROM (SELECT ts, avg(v) FROM t where v > 0 SAMPLE BY 1d) ORDER BY ts"),
+                is("SELECT * FROM (SELECT ts, avg(v) FROM t where (v > 0) AND " + FILTER + " SAMPLE BY 10m) ORDER BY ts"));
+    }
+
+    @Test
+    public void test_from_to_not_refined() {
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 1h FROM '2024-01-01' TO '2024-02-01' FILL(NULL)"), nullValue());
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 1h\n  from '2024-01-01' to '2024-02-01'"), nullValue());
+    }
+
+    @Test
+    public void test_months_and_years() {
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 1M"), is("SELECT ts, avg(v) FROM t " + REFINED));
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 2y;"), is("SELECT ts, avg(v) FROM t " + REFINED + ";"));
+        // minutes, not months, the refined step is not finer
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 5m"), nullValue());
+    }
+
+    @Test
+    public void test_not_refined() {
+        assertThat(refine("SELECT ts, avg(v) FROM t SAMPLE BY 10m"), nullValue());
+        assertThat(refine("SELECT * FROM (SELECT ts, avg(v) FROM t SAMPLE BY 1h) SAMPLE BY 1d"), nullValue());
+        assertThat(refine("SELECT ts, v FROM t"), nullValue());
+        assertThat(SampleByQuery.of(CONN, "SELECT x, avg(v) FROM t SAMPLE BY 1h", "x", Types.BIGINT), nullValue());
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class SlidingColumnTest {
+
+    // negative every other sequence, NaN every 97th
+    private static double valueOf(long seq) {
+        if (seq % 97L == 0L) {
+            return Double.NaN;
+        }
+        return (seq & 1L) == 0L ? seq : -seq;
+    }
+
+    private static String checkWindow(Column snapshot) {
+        long start = snapshot.version() - snapshot.size();
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int i = 0, n = snapshot.size(); i < n; i++) {
+            double expected = valueOf(start + i);
+            double value = snapshot.get(i);
+            if (Double.compare(value, expected) != 0) {
+                return "seq " + (start + i) + " is " + value + ", expected " + expected;
+            }
+            if (!Double.isNaN(value)) {
+                min = Double.isNaN(min) ? value : Math.min(min, value);
+                max = Double.isNaN(max) ? value : Math.max(max, value);
+            }
+        }
+        if (Double.compare(snapshot.min(), min) != 0 || Double.compare(snapshot.max(), max) != 0) {
+            return "window ending at " + snapshot.version() + " has min/max " + snapshot.min() + '/' + snapshot.max()
+                    + ", expected " + min + '/' + max;
+        }
+        return null;
+    }
+
+    @Test
+    public void test_snapshots_while_appending() throws InterruptedException {
+        SlidingColumn column = new SlidingColumn("y", 200);
+        int appends = 5_000_000;
+        AtomicBoolean isDone = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < appends; i++) {
+                column.append(valueOf(i));
+            }
+            isDone.set(true);
+        }, "producer");
+        producer.start();
+        long valid = 0L;
+        String failure = null;
+        while (failure == null && !isDone.get()) {
+            Column snapshot = column.snapshot();
+            String check = checkWindow(snapshot);
+            if (snapshot.isValid()) { // retried otherwise
+                failure = check;
+                valid++;
+            }
+            Thread.onSpinWait();
+        }
+        producer.join();
+        assertThat(failure, is((String) null));
+        assertThat(valid, greaterThan(0L));
+        Column last = column.snapshot();
+        assertThat(last.version(), is((long) appends));
+        assertThat(last.isValid(), is(true));
+        assertThat(checkWindow(last), is((String) null));
+    }
+
+    @Test
+    public void test_min_max_of_negative_values() {
+        SlidingColumn column = new SlidingColumn("y", 3);
+        double[] values = {-5.0, -1.0, -3.0, -9.0, -2.0, -2.0};
+        double[] mins = {-5.0, -5.0, -5.0, -9.0, -9.0, -9.0};
+        double[] maxs = {-5.0, -1.0, -1.0, -1.0, -2.0, -2.0};
+        for (int i = 0; i < values.length; i++) {
+            column.append(values[i]);
+            assertThat(column.min(), is(mins[i]));
+            assertThat(column.max(), is(maxs[i]));
+        }
+    }
+
+    @Test
+    public void test_min_max_skip_nan() {
+        SlidingColumn column = new SlidingColumn("y", 2);
+        assertThat(Double.isNaN(column.min()) && Double.isNaN(column.max()), is(true));
+        column.append(Double.NaN);
+        assertThat(Double.isNaN(column.min()) && Double.isNaN(column.max()), is(true));
+        column.append(4.0);
+        assertThat(column.min(), is(4.0));
+        assertThat(column.max(), is(4.0));
+        column.append(Double.NaN);
+        assertThat(column.min(), is(4.0));
+        column.append(Double.NaN); // the window has no values
+        assertThat(Double.isNaN(column.min()) && Double.isNaN(column.max()), is(true));
+        column.append(-1.0);
+        assertThat(column.min(), is(-1.0));
+        assertThat(column.max(), is(-1.0));
+    }
+
+    @Test
+    public void test_min_max_match_scan() {
+        Random rnd = new Random(3);
+        for (int window : new int[]{1, 2, 7, 100}) {
+            SlidingColumn column = new SlidingColumn("y", window);
+            for (int i = 0; i < 5_000; i++) {
+                column.append(rnd.nextInt(10) == 0 ? Double.NaN : rnd.nextInt(50) - 40);
+                double min = Double.NaN;
+                double max = Double.NaN;
+                for (int j = 0; j < column.size(); j++) {
+                    double v = column.get(j);
+                    if (!Double.isNaN(v)) {
+                        min = Double.isNaN(min) ? v : Math.min(min, v);
+                        max = Double.isNaN(max) ? v : Math.max(max, v);
+                    }
+                }
+                assertThat("window " + window + " append " + i, Double.compare(column.min(), min) == 0 && Double.compare(column.max(), max) == 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2023 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.desktop.ui.plotting;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import io.questdb.desktop.model.Table;
+import org.junit.jupiter.api.Test;
+
+public class TableColumnTest {
+    private static final int ROWS = 500;
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+
+    private static int[] paint(PlotCanvas canvas) {
+        canvas.setSize(WIDTH, HEIGHT);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            canvas.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    // running a new query closes the results, the plot keeps showing them
+    @Test
+    public void test_plot_keeps_its_values_when_the_results_are_closed() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData metadata = mock(ResultSetMetaData.class);
+        when(metadata.getColumnCount()).thenReturn(2);
+        when(metadata.getColumnName(eq(1))).thenReturn("x");
+        when(metadata.getColumnName(eq(2))).thenReturn("y");
+        when(metadata.getColumnType(eq(1))).thenReturn(Types.BIGINT);
+        when(metadata.getColumnType(eq(2))).thenReturn(Types.DOUBLE);
+        when(rs.getMetaData()).thenReturn(metadata);
+
+        Table table = new Table(null);
+        table.setColumnMetadata(rs);
+        SlidingColumn expectedX = new SlidingColumn("x", ROWS, Color.WHITE);
+        SlidingColumn expectedY = new SlidingColumn("y", ROWS, Color.ORANGE);
+        for (int i = 0; i < ROWS; i++) {
+            double y = Math.sin(i / 20.0) * 100.0;
+            when(rs.getObject(1)).thenReturn((long) i);
+            when(rs.getObject(2)).thenReturn(y);
+            table.addRow(i, rs);
+            expectedX.append(i);
+            expectedY.append(y);
+        }
+        TableColumn x = new TableColumn("x", table, 1, Color.WHITE);
+        TableColumn y = new TableColumn("y", table, 2, Color.ORANGE);
+        PlotCanvas plot = new PlotCanvas();
+        plot.setDataSet("results", x, y);
+
+        table.close();
+        assertThat(table.getNumericColumn(2), nullValue());
+        assertThat(x.size(), is(ROWS));
+        assertThat(y.size(), is(ROWS));
+        for (int i = 0; i < ROWS; i++) {
+            assertThat(x.get(i), is(expectedX.get(i)));
+            assertThat(y.get(i), is(expectedY.get(i)));
+        }
+        assertThat(y.min(), is(expectedY.min()));
+        assertThat(y.max(), is(expectedY.max()));
+
+        PlotCanvas expected = new PlotCanvas();
+        expected.setDataSet("results", expectedX, expectedY);
+        assertThat(paint(plot), is(paint(expected)));
+    }
+}